@@ -30,6 +30,8 @@ import burstcoin.jminer.core.reader.Reader;
 import burstcoin.jminer.core.reader.event.ReaderCorruptFileEvent;
 import burstcoin.jminer.core.reader.event.ReaderDriveFinishEvent;
 import burstcoin.jminer.core.reader.event.ReaderDriveInterruptedEvent;
+import burstcoin.jminer.core.reader.event.ReaderDriveSpinUpEvent;
+import burstcoin.jminer.core.reader.event.ReaderDriveTunedEvent;
 import burstcoin.jminer.core.reader.event.ReaderProgressChangedEvent;
 import burstcoin.jminer.core.round.event.RoundFinishedEvent;
 import burstcoin.jminer.core.round.event.RoundGenSigAlreadyMinedEvent;
@@ -46,9 +48,6 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.ConfigurableApplicationContext;
 
-import java.math.BigDecimal;
-import java.math.MathContext;
-
 
 public class JMinerCommandLine
   implements CommandLineRunner
@@ -129,11 +128,7 @@ public class JMinerCommandLine
         long s = event.getElapsedTime() / 1000;
         long ms = event.getElapsedTime() % 1000;
 
-        BigDecimal totalCapacity = new BigDecimal(event.getCapacity());
-        BigDecimal factor = BigDecimal.ONE.divide(totalCapacity, MathContext.DECIMAL32);
-        BigDecimal progress = factor.multiply(new BigDecimal(event.getCapacity() - event.getRemainingCapacity()));
-        int percentage = (int) Math.ceil(progress.doubleValue() * 100);
-        percentage = percentage > 100 ? 100 : percentage;
+        int percentage = getPercentage(event.getCapacity(), event.getRemainingCapacity());
 
         String bestDeadline = Long.MAX_VALUE == event.getBestCommittedDeadline() ? "N/A" : String.valueOf(event.getBestCommittedDeadline());
         LOG.info("STOP block '" + event.getBlockNumber() + "', " + String.valueOf(percentage) + "% done, "
@@ -195,11 +190,7 @@ public class JMinerCommandLine
             progressLogStep--;
 
             // done nonces percentage
-            BigDecimal totalCapacity = new BigDecimal(event.getCapacity());
-            BigDecimal factor = BigDecimal.ONE.divide(totalCapacity, MathContext.DECIMAL32);
-            BigDecimal progress = factor.multiply(new BigDecimal(event.getCapacity() - event.getRemainingCapacity()));
-            int percentage = (int) Math.ceil(progress.doubleValue() * 100);
-            percentage = percentage > 100 ? 100 : percentage;
+            int percentage = getPercentage(event.getCapacity(), event.getRemainingCapacity());
 
             // done nonce capacity
             long doneBytes = event.getCapacity() - event.getRemainingCapacity();
@@ -303,11 +294,32 @@ public class JMinerCommandLine
           long s = event.getTime() / 1000;
           long ms = event.getTime() % 1000;
 
-          LOG.info("read '" + event.getDirectory() + "' (" + doneTB + T_UNIT + " " + doneGB + G_UNIT + ") in '" + s + "s " + ms + "ms'");
+          // prediction of the speed profile, compared to the time without waiting for a reader thread
+          String prediction = "";
+          if(event.getPredictedTime() > 0)
+          {
+            long readTime = event.getStartLatency() >= 0 ? event.getTime() - event.getStartLatency() : event.getTime();
+            long error = (readTime - event.getPredictedTime()) * 100 / event.getPredictedTime();
+            prediction = ", predicted '" + event.getPredictedTime() + "ms' (" + (error >= 0 ? "+" : "") + error + "%)";
+          }
+
+          LOG.info("read '" + event.getDirectory() + "' (" + doneTB + T_UNIT + " " + doneGB + G_UNIT + ") in '" + s + "s " + ms + "ms'"
+                   + (event.getStartLatency() >= 0 ? ", first read after '" + event.getStartLatency() + "ms'" : "") + prediction);
         }
       }
     });
 
+    context.addApplicationListener(new ApplicationListener<ReaderDriveTunedEvent>()
+    {
+      @Override
+      public void onApplicationEvent(ReaderDriveTunedEvent event)
+      {
+        long mbPerSec = event.getBytesPerSecond() / SIZE_DIVISOR / SIZE_DIVISOR;
+        LOG.info((event.isSettled() ? "tuned '" : "autotune '") + event.getDirectory() + "': " + event.getDriveSetup() + " -> '"
+                 + mbPerSec + " " + M_UNIT + "/s', checker idle '" + event.getCheckerIdle() + "%'");
+      }
+    });
+
     context.addApplicationListener(new ApplicationListener<ReaderDriveInterruptedEvent>()
     {
       @Override
@@ -317,6 +329,17 @@ public class JMinerCommandLine
       }
     });
 
+    context.addApplicationListener(new ApplicationListener<ReaderDriveSpinUpEvent>()
+    {
+      @Override
+      public void onApplicationEvent(ReaderDriveSpinUpEvent event)
+      {
+        LOG.info("device '" + event.getDevice() + "' spun up in '" + event.getDelay() + "ms' on " + (event.isKeepalive() ? "keepalive" : "first read of '"
+                 + event.getDirectory() + "'") + ", '" + event.getSpinUps() + "' spin-ups took '" + event.getTotalDelay() / 1000 + "s' since start"
+                 + (!event.isKeepalive() && CoreProperties.getKeepaliveInterval() == 0 ? ", 'keepaliveInterval' may prevent it." : "."));
+      }
+    });
+
   }
 
   private void showNetworkQualityInfo(int networkQuality)
@@ -327,6 +350,16 @@ public class JMinerCommandLine
     }
   }
 
+  private int getPercentage(long capacity, long remainingCapacity)
+  {
+    if(capacity <= 0)
+    {
+      return 100;
+    }
+    int percentage = (int) Math.ceil((capacity - remainingCapacity) * 100d / capacity);
+    return percentage > 100 ? 100 : percentage;
+  }
+
   private String getDeadlineTime(Long calculatedDeadline)
   {
     long sec = calculatedDeadline;
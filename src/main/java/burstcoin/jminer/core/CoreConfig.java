@@ -22,6 +22,7 @@
 
 package burstcoin.jminer.core;
 
+import burstcoin.jminer.core.event.CoreEventMulticaster;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
@@ -31,7 +32,6 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.SimpleAsyncTaskExecutor;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
  * The type Core config.
@@ -42,15 +42,11 @@ public class CoreConfig
 {
   private static final Logger LOG = LoggerFactory.getLogger(CoreConfig.class);
 
-  @Bean(name = "readerPool")
-  public ThreadPoolTaskExecutor readerPool()
+  // replaces spring's default (synchronous) multicaster
+  @Bean(name = "applicationEventMulticaster")
+  public CoreEventMulticaster applicationEventMulticaster()
   {
-    ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
-    pool.setThreadPriority(Thread.MIN_PRIORITY);
-    // false-> triggers interrupt exception at shutdown
-    pool.setWaitForTasksToCompleteOnShutdown(true);
-    pool.initialize();
-    return pool;
+    return new CoreEventMulticaster(CoreProperties.getUiEventQueueSize());
   }
 
   @Bean(name = "networkPool")
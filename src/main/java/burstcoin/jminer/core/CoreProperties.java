@@ -22,6 +22,10 @@
 
 package burstcoin.jminer.core;
 
+import burstcoin.jminer.core.reader.data.ReadMode;
+import burstcoin.jminer.core.reader.data.ReadWindow;
+import burstcoin.jminer.core.reader.util.IoPriority;
+import com.sun.jna.Platform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.StringUtils;
@@ -31,13 +35,17 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CoreProperties
 {
   private static final Logger LOG = LoggerFactory.getLogger(CoreProperties.class);
   private static final String STRING_LIST_PROPERTY_DELIMITER = ",";
   private static final Properties PROPS = new Properties();
+  // plotPath overrides, by property key
+  private static final Map<String, Object> PLOT_PATH_PROPERTIES = new ConcurrentHashMap<>();
 
   // default values
   private static final int DEFAULT_CHUNK_PART_NONCES = 960000;
@@ -50,6 +58,8 @@ public class CoreProperties
   private static final long DEFAULT_TARGET_DEADLINE = Long.MAX_VALUE;
   private static final String DEFAULT_SOLO_SERVER = "http://localhost:8125";
   private static final int DEFAULT_READ_PROGRESS_PER_ROUND = 9;
+  private static final int DEFAULT_READ_PROGRESS_INTERVAL = 500;
+  private static final int DEFAULT_UI_EVENT_QUEUE_SIZE = 256;
   private static final int DEFAULT_REFRESH_INTERVAL = 2000;
   private static final int DEFAULT_CONNECTION_TIMEOUT = 18000;
   private static final int DEFAULT_WINNER_RETRIES_ON_ASYNC = 4;
@@ -57,13 +67,32 @@ public class CoreProperties
   private static final boolean DEFAULT_SCAN_PATHS_EVERY_ROUND = true;
   private static final boolean DEFAULT_BYTE_UNIT_DECIMAL = true;
   private static final boolean DEFAULT_LIST_PLOT_FILES = false;
+  private static final boolean DEFAULT_LIST_PLOT_FILE_EXTENTS = false;
   private static final boolean DEFAULT_SHOW_DRIVE_INFO = false;
   private static final boolean DEFAULT_SHOW_SKIPPED_DEADLINES = true;
   private static final int DEFAULT_READER_THREADS = 0;
+  private static final int DEFAULT_DRIVE_CONCURRENCY = 0;
+  private static final int DEFAULT_HDD_CONCURRENCY = 1;
+  private static final int DEFAULT_SSD_CONCURRENCY = 4;
+  private static final int DEFAULT_MAX_OPEN_PLOT_FILES = 1024;
+  private static final long DEFAULT_READ_REQUEST_NONCES = 65536;
   private static final boolean DEFAULT_DEBUG = false;
   private static final boolean DEFAULT_WRITE_LOG_FILE = false;
   private static final boolean DEFAULT_UPDATE_MINING_INFO = true;
   private static final String DEFAULT_LOG_FILE_PATH = "log/jminer.log.txt";
+  private static final String DEFAULT_DRIVE_SPEED_PROFILE = "jminer.speed.json";
+  private static final boolean DEFAULT_AUTOTUNE = false;
+  private static final int DEFAULT_PREFETCH_FILES = 0;
+  private static final String DEFAULT_AUTOTUNE_PROFILE = "jminer.autotune.json";
+  private static final int DEFAULT_READ_BANDWIDTH = 0;
+  private static final int DEFAULT_THROTTLE_DEADLINE = 180;
+  private static final int DEFAULT_DRIVE_STALL_TIMEOUT = 60;
+  private static final String DEFAULT_BAD_REGION_MAP = "jminer.badregions.json";
+  private static final int DEFAULT_KEEPALIVE_INTERVAL = 0;
+  private static final int DEFAULT_SCRUB_BANDWIDTH = 1;
+  private static final int DEFAULT_SCRUB_NONCES = 16;
+  private static final int DEFAULT_QUARANTINE_REJECTIONS = 3;
+  private static final String DEFAULT_PLOT_QUARANTINE = "jminer.quarantine.json";
 
   static
   {
@@ -78,6 +107,8 @@ public class CoreProperties
   }
 
   private static Integer readProgressPerRound;
+  private static Long readProgressInterval;
+  private static Integer uiEventQueueSize;
   private static Long refreshInterval;
   private static Long connectionTimeout;
   private static Integer winnerRetriesOnAsync;
@@ -99,9 +130,29 @@ public class CoreProperties
   private static String poolServer;
   private static Boolean byteUnitDecimal;
   private static Boolean listPlotFiles;
+  private static Boolean listPlotFileExtents;
   private static Boolean showDriveInfo;
   private static Boolean showSkippedDeadlines;
   private static Integer readerThreads;
+  private static Integer driveConcurrency;
+  private static String driveSpeedProfile;
+  private static ReadMode readMode;
+  private static Boolean autotune;
+  private static Integer prefetchFiles;
+  private static String autotuneProfile;
+  private static Integer ioPriority;
+  private static Integer readBandwidth;
+  private static List<ReadWindow> readWindows;
+  private static Integer throttleDeadline;
+  private static Integer driveStallTimeout;
+  private static String badRegionMap;
+  private static Integer keepaliveInterval;
+  private static Integer scrubBandwidth;
+  private static Integer scrubNonces;
+  private static Integer quarantineRejections;
+  private static String plotQuarantine;
+  private static Integer maxOpenPlotFiles;
+  private static Long readRequestNonces;
   private static Boolean writeLogFile;
   private static Boolean debug;
   private static String logFilePath;
@@ -128,6 +179,44 @@ public class CoreProperties
     return readProgressPerRound;
   }
 
+  /**
+   * Gets interval of read progress updates (in ms).
+   *
+   * @return the read progress interval
+   */
+  public static long getReadProgressInterval()
+  {
+    if(readProgressInterval == null)
+    {
+      readProgressInterval = asLong("readProgressInterval", DEFAULT_READ_PROGRESS_INTERVAL);
+      if(readProgressInterval <= 0)
+      {
+        LOG.error("property: 'readProgressInterval' should be greater than 0, default used.");
+        readProgressInterval = (long) DEFAULT_READ_PROGRESS_INTERVAL;
+      }
+    }
+    return readProgressInterval;
+  }
+
+  /**
+   * Gets max. number of queued ui events, further ui events are dropped until queue has space again.
+   *
+   * @return the ui event queue size
+   */
+  public static int getUiEventQueueSize()
+  {
+    if(uiEventQueueSize == null)
+    {
+      uiEventQueueSize = asInteger("uiEventQueueSize", DEFAULT_UI_EVENT_QUEUE_SIZE);
+      if(uiEventQueueSize <= 0)
+      {
+        LOG.error("property: 'uiEventQueueSize' should be greater than 0, default used.");
+        uiEventQueueSize = DEFAULT_UI_EVENT_QUEUE_SIZE;
+      }
+    }
+    return uiEventQueueSize;
+  }
+
   /**
    * Gets refresh interval.
    *
@@ -394,6 +483,66 @@ public class CoreProperties
     return readerThreads;
   }
 
+  /**
+   * Gets number of reader threads per physical device, '0' chooses by device type.
+   *
+   * @return the drive concurrency
+   */
+  public static int getDriveConcurrency()
+  {
+    if(driveConcurrency == null)
+    {
+      driveConcurrency = Math.max(0, asInteger("driveConcurrency", DEFAULT_DRIVE_CONCURRENCY));
+    }
+    return driveConcurrency;
+  }
+
+  /**
+   * Gets number of reader threads for a device, HDDs get one thread per disk to avoid seeking, SSDs read parallel.
+   *
+   * @param rotational true for HDD, false for SSD, null if unknown
+   * @param disks number of physical disks of the device, more than one for raid sets
+   * @return the device concurrency
+   */
+  public static int getDriveConcurrency(Boolean rotational, int disks)
+  {
+    int concurrency = getDriveConcurrency();
+    if(concurrency > 0)
+    {
+      return concurrency;
+    }
+    return Boolean.FALSE.equals(rotational) ? DEFAULT_SSD_CONCURRENCY : DEFAULT_HDD_CONCURRENCY * disks;
+  }
+
+  /**
+   * Gets number of reader threads of a plotPath, 'plotPaths.N.driveConcurrency' overrides the device default.
+   *
+   * @param plotPath the plot path
+   * @param rotational true for HDD, false for SSD, null if unknown
+   * @param disks number of physical disks of the device, more than one for raid sets
+   * @return the drive concurrency
+   */
+  public static int getDriveConcurrency(String plotPath, Boolean rotational, int disks)
+  {
+    int concurrency = (int) PLOT_PATH_PROPERTIES.computeIfAbsent(plotPathKey(plotPath, "driveConcurrency"),
+                                                                 key -> Math.max(0, asInteger(key, 0)));
+    return concurrency > 0 ? concurrency : getDriveConcurrency(rotational, disks);
+  }
+
+  /**
+   * Gets max. number of plot-files kept open between rounds, '0' disables caching.
+   *
+   * @return the max open plot files
+   */
+  public static int getMaxOpenPlotFiles()
+  {
+    if(maxOpenPlotFiles == null)
+    {
+      maxOpenPlotFiles = Math.max(0, asInteger("maxOpenPlotFiles", DEFAULT_MAX_OPEN_PLOT_FILES));
+    }
+    return maxOpenPlotFiles;
+  }
+
   /**
    * Gets plot paths.
    *
@@ -427,6 +576,46 @@ public class CoreProperties
     return chunkPartNonces;
   }
 
+  /**
+   * Gets chunk part nonces of a plotPath, 'plotPaths.N.chunkPartNonces' overrides the global value.
+   *
+   * @param plotPath the plot path
+   * @return the chunk part nonces
+   */
+  public static long getChunkPartNonces(String plotPath)
+  {
+    return (long) PLOT_PATH_PROPERTIES.computeIfAbsent(plotPathKey(plotPath, "chunkPartNonces"), key -> asLong(key, getChunkPartNonces()));
+  }
+
+  /**
+   * Gets nonces (scoops) read per io request, rounded down to multiple of 64 (4096 bytes).
+   *
+   * @return the read request nonces
+   */
+  public static long getReadRequestNonces()
+  {
+    if(readRequestNonces == null)
+    {
+      long nonces = asLong("readRequestNonces", DEFAULT_READ_REQUEST_NONCES) / 64 * 64;
+      readRequestNonces = nonces > 0 ? nonces : DEFAULT_READ_REQUEST_NONCES;
+    }
+    return readRequestNonces;
+  }
+
+  /**
+   * Gets read request nonces of a plotPath, 'plotPaths.N.readRequestNonces' overrides the global value.
+   *
+   * @param plotPath the plot path
+   * @return the read request nonces
+   */
+  public static long getReadRequestNonces(String plotPath)
+  {
+    return (long) PLOT_PATH_PROPERTIES.computeIfAbsent(plotPathKey(plotPath, "readRequestNonces"), key -> {
+      long nonces = asLong(key, getReadRequestNonces()) / 64 * 64;
+      return nonces > 0 ? nonces : getReadRequestNonces();
+    });
+  }
+
   public static boolean isByteUnitDecimal()
   {
     if(byteUnitDecimal == null)
@@ -445,6 +634,15 @@ public class CoreProperties
     return listPlotFiles;
   }
 
+  public static boolean isListPlotFileExtents()
+  {
+    if(listPlotFileExtents == null)
+    {
+      listPlotFileExtents = asBoolean("listPlotFileExtents", DEFAULT_LIST_PLOT_FILE_EXTENTS);
+    }
+    return listPlotFileExtents;
+  }
+
   public static boolean isUpdateMiningInfo()
   {
     if(updateMiningInfo == null)
@@ -490,6 +688,303 @@ public class CoreProperties
     return debug;
   }
 
+  /**
+   * Gets file the measured read speed of drives is stored in, 'disabled' to not persist it.
+   *
+   * @return the drive speed profile path
+   */
+  public static String getDriveSpeedProfile()
+  {
+    if(driveSpeedProfile == null)
+    {
+      driveSpeedProfile = asString("driveSpeedProfile", DEFAULT_DRIVE_SPEED_PROFILE);
+    }
+    return driveSpeedProfile;
+  }
+
+  /**
+   * Gets how plot-files are read, 'direct' io by default on linux, 'buffered' on other platforms.
+   *
+   * @return the read mode
+   */
+  public static ReadMode getReadMode()
+  {
+    if(readMode == null)
+    {
+      readMode = asReadMode("readMode", Platform.isLinux() ? ReadMode.DIRECT : ReadMode.BUFFERED);
+    }
+    return readMode;
+  }
+
+  /**
+   * Gets read mode of a plotPath, 'plotPaths.N.readMode' overrides the global value.
+   *
+   * @param plotPath the plot path
+   * @return the read mode
+   */
+  public static ReadMode getReadMode(String plotPath)
+  {
+    return (ReadMode) PLOT_PATH_PROPERTIES.computeIfAbsent(plotPathKey(plotPath, "readMode"), key -> asReadMode(key, getReadMode()));
+  }
+
+  /**
+   * Gets number of plot-files to prefetch ahead of the reader, '0' disables prefetching.
+   *
+   * @return the prefetch files
+   */
+  public static int getPrefetchFiles()
+  {
+    if(prefetchFiles == null)
+    {
+      prefetchFiles = Math.max(0, asInteger("prefetchFiles", DEFAULT_PREFETCH_FILES));
+    }
+    return prefetchFiles;
+  }
+
+  /**
+   * Gets number of plot-files to prefetch of a plotPath, 'plotPaths.N.prefetchFiles' overrides the global value.
+   *
+   * @param plotPath the plot path
+   * @return the prefetch files
+   */
+  public static int getPrefetchFiles(String plotPath)
+  {
+    return (int) PLOT_PATH_PROPERTIES.computeIfAbsent(plotPathKey(plotPath, "prefetchFiles"), key -> Math.max(0, asInteger(key, getPrefetchFiles())));
+  }
+
+  /**
+   * Gets io priority of reader threads, 'realtime', 'best-effort' or 'idle' with optional level, by default it is not changed.
+   *
+   * @return the encoded io priority, IoPriority.NONE if not set
+   */
+  public static int getIoPriority()
+  {
+    if(ioPriority == null)
+    {
+      ioPriority = asIoPriority("ioPriority", IoPriority.NONE);
+    }
+    return ioPriority;
+  }
+
+  /**
+   * Gets io priority of a plotPath, 'plotPaths.N.ioPriority' overrides the global value.
+   *
+   * @param plotPath the plot path
+   * @return the encoded io priority, IoPriority.NONE if not set
+   */
+  public static int getIoPriority(String plotPath)
+  {
+    return (int) PLOT_PATH_PROPERTIES.computeIfAbsent(plotPathKey(plotPath, "ioPriority"), key -> asIoPriority(key, getIoPriority()));
+  }
+
+  /**
+   * Gets max. read bandwidth of a drive in MB/s, '0' for unlimited.
+   *
+   * @return the read bandwidth
+   */
+  public static int getReadBandwidth()
+  {
+    if(readBandwidth == null)
+    {
+      readBandwidth = Math.max(0, asInteger("readBandwidth", DEFAULT_READ_BANDWIDTH));
+    }
+    return readBandwidth;
+  }
+
+  /**
+   * Gets max. read bandwidth of a plotPath, 'plotPaths.N.readBandwidth' overrides the global value.
+   *
+   * @param plotPath the plot path
+   * @return the read bandwidth
+   */
+  public static int getReadBandwidth(String plotPath)
+  {
+    return (int) PLOT_PATH_PROPERTIES.computeIfAbsent(plotPathKey(plotPath, "readBandwidth"), key -> Math.max(0, asInteger(key, getReadBandwidth())));
+  }
+
+  /**
+   * Gets daily windows a drive is read with other bandwidth or paused, e.g. '08:00-18:00=20,22:00-06:00=pause'.
+   *
+   * @return the read windows
+   */
+  public static List<ReadWindow> getReadWindows()
+  {
+    if(readWindows == null)
+    {
+      readWindows = asReadWindows("readWindows", new ArrayList<>());
+    }
+    return readWindows;
+  }
+
+  /**
+   * Gets read windows of a plotPath, 'plotPaths.N.readWindows' overrides the global value.
+   *
+   * @param plotPath the plot path
+   * @return the read windows
+   */
+  @SuppressWarnings("unchecked")
+  public static List<ReadWindow> getReadWindows(String plotPath)
+  {
+    return (List<ReadWindow>) PLOT_PATH_PROPERTIES.computeIfAbsent(plotPathKey(plotPath, "readWindows"), key -> asReadWindows(key, getReadWindows()));
+  }
+
+  /**
+   * Gets seconds after new block, throttled or paused drives should be read until, they are read with full speed if needed.
+   *
+   * @return the throttle deadline in seconds
+   */
+  public static int getThrottleDeadline()
+  {
+    if(throttleDeadline == null)
+    {
+      throttleDeadline = Math.max(0, asInteger("throttleDeadline", DEFAULT_THROTTLE_DEADLINE));
+    }
+    return throttleDeadline;
+  }
+
+  /**
+   * Gets seconds a read may hang, before the drive is skipped until it responds again, '0' disables the watchdog.
+   *
+   * @return the drive stall timeout in seconds
+   */
+  public static int getDriveStallTimeout()
+  {
+    if(driveStallTimeout == null)
+    {
+      driveStallTimeout = Math.max(0, asInteger("driveStallTimeout", DEFAULT_DRIVE_STALL_TIMEOUT));
+    }
+    return driveStallTimeout;
+  }
+
+  /**
+   * Gets file unreadable regions of plot-files are stored in, 'disabled' to not persist them.
+   *
+   * @return the bad region map path
+   */
+  public static String getBadRegionMap()
+  {
+    if(badRegionMap == null)
+    {
+      badRegionMap = asString("badRegionMap", DEFAULT_BAD_REGION_MAP);
+    }
+    return badRegionMap;
+  }
+
+  /**
+   * Gets seconds a HDD may be idle, before it gets a tiny read to keep it from spinning down, '0' disables keepalive.
+   *
+   * @return the keepalive interval in seconds
+   */
+  public static int getKeepaliveInterval()
+  {
+    if(keepaliveInterval == null)
+    {
+      keepaliveInterval = Math.max(0, asInteger("keepaliveInterval", DEFAULT_KEEPALIVE_INTERVAL));
+    }
+    return keepaliveInterval;
+  }
+
+  /**
+   * Gets read speed in MB/s the plot scrubber may use between rounds, '0' disables scrubbing.
+   *
+   * @return the scrub bandwidth in MB/s
+   */
+  public static int getScrubBandwidth()
+  {
+    if(scrubBandwidth == null)
+    {
+      scrubBandwidth = Math.max(0, asInteger("scrubBandwidth", DEFAULT_SCRUB_BANDWIDTH));
+    }
+    return scrubBandwidth;
+  }
+
+  /**
+   * Gets number of nonces the plot scrubber verifies of a plot-file, before it continues with the next one.
+   *
+   * @return the scrub nonces
+   */
+  public static int getScrubNonces()
+  {
+    if(scrubNonces == null)
+    {
+      scrubNonces = Math.max(1, asInteger("scrubNonces", DEFAULT_SCRUB_NONCES));
+    }
+    return scrubNonces;
+  }
+
+  /**
+   * Gets number of rejected deadlines in a row, before a plot-file is quarantined, '0' disables it.
+   *
+   * @return the quarantine rejections
+   */
+  public static int getQuarantineRejections()
+  {
+    if(quarantineRejections == null)
+    {
+      quarantineRejections = Math.max(0, asInteger("quarantineRejections", DEFAULT_QUARANTINE_REJECTIONS));
+    }
+    return quarantineRejections;
+  }
+
+  /**
+   * Gets path of the file quarantined plot-files are stored in, 'disabled' to not persist them.
+   *
+   * @return the plot quarantine path
+   */
+  public static String getPlotQuarantine()
+  {
+    if(plotQuarantine == null)
+    {
+      plotQuarantine = asString("plotQuarantine", DEFAULT_PLOT_QUARANTINE);
+    }
+    return plotQuarantine;
+  }
+
+  /**
+   * Checks if a property is overridden for a plotPath, by 'plotPaths.N.key' with N as position in 'plotPaths' (first is 1).
+   *
+   * @param plotPath the plot path
+   * @param key the property key
+   * @return true if overridden
+   */
+  public static boolean hasPlotPathProperty(String plotPath, String key)
+  {
+    return !StringUtils.isEmpty(PROPS.getProperty(plotPathKey(plotPath, key)));
+  }
+
+  private static String plotPathKey(String plotPath, String key)
+  {
+    return "plotPaths." + (getPlotPaths().indexOf(plotPath) + 1) + "." + key;
+  }
+
+  /**
+   * Gets if read mode, read request size and concurrency should be tuned per drive, by measuring them over rounds.
+   *
+   * @return true if autotune
+   */
+  public static boolean isAutotune()
+  {
+    if(autotune == null)
+    {
+      autotune = asBoolean("autotune", DEFAULT_AUTOTUNE);
+    }
+    return autotune;
+  }
+
+  /**
+   * Gets file the tuned setup of drives is stored in, 'disabled' to not persist it.
+   *
+   * @return the autotune profile path
+   */
+  public static String getAutotuneProfile()
+  {
+    if(autotuneProfile == null)
+    {
+      autotuneProfile = asString("autotuneProfile", DEFAULT_AUTOTUNE_PROFILE);
+    }
+    return autotuneProfile;
+  }
+
   public static String getLogFilePath()
   {
     if(logFilePath == null)
@@ -590,6 +1085,60 @@ public class CoreProperties
     return value != null ? value : defaultValue;
   }
 
+  private static ReadMode asReadMode(String key, ReadMode defaultValue)
+  {
+    String value = asString(key, defaultValue.name());
+    try
+    {
+      return ReadMode.valueOf(value.trim().toUpperCase());
+    }
+    catch(IllegalArgumentException e)
+    {
+      LOG.error("Error: property '" + key + "' has to be 'direct', 'buffered' or 'mmap', using '" + defaultValue.name().toLowerCase() + "'!");
+      return defaultValue;
+    }
+  }
+
+  private static int asIoPriority(String key, int defaultValue)
+  {
+    String value = asString(key, null);
+    if(value == null)
+    {
+      return defaultValue;
+    }
+    try
+    {
+      return IoPriority.parse(value);
+    }
+    catch(IllegalArgumentException e)
+    {
+      LOG.error("Error: property '" + key + "' has to be 'realtime', 'best-effort' or 'idle', optional with level 0-7 e.g. 'idle' or 'best-effort:7'!");
+      return defaultValue;
+    }
+  }
+
+  private static List<ReadWindow> asReadWindows(String key, List<ReadWindow> defaultValue)
+  {
+    List<String> values = asStringList(key, null);
+    if(values == null)
+    {
+      return defaultValue;
+    }
+    List<ReadWindow> windows = new ArrayList<>();
+    for(String value : values)
+    {
+      try
+      {
+        windows.add(ReadWindow.parse(value));
+      }
+      catch(IllegalArgumentException e)
+      {
+        LOG.error("Error: property '" + key + "' has invalid window '" + value + "', expected e.g. '08:00-18:00=20' or '22:00-06:00=pause'!");
+      }
+    }
+    return windows;
+  }
+
   private static String asString(String key, String defaultValue)
   {
     String value = PROPS.containsKey(key) ? String.valueOf(PROPS.getProperty(key)) : defaultValue;
@@ -24,14 +24,15 @@ package burstcoin.jminer.core.checker;
 
 import burstcoin.jminer.core.CoreProperties;
 import burstcoin.jminer.core.checker.event.CheckerResultEvent;
+import burstcoin.jminer.core.checker.event.CheckerResultListener;
 import burstcoin.jminer.core.checker.util.OCLChecker;
 import burstcoin.jminer.core.reader.event.ReaderLoadedPartEvent;
+import burstcoin.jminer.core.reader.event.ReaderLoadedPartListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Scope;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
@@ -43,20 +44,26 @@ import java.util.concurrent.atomic.AtomicLong;
 @Component
 @Scope("singleton")
 public class Checker
+  implements ReaderLoadedPartListener
 {
   private static final Logger LOG = LoggerFactory.getLogger(Checker.class);
 
-  private final ApplicationEventPublisher publisher;
+  private final ObjectProvider<CheckerResultListener> resultListenerProvider;
   private final OCLChecker oclChecker;
+  // resolved on first result, listeners depend on checker
+  private volatile CheckerResultListener[] resultListeners;
+
+  // result events are reused per reader thread, listeners handle them synchronous
+  private final ThreadLocal<CheckerResultEvent> resultEvents = ThreadLocal.withInitial(CheckerResultEvent::new);
 
   // data
   private volatile AtomicLong blockNumber;
   private volatile byte[] generationSignature;
 
   @Autowired
-  public Checker(ApplicationEventPublisher publisher, OCLChecker oclChecker)
+  public Checker(ObjectProvider<CheckerResultListener> resultListenerProvider, OCLChecker oclChecker)
   {
-    this.publisher = publisher;
+    this.resultListenerProvider = resultListenerProvider;
     this.oclChecker = oclChecker;
 
     blockNumber = new AtomicLong();
@@ -68,7 +75,7 @@ public class Checker
     this.generationSignature = generationSignature;
   }
 
-  @EventListener
+  @Override
   public void handleMessage(ReaderLoadedPartEvent event)
   {
     if(CoreProperties.isUseOpenCl() && blockNumber.get() == event.getBlockNumber() && Arrays.equals(generationSignature, event.getGenerationSignature()))
@@ -76,12 +83,25 @@ public class Checker
       int lowestNonce;
       synchronized(oclChecker)
       {
-        lowestNonce = oclChecker.findLowest(event.getGenerationSignature(), event.getScoops());
+        // skip parts of cancelled rounds, that were waiting for the checker
+        if(event.getCancellationToken().isCancelled())
+        {
+          LOG.trace("skipped check scoop ... round cancelled...");
+          return;
+        }
+        lowestNonce = event.resolveNonce(oclChecker.findLowest(event.getGenerationSignature(), event.getScoops(), event.getScoopsOffset(),
+                                                               event.getNumberOfScoops()));
       }
-      if(blockNumber.get() == event.getBlockNumber() && Arrays.equals(generationSignature, event.getGenerationSignature()))
+      if(!event.getCancellationToken().isCancelled() && blockNumber.get() == event.getBlockNumber()
+         && Arrays.equals(generationSignature, event.getGenerationSignature()))
       {
-        publisher.publishEvent(new CheckerResultEvent(blockNumber.get(), generationSignature, event.getChunkPartStartNonce(), lowestNonce,
-                                                      event.getPlotFilePath(), event.getScoops()));
+        CheckerResultEvent resultEvent = resultEvents.get().update(blockNumber.get(), generationSignature, event.getChunkPartStartNonce(),
+                                                                   event.getChunkPartId(), lowestNonce, event.getPlotFilePath(), event.getScoops(),
+                                                                   event.getScoopsOffset());
+        for(CheckerResultListener listener : getResultListeners())
+        {
+          listener.handleMessage(resultEvent);
+        }
       }
       else
       {
@@ -93,4 +113,15 @@ public class Checker
       LOG.trace("skipped check scoop ... outdated mining info...");
     }
   }
+
+  private CheckerResultListener[] getResultListeners()
+  {
+    CheckerResultListener[] listeners = resultListeners;
+    if(listeners == null)
+    {
+      listeners = resultListenerProvider.orderedStream().toArray(CheckerResultListener[]::new);
+      resultListeners = listeners;
+    }
+    return listeners;
+  }
 }
@@ -22,30 +22,63 @@
 
 package burstcoin.jminer.core.checker.event;
 
-import java.math.BigInteger;
+import signumj.crypto.plot.impl.MiningPlot;
 
 /**
- * fired if chunk-part checked
+ * fired if chunk-part checked, instances are reused for all parts checked by the same thread,
+ * use copyLowest() to keep a result. delivered to CheckerResultListener beans only, not published by spring.
  */
 public class CheckerResultEvent
 {
   private byte[] generationSignature;
-  private BigInteger chunkPartStartNonce;
+  private long chunkPartStartNonce;
+  private int chunkPartId;
 
   private long blockNumber;
-  private BigInteger result;
+  private long result;
   private String plotFilePath;
   private byte[] scoops;
+  private int scoopsOffset;
   private int lowestNonce;
 
-  public CheckerResultEvent(long blockNumber, byte[] generationSignature, BigInteger chunkPartStartNonce, int lowestNonce, String plotFilePath, byte[] scoops)
+  public CheckerResultEvent()
+  {
+  }
+
+  public CheckerResultEvent(long blockNumber, byte[] generationSignature, long chunkPartStartNonce, int chunkPartId, int lowestNonce, String plotFilePath,
+                            byte[] scoops, int scoopsOffset)
+  {
+    update(blockNumber, generationSignature, chunkPartStartNonce, chunkPartId, lowestNonce, plotFilePath, scoops, scoopsOffset);
+  }
+
+  public CheckerResultEvent update(long blockNumber, byte[] generationSignature, long chunkPartStartNonce, int chunkPartId, int lowestNonce,
+                                   String plotFilePath, byte[] scoops, int scoopsOffset)
   {
     this.generationSignature = generationSignature;
     this.chunkPartStartNonce = chunkPartStartNonce;
+    this.chunkPartId = chunkPartId;
     this.blockNumber = blockNumber;
     this.lowestNonce = lowestNonce;
     this.plotFilePath = plotFilePath;
     this.scoops = scoops;
+    this.scoopsOffset = scoopsOffset;
+    this.result = 0;
+    return this;
+  }
+
+  /**
+   * Detached copy holding only the scoop of the lowest nonce.
+   *
+   * @return the copy
+   */
+  public CheckerResultEvent copyLowest()
+  {
+    byte[] scoop = new byte[MiningPlot.SCOOP_SIZE];
+    System.arraycopy(scoops, scoopsOffset + lowestNonce * MiningPlot.SCOOP_SIZE, scoop, 0, MiningPlot.SCOOP_SIZE);
+    CheckerResultEvent copy = new CheckerResultEvent(blockNumber, generationSignature, chunkPartStartNonce + lowestNonce, chunkPartId, 0, plotFilePath,
+                                                     scoop, 0);
+    copy.setResult(result);
+    return copy;
   }
 
   public String getPlotFilePath()
@@ -58,12 +91,13 @@ public class CheckerResultEvent
     return blockNumber;
   }
 
-  public BigInteger getResult()
+  /* unsigned */
+  public long getResult()
   {
     return result;
   }
 
-  public void setResult(BigInteger result)
+  public void setResult(long result)
   {
     this.result = result;
   }
@@ -73,16 +107,27 @@ public class CheckerResultEvent
     return scoops;
   }
 
+  /* byte offset of first scoop in buffer */
+  public int getScoopsOffset()
+  {
+    return scoopsOffset;
+  }
+
   public int getLowestNonce()
   {
     return lowestNonce;
   }
 
-  public BigInteger getChunkPartStartNonce()
+  public long getChunkPartStartNonce()
   {
     return chunkPartStartNonce;
   }
 
+  public int getChunkPartId()
+  {
+    return chunkPartId;
+  }
+
   public byte[] getGenerationSignature()
   {
     return generationSignature;
@@ -70,6 +70,16 @@ public class OCLChecker {
   private cl_mem gensigMem;
   private cl_mem bestMem;
 
+  // reused between calls, grown if a larger part has to be checked
+  private cl_mem dataMem;
+  private cl_mem deadlineMem;
+  private long memWorkItems;
+
+  private final long[] globalWorkSize = new long[1];
+  private final long[] localWorkSize = new long[1];
+  private final long[] len = new long[1];
+  private final int[] best = new int[1];
+
   @PostConstruct
   protected void postConstruct()
   {
@@ -143,6 +153,9 @@ public class OCLChecker {
 
     gensigMem = clCreateBuffer(context, CL_MEM_READ_ONLY, 32, null, null);
     bestMem = clCreateBuffer(context, CL_MEM_WRITE_ONLY, 400, null, null);
+    dataMem = null;
+    deadlineMem = null;
+    memWorkItems = 0;
 
     LOG.info("");
     LOG.info("(*) openCL context successfully started! (platformId: " + platformId + ", deviceId: " + deviceId + ")");
@@ -198,34 +211,49 @@ public class OCLChecker {
 
   public int findLowest(byte[] gensig, byte[] data)
   {
-    cl_mem dataMem, deadlineMem;
+    return findLowest(gensig, data, 0, data.length / 64);
+  }
 
-    long numNonces = data.length / 64;
+  // only numberOfScoops of data, starting at byte offset are checked, so one buffer can hold several parts
+  public int findLowest(byte[] gensig, byte[] data, int offset, int numberOfScoops)
+  {
+    long numNonces = numberOfScoops;
     long calcWorkgroups = numNonces / workgroupSize[0];
     // thx blago
     if(numNonces % workgroupSize[0] != 0) // if(numNonces % 64 != 0) // org.
     {
       calcWorkgroups++;
     }
+    long workItems = calcWorkgroups * workgroupSize[0];
+    if(workItems > memWorkItems)
+    {
+      if(dataMem != null)
+      {
+        clReleaseMemObject(dataMem);
+        clReleaseMemObject(deadlineMem);
+      }
+      dataMem = clCreateBuffer(context, CL_MEM_READ_ONLY, workItems * 64, null, null);
+      deadlineMem = clCreateBuffer(context, CL_MEM_READ_WRITE, workItems * 8, null, null);
+      memWorkItems = workItems;
+    }
     clEnqueueWriteBuffer(queue, gensigMem, false, 0, 32, Pointer.to(gensig), 0, null, null);
-    dataMem = clCreateBuffer(context, CL_MEM_READ_ONLY, calcWorkgroups * workgroupSize[0] * 64, null, null);
-    clEnqueueWriteBuffer(queue, dataMem, false, 0, data.length, Pointer.to(data), 0, null, null);
-    deadlineMem = clCreateBuffer(context, CL_MEM_READ_WRITE, calcWorkgroups * workgroupSize[0] * 8, null, null);
+    clEnqueueWriteBuffer(queue, dataMem, false, 0, numNonces * 64, Pointer.to(data).withByteOffset(offset), 0, null, null);
     clSetKernelArg(kernel[0], 0, Sizeof.cl_mem, Pointer.to(gensigMem));
     clSetKernelArg(kernel[0], 1, Sizeof.cl_mem, Pointer.to(dataMem));
     clSetKernelArg(kernel[0], 2, Sizeof.cl_mem, Pointer.to(deadlineMem));
-    clEnqueueNDRangeKernel(queue, kernel[0], 1, null, new long[]{calcWorkgroups * workgroupSize[0]}, new long[]{workgroupSize[0]}, 0, null, null);
+    globalWorkSize[0] = workItems;
+    localWorkSize[0] = workgroupSize[0];
+    clEnqueueNDRangeKernel(queue, kernel[0], 1, null, globalWorkSize, localWorkSize, 0, null, null);
     clSetKernelArg(kernel[1], 0, Sizeof.cl_mem, Pointer.to(deadlineMem));
-    long len[] = {data.length / 64};
+    len[0] = numNonces;
     clSetKernelArg(kernel[1], 1, Sizeof.cl_uint, Pointer.to(len));
     clSetKernelArg(kernel[1], 2, Sizeof.cl_uint * workgroupSize[1], null);
     clSetKernelArg(kernel[1], 3, Sizeof.cl_ulong * workgroupSize[1], null);
     clSetKernelArg(kernel[1], 4, Sizeof.cl_mem, Pointer.to(bestMem));
-    clEnqueueNDRangeKernel(queue, kernel[1], 1, null, new long[]{workgroupSize[1]}, new long[]{workgroupSize[1]}, 0, null, null);
-    int best[] = new int[1];
+    globalWorkSize[0] = workgroupSize[1];
+    localWorkSize[0] = workgroupSize[1];
+    clEnqueueNDRangeKernel(queue, kernel[1], 1, null, globalWorkSize, localWorkSize, 0, null, null);
     clEnqueueReadBuffer(queue, bestMem, true, 0, 4, Pointer.to(best), 0, null, null);
-    clReleaseMemObject(dataMem);
-    clReleaseMemObject(deadlineMem);
     return best[0];
   }
 
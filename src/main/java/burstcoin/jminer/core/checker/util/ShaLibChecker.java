@@ -9,7 +9,29 @@ public class ShaLibChecker {
       return LibShabal.LOAD_ERROR;
     }
 
+    // libShabal can not start at an offset, parts not at start of buffer get copied into this one.
+    // one checker per reader thread, so it is grown to the largest part once and reused for all parts
+    private byte[] offsetBuffer;
+
     public int findLowest(byte[] gensig, byte[] data) {
-        return (int) LibShabal.shabal_findBestDeadline(data, data.length / MiningPlot.SCOOP_SIZE, gensig);
+        return findLowest(gensig, data, 0, data.length / MiningPlot.SCOOP_SIZE);
+    }
+
+    // only numberOfScoops of data, starting at byte offset are checked, so one buffer can hold several parts
+    public int findLowest(byte[] gensig, byte[] data, int offset, int numberOfScoops) {
+        if(offset == 0) {
+            return findBestDeadline(data, numberOfScoops, gensig);
+        }
+        int length = numberOfScoops * MiningPlot.SCOOP_SIZE;
+        if(offsetBuffer == null || offsetBuffer.length < length) {
+            offsetBuffer = new byte[length];
+        }
+        System.arraycopy(data, offset, offsetBuffer, 0, length);
+        return findBestDeadline(offsetBuffer, numberOfScoops, gensig);
+    }
+
+    // index of lowest deadline within the first numberOfScoops of scoops
+    protected int findBestDeadline(byte[] scoops, int numberOfScoops, byte[] gensig) {
+        return (int) LibShabal.shabal_findBestDeadline(scoops, numberOfScoops, gensig);
     }
 }
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package burstcoin.jminer.core.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.SimpleApplicationEventMulticaster;
+import org.springframework.core.ResolvableType;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routes events to their listeners.
+ *
+ * Events affecting mining (loaded parts, checker results, network results) are delivered synchronously on the publishing thread.
+ * UiEvents are delivered by a single background thread through a bounded queue, if that queue is full they get dropped,
+ * so a slow console or log can not stall reader or checker.
+ */
+public class CoreEventMulticaster
+  extends SimpleApplicationEventMulticaster
+{
+  private static final Logger LOG = LoggerFactory.getLogger(CoreEventMulticaster.class);
+
+  private final ThreadPoolExecutor uiExecutor;
+  private final AtomicLong droppedUiEvents;
+
+  public CoreEventMulticaster(int uiEventQueueSize)
+  {
+    droppedUiEvents = new AtomicLong();
+    uiExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(uiEventQueueSize), runnable ->
+    {
+      Thread thread = new Thread(runnable, "ui-events");
+      thread.setDaemon(true);
+      return thread;
+    }, (runnable, executor) -> droppedUiEvents.incrementAndGet());
+  }
+
+  @Override
+  public void multicastEvent(ApplicationEvent event, ResolvableType eventType)
+  {
+    if(event instanceof UiEvent)
+    {
+      uiExecutor.execute(() -> multicastUiEvent(event, eventType));
+    }
+    else
+    {
+      super.multicastEvent(event, eventType);
+    }
+  }
+
+  private void multicastUiEvent(ApplicationEvent event, ResolvableType eventType)
+  {
+    long dropped = droppedUiEvents.getAndSet(0);
+    if(dropped > 0)
+    {
+      LOG.debug("dropped '" + dropped + "' ui events, listeners too slow.");
+    }
+
+    try
+    {
+      super.multicastEvent(event, eventType);
+    }
+    catch(Exception e)
+    {
+      LOG.warn("Error on handle ui event '" + event.getClass().getSimpleName() + "': " + e.getMessage());
+    }
+  }
+}
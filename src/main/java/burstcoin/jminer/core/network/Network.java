@@ -133,20 +133,20 @@ public class Network
     }
   }
 
-  public void commitResult(long blockNumber, long calculatedDeadline, BigInteger nonce, BigInteger chunkPartStartNonce, long totalCapacity,
+  public void commitResult(long blockNumber, long calculatedDeadline, BigInteger nonce, int chunkPartId, long totalCapacity,
                            BigInteger result, String plotFilePath)
   {
     if(CoreProperties.isPoolMining())
     {
       NetworkSubmitPoolNonceTask networkSubmitPoolNonceTask = context.getBean(NetworkSubmitPoolNonceTask.class);
-      networkSubmitPoolNonceTask.init(blockNumber, generationSignature, nonce, chunkPartStartNonce, calculatedDeadline,
+      networkSubmitPoolNonceTask.init(blockNumber, generationSignature, nonce, chunkPartId, calculatedDeadline,
                                       totalCapacity, result, plotFilePath, mac);
       networkPool.execute(networkSubmitPoolNonceTask);
     }
     else
     {
       NetworkSubmitSoloNonceTask networkSubmitSoloNonceTask = context.getBean(NetworkSubmitSoloNonceTask.class);
-      networkSubmitSoloNonceTask.init(blockNumber, generationSignature, nonce, chunkPartStartNonce, calculatedDeadline, result);
+      networkSubmitSoloNonceTask.init(blockNumber, generationSignature, nonce, chunkPartId, calculatedDeadline, result);
       networkPool.execute(networkSubmitSoloNonceTask);
     }
   }
@@ -39,7 +39,7 @@ public class NetworkResultConfirmedEvent
   private long deadline;
   private BigInteger nonce;
 
-  private BigInteger chunkPartStartNonce;
+  private int chunkPartId;
   private BigInteger result;
 
   /**
@@ -48,9 +48,9 @@ public class NetworkResultConfirmedEvent
    * @param blockNumber the block number
    * @param deadline the deadline
    * @param nonce the nonce
-   * @param chunkPartStartNonce the chunk part start nonce
+   * @param chunkPartId the chunk part id
    */
-  public NetworkResultConfirmedEvent(long blockNumber, byte[] generationSignature, long deadline, BigInteger nonce, BigInteger chunkPartStartNonce, BigInteger result)
+  public NetworkResultConfirmedEvent(long blockNumber, byte[] generationSignature, long deadline, BigInteger nonce, int chunkPartId, BigInteger result)
   {
     super(blockNumber);
 
@@ -59,18 +59,18 @@ public class NetworkResultConfirmedEvent
     this.deadline = deadline;
     this.nonce = nonce;
 
-    this.chunkPartStartNonce = chunkPartStartNonce;
+    this.chunkPartId = chunkPartId;
     this.result = result;
   }
 
   /**
-   * Gets chunk part start nonce.
+   * Gets chunk part id.
    *
-   * @return the chunk part start nonce
+   * @return the chunk part id
    */
-  public BigInteger getChunkPartStartNonce()
+  public int getChunkPartId()
   {
-    return chunkPartStartNonce;
+    return chunkPartId;
   }
 
   /**
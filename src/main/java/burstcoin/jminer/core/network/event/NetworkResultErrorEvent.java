@@ -40,7 +40,7 @@ public class NetworkResultErrorEvent
   private long calculatedDeadline;
   private long strangeDeadline;
 
-  private BigInteger chunkPartStartNonce;
+  private int chunkPartId;
   private BigInteger result;
 
   /**
@@ -50,9 +50,9 @@ public class NetworkResultErrorEvent
    * @param nonce the nonce
    * @param calculatedDeadline the calculated deadline
    * @param strangeDeadline the strange deadline
-   * @param chunkPartStartNonce the chunk part start nonce
+   * @param chunkPartId the chunk part id
    */
-  public NetworkResultErrorEvent(long blockNumber, byte[] generationSignature, BigInteger nonce, long calculatedDeadline, long strangeDeadline, BigInteger chunkPartStartNonce, BigInteger result)
+  public NetworkResultErrorEvent(long blockNumber, byte[] generationSignature, BigInteger nonce, long calculatedDeadline, long strangeDeadline, int chunkPartId, BigInteger result)
   {
     super(blockNumber);
 
@@ -62,18 +62,18 @@ public class NetworkResultErrorEvent
     this.calculatedDeadline = calculatedDeadline;
     this.strangeDeadline = strangeDeadline;
 
-    this.chunkPartStartNonce = chunkPartStartNonce;
+    this.chunkPartId = chunkPartId;
     this.result = result;
   }
 
   /**
-   * Gets chunk part start nonce.
+   * Gets chunk part id.
    *
-   * @return the chunk part start nonce
+   * @return the chunk part id
    */
-  public BigInteger getChunkPartStartNonce()
+  public int getChunkPartId()
   {
-    return chunkPartStartNonce;
+    return chunkPartId;
   }
 
   /**
@@ -67,7 +67,7 @@ public class NetworkSubmitPoolNonceTask
   private BigInteger nonce;
 
   private long blockNumber;
-  private BigInteger chunkPartStartNonce;
+  private int chunkPartId;
   private long calculatedDeadline;
   private long totalCapacity;
   private BigInteger result;
@@ -82,13 +82,13 @@ public class NetworkSubmitPoolNonceTask
     this.objectMapper = objectMapper;
   }
 
-  public void init(long blockNumber, byte[] generationSignature, BigInteger nonce, BigInteger chunkPartStartNonce, long calculatedDeadline, long totalCapacity,
+  public void init(long blockNumber, byte[] generationSignature, BigInteger nonce, int chunkPartId, long calculatedDeadline, long totalCapacity,
                    BigInteger result, String plotFilePath, String mac)
   {
     this.generationSignature = generationSignature;
     this.nonce = nonce;
     this.blockNumber = blockNumber;
-    this.chunkPartStartNonce = chunkPartStartNonce;
+    this.chunkPartId = chunkPartId;
     this.calculatedDeadline = calculatedDeadline;
     this.totalCapacity = totalCapacity;
     this.result = result;
@@ -130,7 +130,7 @@ public class NetworkSubmitPoolNonceTask
         LOG.debug("Error code: '" + error.getErrorCode() + "'.");
         LOG.debug("Error description: '" + error.getErrorDescription() + "'.");
         publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, generationSignature, nonce, calculatedDeadline, -1L /*not delivered*/,
-                                                           chunkPartStartNonce, result));
+                                                           chunkPartId, result));
       }
       else
       {
@@ -140,21 +140,21 @@ public class NetworkSubmitPoolNonceTask
         {
           if(calculatedDeadline == result.getDeadline())
           {
-            publisher.publishEvent(new NetworkResultConfirmedEvent(blockNumber, generationSignature, result.getDeadline(), nonce, chunkPartStartNonce,
+            publisher.publishEvent(new NetworkResultConfirmedEvent(blockNumber, generationSignature, result.getDeadline(), nonce, chunkPartId,
                                                                    this.result));
           }
           else
           {
             // in general if deadlines do not match, we end up in errorCode above
             publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, generationSignature, nonce, calculatedDeadline, result.getDeadline(),
-                                                               chunkPartStartNonce, this.result));
+                                                               chunkPartId, this.result));
           }
         }
         else
         {
           LOG.warn("Error: Submit nonce to pool not successful: " + response.getContentAsString());
           publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, generationSignature, nonce, calculatedDeadline, -1L /*not delivered*/,
-                                                             chunkPartStartNonce, this.result));
+                                                             chunkPartId, this.result));
         }
       }
     }
@@ -163,7 +163,7 @@ public class NetworkSubmitPoolNonceTask
       LOG.warn("Nonce was committed to pool, but not confirmed ... caused by connectionTimeout,"
                + " currently '" + (CoreProperties.getConnectionTimeout() / 1000) + " sec.' try increasing it!");
       publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, generationSignature, nonce, calculatedDeadline, -1L /*not delivered*/,
-                                                         chunkPartStartNonce, this.result));
+                                                         chunkPartId, this.result));
     }
     catch(ExecutionException e)
     {
@@ -183,28 +183,28 @@ public class NetworkSubmitPoolNonceTask
         LOG.debug("ExecutionException: " + e.getMessage(), e);
       }
       publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, generationSignature, nonce, calculatedDeadline, -1L /*not delivered*/,
-                                                         chunkPartStartNonce, this.result));
+                                                         chunkPartId, this.result));
     }
     catch(EOFException e)
     {
       LOG.warn("Error: Failed to submit nonce to pool due EOFException.");
       LOG.debug("EOFException: " + e.getMessage(), e);
       publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, generationSignature, nonce, calculatedDeadline, -1L /*not delivered*/,
-                                                         chunkPartStartNonce, this.result));
+                                                         chunkPartId, this.result));
     }
     catch(JsonMappingException e)
     {
       LOG.warn("Error: On submit nonce to pool, could not parse response: '" + responseContentAsString + "'");
       LOG.debug("JSONMappingException: " + e.getMessage(), e);
       publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, generationSignature, nonce, calculatedDeadline, -1L /*not delivered*/,
-                                                         chunkPartStartNonce, this.result));
+                                                         chunkPartId, this.result));
     }
     catch(Exception e)
     {
       LOG.warn("Error: Failed to submit nonce to pool due Exception.");
       LOG.debug("Exception: " + e.getMessage(), e);
       publisher.publishEvent(new NetworkResultErrorEvent(blockNumber, generationSignature, nonce, calculatedDeadline, -1L /*not delivered*/,
-                                                         chunkPartStartNonce, this.result));
+                                                         chunkPartId, this.result));
     }
   }
 }
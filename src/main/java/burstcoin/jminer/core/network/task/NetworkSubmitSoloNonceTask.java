@@ -56,7 +56,7 @@ public class NetworkSubmitSoloNonceTask
 
   private BigInteger nonce;
   private long blockNumber;
-  private BigInteger chunkPartStartNonce;
+  private int chunkPartId;
   private long calculatedDeadline;
   private BigInteger result;
   private byte[] generationSignature;
@@ -69,12 +69,12 @@ public class NetworkSubmitSoloNonceTask
     this.objectMapper = objectMapper;
   }
 
-  public void init(long blockNumber, byte[] generationSignature, BigInteger nonce, BigInteger chunkPartStartNonce, long calculatedDeadline, BigInteger result)
+  public void init(long blockNumber, byte[] generationSignature, BigInteger nonce, int chunkPartId, long calculatedDeadline, BigInteger result)
   {
     this.generationSignature = generationSignature;
     this.nonce = nonce;
     this.blockNumber = blockNumber;
-    this.chunkPartStartNonce = chunkPartStartNonce;
+    this.chunkPartId = chunkPartId;
     this.calculatedDeadline = calculatedDeadline;
     this.result = result;
   }
@@ -98,12 +98,12 @@ public class NetworkSubmitSoloNonceTask
         if(calculatedDeadline == result.getDeadline())
         {
           publisher
-            .publishEvent(new NetworkResultConfirmedEvent(blockNumber, generationSignature, result.getDeadline(), nonce, chunkPartStartNonce, this.result));
+            .publishEvent(new NetworkResultConfirmedEvent(blockNumber, generationSignature, result.getDeadline(), nonce, chunkPartId, this.result));
         }
         else
         {
           publisher.publishEvent(
-            new NetworkResultErrorEvent(blockNumber, generationSignature, nonce, calculatedDeadline, result.getDeadline(), chunkPartStartNonce, this.result));
+            new NetworkResultErrorEvent(blockNumber, generationSignature, nonce, calculatedDeadline, result.getDeadline(), chunkPartId, this.result));
         }
       }
       else
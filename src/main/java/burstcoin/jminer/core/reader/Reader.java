@@ -23,14 +23,15 @@
 package burstcoin.jminer.core.reader;
 
 
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.PostConstruct;
@@ -43,20 +44,36 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Scope;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.task.SimpleAsyncTaskExecutor;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.network.event.NetworkResultConfirmedEvent;
 import burstcoin.jminer.core.network.event.NetworkResultErrorEvent;
+import burstcoin.jminer.core.reader.data.BlockDevice;
+import burstcoin.jminer.core.reader.data.CancellationToken;
+import burstcoin.jminer.core.reader.data.DriveSetup;
 import burstcoin.jminer.core.reader.data.PlotDrive;
 import burstcoin.jminer.core.reader.data.PlotFile;
 import burstcoin.jminer.core.reader.data.Plots;
-import burstcoin.jminer.core.reader.data.PocVersion;
+import burstcoin.jminer.core.reader.data.ReadPlanCursor;
+import burstcoin.jminer.core.reader.data.ReadProgress;
+import burstcoin.jminer.core.reader.data.ReadWindow;
 import burstcoin.jminer.core.reader.event.ReaderCorruptFileEvent;
+import burstcoin.jminer.core.reader.event.ReaderDriveAbandonedEvent;
 import burstcoin.jminer.core.reader.event.ReaderLoadedPartEvent;
+import burstcoin.jminer.core.reader.event.ReaderLoadedPartListener;
 import burstcoin.jminer.core.reader.event.ReaderProgressChangedEvent;
 import burstcoin.jminer.core.reader.task.ReaderLoadDriveTask;
+import burstcoin.jminer.core.reader.task.ReaderScheduler;
+import burstcoin.jminer.core.reader.util.DriveAutotuner;
+import burstcoin.jminer.core.reader.util.DriveKeepalive;
+import burstcoin.jminer.core.reader.util.DriveSpeedProfile;
+import burstcoin.jminer.core.reader.util.DriveWatchdog;
+import burstcoin.jminer.core.reader.util.IoPriority;
+import burstcoin.jminer.core.reader.util.PlotFileHandleCache;
+import burstcoin.jminer.core.reader.util.PlotScrubber;
+import burstcoin.jminer.core.reader.util.ReadThrottle;
 import burstcoin.jminer.core.round.event.RoundStoppedEvent;
 import signumj.crypto.SignumCrypto;
 
@@ -66,11 +83,17 @@ import signumj.crypto.SignumCrypto;
 @Component
 @Scope("singleton")
 public class Reader
+  implements ReaderLoadedPartListener
 {
   private static final Logger LOG = LoggerFactory.getLogger(Reader.class);
 
   private final ApplicationContext context;
-  private final ThreadPoolTaskExecutor readerPool;
+  private final PlotFileHandleCache plotFileHandleCache;
+  private final DriveSpeedProfile driveSpeedProfile;
+  private final DriveAutotuner driveAutotuner;
+  private final DriveWatchdog driveWatchdog;
+  private final DriveKeepalive driveKeepalive;
+  private final PlotScrubber plotScrubber;
 
   // config
   private String numericAccountId;
@@ -81,23 +104,26 @@ public class Reader
 
   private Plots plots;
 
-  private Map<BigInteger, Long> realCapacityLookup;
-  private long realRemainingCapacity;
-  private long realCapacity;
+  private CancellationToken cancellationToken;
+  private volatile ReadProgress readProgress;
+  private AtomicLong publishedRemainingCapacity;
+  private Timer timer;
 
-  private Map<BigInteger, Long> capacityLookup;
-  private long remainingCapacity;
-  private long capacity;
-
-  private long readerStartTime;
-  private int readerThreads;
+  // reader threads, reused every round
+  private ReaderScheduler readerScheduler;
 
   @Autowired
-  public Reader(ApplicationContext context, @Qualifier(value = "readerPool") ThreadPoolTaskExecutor readerPool,
-                @Qualifier(value = "networkPool") SimpleAsyncTaskExecutor networkPool)
+  public Reader(ApplicationContext context, @Qualifier(value = "networkPool") SimpleAsyncTaskExecutor networkPool,
+                PlotFileHandleCache plotFileHandleCache, DriveSpeedProfile driveSpeedProfile,
+                DriveAutotuner driveAutotuner, DriveWatchdog driveWatchdog, DriveKeepalive driveKeepalive, PlotScrubber plotScrubber)
   {
     this.context = context;
-    this.readerPool = readerPool;
+    this.plotFileHandleCache = plotFileHandleCache;
+    this.driveSpeedProfile = driveSpeedProfile;
+    this.driveAutotuner = driveAutotuner;
+    this.driveWatchdog = driveWatchdog;
+    this.driveKeepalive = driveKeepalive;
+    this.plotScrubber = plotScrubber;
 
     blockNumber = new AtomicLong();
   }
@@ -125,133 +151,207 @@ public class Reader
       LOG.error("init reader failed!");
     }
 
-    readerThreads = CoreProperties.getReaderThreads();
-    capacityLookup = new HashMap<>();
-    realCapacityLookup = new HashMap<>();
+    // 'readerThreads' limits the number of reader threads reading at the same time
+    readerScheduler = new ReaderScheduler(CoreProperties.getReaderThreads());
+    publishedRemainingCapacity = new AtomicLong(-1);
+
+    // progress is published on a fixed interval, instead of per loaded chunk part
+    timer = new Timer();
+    long readProgressInterval = CoreProperties.getReadProgressInterval();
+    timer.scheduleAtFixedRate(new TimerTask()
+    {
+      @Override
+      public void run()
+      {
+        publishProgress();
+      }
+    }, readProgressInterval, readProgressInterval);
 
     if(CoreProperties.isListPlotFiles()) {
       getPlots().printPlotFiles();
     }
+    if(CoreProperties.isListPlotFileExtents())
+    {
+      getPlots().printExtents();
+    }
+
+    // report which plotPaths share a physical device, they are read one after another
+    Map<String, BlockDevice> devices = new LinkedHashMap<>();
+    Map<String, List<PlotDrive>> plotDrivesByDevice = new HashMap<>();
+    for(PlotDrive plotDrive : getPlots().getPlotDrives())
+    {
+      BlockDevice device = plotDrive.getDevice();
+      devices.putIfAbsent(device.getId(), device);
+      plotDrivesByDevice.computeIfAbsent(device.getId(), key -> new ArrayList<>()).add(plotDrive);
+    }
+    for(BlockDevice device : devices.values())
+    {
+      LOG.info("device '" + device.getId() + "' (" + device.getType() + "):");
+      // effective settings, plotPath overrides or global values
+      for(PlotDrive plotDrive : plotDrivesByDevice.get(device.getId()))
+      {
+        String plotPath = plotDrive.getDirectory();
+        LOG.info("  '" + plotPath + "' readMode '" + CoreProperties.getReadMode(plotPath).name().toLowerCase() + "', "
+                 + "chunkPartNonces '" + CoreProperties.getChunkPartNonces(plotPath) + "', "
+                 + "readRequestNonces '" + CoreProperties.getReadRequestNonces(plotPath) + "', "
+                 + "driveConcurrency '" + CoreProperties.getDriveConcurrency(plotPath, device.getRotational(), device.getDisks()) + "', "
+                 + "prefetchFiles '" + CoreProperties.getPrefetchFiles(plotPath) + "', "
+                 + "ioPriority '" + IoPriority.toString(CoreProperties.getIoPriority(plotPath)) + "', "
+                 + "readBandwidth '" + CoreProperties.getReadBandwidth(plotPath) + "', "
+                 + "readWindows '" + StringUtils.collectionToCommaDelimitedString(CoreProperties.getReadWindows(plotPath)) + "'");
+      }
+    }
   }
 
   /* starts reader (once per block) */
   public void read(long previousBlockNumber, long blockNumber, byte[] generationSignature, int scoopNumber, long lastBestCommittedDeadline, int networkQuality)
   {
+    // stop reading previous round asap
+    if(cancellationToken != null)
+    {
+      cancellationToken.cancel();
+    }
+    cancellationToken = new CancellationToken(blockNumber);
+
     Reader.blockNumber.set(blockNumber);
     Reader.generationSignature = generationSignature;
 
     // ensure plots are initialized
     plots = plots == null ? getPlots() : plots;
 
-    if(readerPool.getActiveCount() > 0)
+    ReadProgress previousReadProgress = readProgress;
+    if(isReading() && previousReadProgress != null)
     {
-      long elapsedTime = new Date().getTime() - readerStartTime;
-      context.publishEvent(new RoundStoppedEvent(previousBlockNumber, lastBestCommittedDeadline, capacity, remainingCapacity, elapsedTime, networkQuality));
+      context.publishEvent(new RoundStoppedEvent(previousBlockNumber, lastBestCommittedDeadline, previousReadProgress.getCapacity(),
+                                                 previousReadProgress.getRemainingCapacity(), previousReadProgress.getElapsedTime(), networkQuality));
     }
 
-    // update reader thread count
-    int poolSize = readerThreads <= 0 ? CoreProperties.getPlotPaths().size() : readerThreads;
-    readerPool.setCorePoolSize(poolSize);
-    readerPool.setMaxPoolSize(poolSize);
-
-    // we use the startnonce of loaded (startnonce+chunk+part) as unique job identifier
-    capacityLookup.clear();
-    capacityLookup.putAll(plots.getChunkPartStartNonces());
-
-    realCapacityLookup.clear();
-    realCapacity = 0;
-
-    Map<BigInteger, Long> capacityLookupCopy = new HashMap<>(capacityLookup);
-    for(BigInteger chunkPartNonces : capacityLookupCopy.keySet())
+    // progress is tracked by chunk part id
+    readProgress = new ReadProgress(blockNumber, generationSignature, plots);
+
+    Map<String, List<ReaderLoadDriveTask>> tasksByDevice = new LinkedHashMap<>();
+    Map<String, Integer> workersByDevice = new HashMap<>();
+    // tasks of a device are taken in order, so drives with longest predicted read time start first
+    List<PlotDrive> plotDrives = new ArrayList<>(plots.getPlotDrives());
+    plotDrives.sort(Comparator.comparingDouble((PlotDrive plotDrive) -> plotDrive.getReadPlan().getSize() / driveSpeedProfile.getBytesPerMs(plotDrive))
+                      .reversed());
+    Map<String, Long> predictedTimeByDevice = new HashMap<>();
+    driveWatchdog.startRound();
+    driveKeepalive.startRound();
+    plotScrubber.startRound(plots);
+    for(PlotDrive plotDrive : plotDrives)
     {
-      PlotFile plotFile = plots.getPlotFileByChunkPartStartNonce(chunkPartNonces);
-      long realChunkPartNoncesCapacity = isCompatibleWithCurrentPoc(plotFile.getPocVersion())
-                                         ? capacityLookupCopy.get(chunkPartNonces)
-                                         : 2 * capacityLookupCopy.get(chunkPartNonces);
-      realCapacityLookup.put(chunkPartNonces, realChunkPartNoncesCapacity);
-      realCapacity += realChunkPartNoncesCapacity;
+      if(driveWatchdog.isQuarantined(plotDrive))
+      {
+        LOG.debug("Skipped '" + plotDrive.getDirectory() + "', drive did not respond in previous round.");
+        skip(blockNumber, generationSignature, plotDrive);
+      }
+      else {
+        // all tasks of a drive share its read requests, paths on the same device share its reader threads
+        BlockDevice device = plotDrive.getDevice();
+
+        // request size follows measured speed of the drive, autotune may try other setups
+        DriveSetup defaultSetup = new DriveSetup(CoreProperties.getReadMode(plotDrive.getDirectory()), driveSpeedProfile.getReadRequestNonces(plotDrive),
+                                                 CoreProperties.getDriveConcurrency(plotDrive.getDirectory(), device.getRotational(), device.getDisks()));
+        DriveSetup driveSetup = driveAutotuner.getSetup(plotDrive, defaultSetup);
+        int driveConcurrency = driveSetup.getConcurrency();
+        workersByDevice.merge(device.getId(), driveConcurrency, Math::max);
+        if(plotDrive.getReadPlan().getReadRequestNonces() != driveSetup.getReadRequestNonces())
+        {
+          plotDrive.compileReadPlan(driveSetup.getReadRequestNonces());
+        }
+        long predictedTime = driveSpeedProfile.getPredictedTime(plotDrive);
+        predictedTimeByDevice.merge(device.getId(), predictedTime, (a, b) -> a < 0 || b < 0 ? -1 : a + b);
+        // files of HDDs are read in disk order, SSDs do not seek
+        int[] requestOrder = Boolean.FALSE.equals(device.getRotational()) ? null : plotDrive.getReadPlan().getRequestOrder(scoopNumber);
+        ReadPlanCursor readPlanCursor = new ReadPlanCursor(plotDrive.getReadPlan(), requestOrder, driveSetup, driveSpeedProfile.getBytesPerMs(plotDrive),
+                                                           predictedTime);
+        driveWatchdog.watch(blockNumber, generationSignature, plotDrive, readPlanCursor);
+        driveKeepalive.watch(plotDrive, readPlanCursor);
+        plotScrubber.watch(readPlanCursor);
+        // bandwidth limit and read windows of the drive, shared by its tasks
+        int readBandwidth = CoreProperties.getReadBandwidth(plotDrive.getDirectory());
+        List<ReadWindow> readWindows = CoreProperties.getReadWindows(plotDrive.getDirectory());
+        ReadThrottle readThrottle = readBandwidth > 0 || !readWindows.isEmpty()
+                                    ? new ReadThrottle(readBandwidth, readWindows, readPlanCursor, cancellationToken, CoreProperties.getThrottleDeadline() * 1000L)
+                                    : null;
+        List<ReaderLoadDriveTask> tasks = tasksByDevice.computeIfAbsent(device.getId(), key -> new ArrayList<>());
+        for(int i = 0; i < driveConcurrency; i++)
+        {
+          ReaderLoadDriveTask readerLoadDriveTask = context.getBean(ReaderLoadDriveTask.class);
+          readerLoadDriveTask.init(scoopNumber, blockNumber, generationSignature, plotDrive, readPlanCursor, readThrottle, cancellationToken);
+          tasks.add(readerLoadDriveTask);
+        }
+      }
     }
+    readerScheduler.schedule(tasksByDevice, workersByDevice);
 
-    remainingCapacity = plots.getSize();
-    capacity = plots.getSize();
-
-    realRemainingCapacity = realCapacity;
-    readerStartTime = new Date().getTime();
-
-    // order by slowest and biggest drives first
-    List<PlotDrive> orderedPlotDrives = new ArrayList<>(plots.getPlotDrives());
-    orderedPlotDrives.removeIf(plotDrive -> plotDrive.getDrivePocVersion() == null);
-    orderedPlotDrives.sort((o1, o2) -> Long.compare(o2.getSize(), o1.getSize())); // order by size
-    orderedPlotDrives.sort(Comparator.comparing(o -> isCompatibleWithCurrentPoc(o.getDrivePocVersion()))); // order by poc version
-
-    for(PlotDrive plotDrive : orderedPlotDrives)
+    // round should take as long as the slowest device needs for its drives
+    String slowestDevice = null;
+    long slowestTime = 0;
+    for(Map.Entry<String, Long> entry : predictedTimeByDevice.entrySet())
     {
-      PocVersion drivePocVersion = plotDrive.getDrivePocVersion();
-      if(drivePocVersion == null)
+      if(entry.getValue() < 0)
       {
-        LOG.warn("Skipped '" + plotDrive.getDirectory()
-                 + "', different POC versions on one drive is not supported! (Workaround: put them in different directories and add them to 'plotFilePaths')");
-      }
-      else if (drivePocVersion != PocVersion.POC_2){
-        LOG.warn("Skipped '" + plotDrive.getDirectory()
-        + "' due to incompatible plot files");        
+        slowestDevice = null;
+        break;
       }
-      else {
-        ReaderLoadDriveTask readerLoadDriveTask = context.getBean(ReaderLoadDriveTask.class);
-        readerLoadDriveTask.init(scoopNumber, blockNumber, generationSignature, plotDrive);
-        readerPool.execute(readerLoadDriveTask);
+      long deviceTime = entry.getValue() / workersByDevice.get(entry.getKey());
+      if(slowestDevice == null || deviceTime > slowestTime)
+      {
+        slowestDevice = entry.getKey();
+        slowestTime = deviceTime;
       }
     }
+    if(slowestDevice != null)
+    {
+      LOG.debug("predicted round time '" + slowestTime + "ms', slowest device '" + slowestDevice + "'");
+    }
   }
 
-  private Boolean isCompatibleWithCurrentPoc(PocVersion drivePocVersion)
+  /* parts of drives not read are counted as done, so the round can finish */
+  private void skip(long blockNumber, byte[] generationSignature, PlotDrive plotDrive)
   {
-    return PocVersion.POC_2.equals(drivePocVersion);
+    context.publishEvent(new ReaderDriveAbandonedEvent(blockNumber, generationSignature, plotDrive.getDirectory(),
+                                                       DriveWatchdog.getChunkPartIds(plotDrive), null));
   }
 
   public Plots getPlots()
   {
-    if(CoreProperties.isScanPathsEveryRound() || plots == null)
+    // quarantined plot-files are removed from plots on next round
+    if(CoreProperties.isScanPathsEveryRound() || plots == null || plotScrubber.takeQuarantineChanged())
     {
-      plots = new Plots(numericAccountId);
+      plots = new Plots(numericAccountId, driveSpeedProfile::getBytesPerMs, plotScrubber::isQuarantined);
+      // close cached handles of removed plot-files
+      plotFileHandleCache.retain(plots);
     }
     return plots;
   }
 
-  public boolean cleanupReaderPool()
+  private boolean isReading()
   {
-    // if no read thread running, pool will be increased on next round
-    if(readerPool.getActiveCount() == 0)
-    {
-      readerPool.setCorePoolSize(1);
-      readerPool.setMaxPoolSize(1);
-      LOG.trace("cleanup was successful ...");
-      return true;
-    }
-    LOG.trace("cleanup skipped ... retry in 1s");
-    return false;
+    return readerScheduler.isBusy();
   }
 
-  @EventListener
+  @Override
   public void handleMessage(ReaderLoadedPartEvent event)
   {
-    if(blockNumber.get() == event.getBlockNumber() && Arrays.equals(event.getGenerationSignature(), generationSignature))
+    ReadProgress progress = readProgress;
+    if(progress != null && progress.isRound(event.getBlockNumber(), event.getGenerationSignature()))
     {
       // update progress
-      Long removedCapacity = capacityLookup.remove(event.getChunkPartStartNonce());
-      Long realRemovedCapacity = realCapacityLookup.remove(event.getChunkPartStartNonce());
-      if(removedCapacity != null && realRemovedCapacity != null)
+      if(progress.markLoaded(event.getChunkPartId()))
       {
-        remainingCapacity -= removedCapacity;
-        realRemainingCapacity -= realRemovedCapacity;
-        long elapsedTime = new Date().getTime() - readerStartTime;
-        context.publishEvent(new ReaderProgressChangedEvent(this, event.getBlockNumber(), capacity, remainingCapacity,
-                                                            realCapacity, realRemainingCapacity, elapsedTime));
+        // ensure finished reading is shown without waiting for next interval
+        if(progress.getRemainingCapacity() == 0)
+        {
+          publishProgress();
+        }
       }
       else
       {
         // just on debug, update progress is not 'mission' critical.
-        LOG.debug("Error on update progress: ReaderPartLoadedEvent for unknown chunkPartStartNonce: '" + event.getChunkPartStartNonce() + "'!");
+        LOG.debug("Error on update progress: ReaderPartLoadedEvent for unknown or already loaded chunkPartId: '" + event.getChunkPartId() + "'!");
       }
     }
     else
@@ -260,18 +360,71 @@ public class Reader
     }
   }
 
+  private void publishProgress()
+  {
+    ReadProgress progress = readProgress;
+    if(progress != null)
+    {
+      long remainingCapacity = progress.getRemainingCapacity();
+      // publish only on changed progress, remaining capacity decreases within a round
+      if(publishedRemainingCapacity.getAndSet(remainingCapacity) != remainingCapacity)
+      {
+        context.publishEvent(new ReaderProgressChangedEvent(this, progress.getBlockNumber(), progress.getCapacity(), remainingCapacity,
+                                                            progress.getRealCapacity(), progress.getRealRemainingCapacity(), progress.getElapsedTime()));
+      }
+    }
+  }
+
+  @EventListener
+  public void handleMessage(ReaderDriveAbandonedEvent event)
+  {
+    if(event.getReadPlanCursor() != null)
+    {
+      readerScheduler.abandon(event.getReadPlanCursor());
+    }
+    ReadProgress progress = readProgress;
+    if(progress != null && progress.isRound(event.getBlockNumber(), event.getGenerationSignature()))
+    {
+      // abandoned parts count as loaded, progress would not finish otherwise
+      for(int chunkPartId : event.getChunkPartIds())
+      {
+        progress.markLoaded(chunkPartId);
+      }
+      publishProgress();
+    }
+  }
+
   @EventListener
   public void handleMessage(NetworkResultErrorEvent event)
   {
     if(blockNumber.get() == event.getBlockNumber() && Arrays.equals(event.getGenerationSignature(), generationSignature))
     {
       // find maybe corrupt plot-file
-      PlotFile plotFile = plots.getPlotFileByChunkPartStartNonce(event.getChunkPartStartNonce());
+      PlotFile plotFile = plots.getPlotFileByChunkPartId(event.getChunkPartId());
       if(plotFile != null)
       {
         // plotFile.toString is just objId
         context.publishEvent(new ReaderCorruptFileEvent(this, event.getBlockNumber(), plotFile.getFilePath().toString(), plotFile.getNumberOfChunks(),
                                                         plotFile.getNumberOfParts()));
+        // only a deadline calculated differently hints at a corrupt plot-file, '-1' if submit failed (timeout, pool error)
+        if(event.getStrangeDeadline() != -1L && event.getStrangeDeadline() != event.getCalculatedDeadline())
+        {
+          // repeated rejections quarantine the plot-file, the nonce gets verified by scrubber otherwise
+          plotScrubber.recordRejection(plotFile, event.getNonce().longValue());
+        }
+      }
+    }
+  }
+
+  @EventListener
+  public void handleMessage(NetworkResultConfirmedEvent event)
+  {
+    if(blockNumber.get() == event.getBlockNumber() && Arrays.equals(event.getGenerationSignature(), generationSignature))
+    {
+      PlotFile plotFile = plots.getPlotFileByChunkPartId(event.getChunkPartId());
+      if(plotFile != null)
+      {
+        plotScrubber.recordConfirmation(plotFile);
       }
     }
   }
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package burstcoin.jminer.core.reader.data;
+
+/**
+ * Physical device backing one or more plotPaths.
+ */
+public class BlockDevice
+{
+  private final String id;
+  // null if unknown
+  private final Boolean rotational;
+  // physical disks, raid sets and volumes spanning disks have more than one
+  private final int disks;
+
+  public BlockDevice(String id, Boolean rotational)
+  {
+    this(id, rotational, 1);
+  }
+
+  public BlockDevice(String id, Boolean rotational, int disks)
+  {
+    this.id = id;
+    this.rotational = rotational;
+    this.disks = disks;
+  }
+
+  /* e.g. 'sda', 'nvme0n1', 'md0' or 'E:\' */
+  public String getId()
+  {
+    return id;
+  }
+
+  public Boolean getRotational()
+  {
+    return rotational;
+  }
+
+  public int getDisks()
+  {
+    return disks;
+  }
+
+  /* e.g. 'HDD' or 'HDD x4' for a raid set of four HDDs */
+  public String getType()
+  {
+    String type = rotational == null ? "unknown" : rotational ? "HDD" : "SSD";
+    return disks > 1 ? type + " x" + disks : type;
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package burstcoin.jminer.core.reader.data;
+
+/**
+ * Created once per round, cancelled as soon as the next round starts.
+ * Reader and checker poll it between small units of work, to switch to a new block without delay.
+ */
+public class CancellationToken
+{
+  private final long blockNumber;
+  private final long createTime;
+  private volatile boolean cancelled;
+
+  public CancellationToken(long blockNumber)
+  {
+    this.blockNumber = blockNumber;
+    this.createTime = System.nanoTime();
+  }
+
+  public void cancel()
+  {
+    cancelled = true;
+  }
+
+  public boolean isCancelled()
+  {
+    return cancelled;
+  }
+
+  public long getBlockNumber()
+  {
+    return blockNumber;
+  }
+
+  /* milliseconds since new round was started */
+  public long getElapsedTime()
+  {
+    return (System.nanoTime() - createTime) / 1000000;
+  }
+}
@@ -23,6 +23,7 @@
 package burstcoin.jminer.core.reader.data;
 
 
+import burstcoin.jminer.core.reader.util.BlockDeviceResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,10 +45,13 @@ public class PlotDrive
 
   private Collection<PlotFile> plotFiles;
   private String directory;
+  private BlockDevice device;
+  private ReadPlan readPlan;
 
   PlotDrive(String directory, Collection<Path> plotFilePaths, Long chunkPartNonces)
   {
     this.directory = directory;
+    this.device = BlockDeviceResolver.resolve(directory);
 
     plotFiles = new HashSet<>();
     for(Path path : plotFilePaths)
@@ -59,12 +63,6 @@ public class PlotDrive
       if(expectedFileSize != plotFile.getFilePath().toFile().length()) {
         LOG.error("invalid file size for plot : " + plotFile.getFilePath());        
       }
-      else if(plotFile.getStaggeramt() % plotFile.getNumberOfParts() != 0) {
-        LOG.error("could not calculate valid numberOfParts: " + plotFile.getFilePath());
-      }
-      else if(plotFile.getPocVersion() != PocVersion.POC_2) {
-        LOG.error("incompatible plot format: " + plotFile.getFilePath());        
-      }
       else {
         plotFiles.add(plotFile);
       }
@@ -81,6 +79,23 @@ public class PlotDrive
     return directory;
   }
 
+  /* physical device, may be shared with other plotPaths */
+  public BlockDevice getDevice()
+  {
+    return device;
+  }
+
+  public ReadPlan getReadPlan()
+  {
+    return readPlan;
+  }
+
+  /* requires chunk part ids to be registered. */
+  public void compileReadPlan(long readRequestNonces)
+  {
+    readPlan = new ReadPlan(plotFiles, readRequestNonces);
+  }
+
   /* Collects chunk part start nonces.*/
   Map<BigInteger, Long> collectChunkPartStartNonces()
   {
@@ -107,22 +122,4 @@ public class PlotDrive
     }
     return size;
   }
-
-  /* returns null if drive has mixed poc versions */
-  public PocVersion getDrivePocVersion()
-  {
-    PocVersion drivePocVersion = null;
-    for(PlotFile plotFile : plotFiles)
-    {
-      if(drivePocVersion == null)
-      {
-        drivePocVersion = plotFile.getPocVersion();
-      }
-      else if(!drivePocVersion.equals(plotFile.getPocVersion()))
-      {
-        return null;
-      }
-    }
-    return drivePocVersion;
-  }
 }
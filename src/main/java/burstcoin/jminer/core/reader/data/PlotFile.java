@@ -23,6 +23,7 @@
 package burstcoin.jminer.core.reader.data;
 
 import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.reader.util.FileExtents;
 import signumj.crypto.plot.impl.MiningPlot;
 
 import org.slf4j.Logger;
@@ -30,7 +31,9 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class PlotFile
@@ -43,16 +46,30 @@ public class PlotFile
   private Path filePath;
   private Long chunkPartNonces;
   private int numberOfParts;
+  // nonce offset within chunk and nonces of every part
+  private long[] partOffsets;
+  private long[] partLengths;
+  // nonces of a chunk to read as offset pairs (from, to), others are read from overlapping plot-files
+  private List<long[]> nonceRanges;
+  private long skippedNonces;
+  // nonces per part, last part of a chunk may be smaller
+  private long partNonces;
   private long numberOfChunks;
+  private int firstChunkPartId;
 
   private String filename;
   private long address;
-  private BigInteger startnonce;
+  private long startnonce;
   private long plots;
   private long staggeramt;
 
   private long size;
 
+  // physical layout, triples of logical offset, physical offset and length, null if unknown
+  private long[] extents;
+  // fallback if extents are unknown, -1 if unknown too
+  private long inode;
+
   private PocVersion pocVersion;
 
   PlotFile(Path filePath, Long chunkPartNonces)
@@ -62,7 +79,7 @@ public class PlotFile
     this.filename = getFilename(filePath);
     String[] parts = filename.split("_");
     this.address = Long.parseUnsignedLong(parts[0]);
-    this.startnonce = new BigInteger(parts[1]);
+    this.startnonce = Long.parseUnsignedLong(parts[1]);
     this.plots = Long.valueOf(parts[2]);
 
     // todo this may be weak, requires that poc2 file names do not have staggersize
@@ -70,21 +87,25 @@ public class PlotFile
     {
       pocVersion = PocVersion.POC_1;
       staggeramt = Long.valueOf(parts[3]);
-      this.numberOfParts = calculateNumberOfParts(staggeramt);
       this.numberOfChunks = plots / staggeramt;
     }
     else
     {
       pocVersion = PocVersion.POC_2;
       staggeramt = plots;
-      this.numberOfParts = calculateNumberOfParts(staggeramt);
       this.numberOfChunks = 1;
     }
 
-    chunkPartStartNonces = new HashMap<>();
+    this.partNonces = calculatePartNonces(staggeramt);
+    nonceRanges = new ArrayList<>();
+    nonceRanges.add(new long[]{0, staggeramt});
+    splitParts();
 
     size = numberOfChunks * staggeramt * MiningPlot.PLOT_SIZE;
 
+    extents = FileExtents.getExtents(filePath);
+    inode = extents == null ? FileExtents.getInode(filePath) : -1;
+
     if(LOG.isDebugEnabled())
     {
       long fileSize = filePath.toFile().length();
@@ -93,15 +114,78 @@ public class PlotFile
         LOG.debug("incomplete plotFile: " + filePath.toString() + " specified size '" + size + " bytes', size '" + fileSize + " bytes'.");
       }
     }
+  }
 
-    long chunkPartSize = this.size / numberOfChunks / numberOfParts;
+  /**
+   * Excludes nonces from reading, as they are read from another plot-file. Supported for poc2 plot-files only,
+   * poc1 plot-files would need it for every chunk.
+   *
+   * @param firstNonce the first nonce
+   * @param endNonce the nonce after the last one
+   * @return number of nonces skipped, that were not skipped before
+   */
+  long skipNonces(long firstNonce, long endNonce)
+  {
+    long from = Math.max(0, firstNonce - startnonce);
+    long to = Math.min(staggeramt, endNonce - startnonce);
+    if(numberOfChunks != 1 || from >= to)
+    {
+      return 0;
+    }
+
+    long skipped = 0;
+    List<long[]> ranges = new ArrayList<>();
+    for(long[] range : nonceRanges)
+    {
+      if(range[1] <= from || range[0] >= to)
+      {
+        ranges.add(range);
+        continue;
+      }
+      if(range[0] < from)
+      {
+        ranges.add(new long[]{range[0], from});
+      }
+      if(range[1] > to)
+      {
+        ranges.add(new long[]{to, range[1]});
+      }
+      skipped += Math.min(range[1], to) - Math.max(range[0], from);
+    }
+    nonceRanges = ranges;
+    skippedNonces += skipped;
+    splitParts();
+    return skipped;
+  }
+
+  /* all parts but the last of a nonce range have 'partNonces' */
+  private void splitParts()
+  {
+    List<long[]> parts = new ArrayList<>();
+    for(long[] range : nonceRanges)
+    {
+      for(long offset = range[0]; offset < range[1]; offset += partNonces)
+      {
+        parts.add(new long[]{offset, Math.min(partNonces, range[1] - offset)});
+      }
+    }
+    numberOfParts = parts.size();
+    partOffsets = new long[numberOfParts];
+    partLengths = new long[numberOfParts];
+    for(int partNumber = 0; partNumber < numberOfParts; partNumber++)
+    {
+      partOffsets[partNumber] = parts.get(partNumber)[0];
+      partLengths[partNumber] = parts.get(partNumber)[1];
+    }
+
+    chunkPartStartNonces = new HashMap<>();
     for(int chunkNumber = 0; chunkNumber < numberOfChunks; chunkNumber++)
     {
       for(int partNumber = 0; partNumber < numberOfParts; partNumber++)
       {
         // register a unique key for identification
-        BigInteger chunkPartStartNonce = startnonce.add(BigInteger.valueOf(chunkNumber * staggeramt + partNumber * (staggeramt / numberOfParts)));
-        Long key = chunkPartStartNonces.put(chunkPartStartNonce, chunkPartSize);
+        BigInteger chunkPartStartNonce = BigInteger.valueOf(startnonce + chunkNumber * staggeramt + partOffsets[partNumber]);
+        Long key = chunkPartStartNonces.put(chunkPartStartNonce, partLengths[partNumber] * MiningPlot.PLOT_SIZE);
         if(key != null)
         {
           LOG.warn("possible overlapping plot-file '" + filePath + "', please check your plots.");
@@ -110,6 +194,65 @@ public class PlotFile
     }
   }
 
+  /* position on disk of a file offset, -1 if unknown */
+  public long getPhysicalOffset(long offset)
+  {
+    if(extents == null)
+    {
+      return -1;
+    }
+    int low = 0;
+    int high = extents.length / 3 - 1;
+    while(low <= high)
+    {
+      int middle = (low + high) >>> 1;
+      long logical = extents[middle * 3];
+      if(offset < logical)
+      {
+        high = middle - 1;
+      }
+      else if(offset >= logical + extents[middle * 3 + 2])
+      {
+        low = middle + 1;
+      }
+      else
+      {
+        return extents[middle * 3 + 1] + offset - logical;
+      }
+    }
+    return -1;
+  }
+
+  public long getInode()
+  {
+    return inode;
+  }
+
+  /* number of extents, -1 if unknown */
+  public int getNumberOfExtents()
+  {
+    return extents != null ? extents.length / 3 : -1;
+  }
+
+  /* number of not physically contiguous pieces of the file, -1 if unknown */
+  public int getNumberOfFragments()
+  {
+    if(extents == null)
+    {
+      return -1;
+    }
+    int fragments = 0;
+    for(int i = 0; i < extents.length; i += 3)
+    {
+      // file systems split large files into extents of limited size, adjacent ones are no fragment
+      if(i == 0 || extents[i - 2] + extents[i - 1] != extents[i + 1])
+      {
+        fragments++;
+      }
+    }
+    return fragments;
+  }
+
   private String getFilename(Path filePath)
   {
     String fn = filePath.getFileName().toString();
@@ -127,9 +270,10 @@ public class PlotFile
     return fn;
   }
 
+  /* bytes of the nonces to read */
   public long getSize()
   {
-    return size;
+    return size - skippedNonces * MiningPlot.PLOT_SIZE;
   }
 
   public Path getFilePath()
@@ -147,7 +291,7 @@ public class PlotFile
     return address;
   }
 
-  public BigInteger getStartnonce()
+  public long getStartnonce()
   {
     return startnonce;
   }
@@ -172,9 +316,44 @@ public class PlotFile
     return numberOfParts;
   }
 
-  public void setNumberOfParts(int numberOfParts)
+  /* nonces of a full part */
+  public long getPartNonces()
+  {
+    return partNonces;
+  }
+
+  /* nonces of given part, the last part of a nonce range holds the remainder */
+  public long getPartNonces(int partNumber)
   {
-    this.numberOfParts = numberOfParts;
+    return partLengths[partNumber];
+  }
+
+  /* nonce offset of given part within its chunk */
+  public long getPartOffset(int partNumber)
+  {
+    return partOffsets[partNumber];
+  }
+
+  /* nonces not read, as overlapping plot-files hold them */
+  public long getSkippedNonces()
+  {
+    return skippedNonces;
+  }
+
+  /* chunk parts of a plot file have consecutive ids, starting with this one */
+  public int getFirstChunkPartId()
+  {
+    return firstChunkPartId;
+  }
+
+  void setFirstChunkPartId(int firstChunkPartId)
+  {
+    this.firstChunkPartId = firstChunkPartId;
+  }
+
+  public int getNumberOfChunkParts()
+  {
+    return (int) numberOfChunks * numberOfParts;
   }
 
   Map<BigInteger, Long> getChunkPartStartNonces()
@@ -188,34 +367,14 @@ public class PlotFile
   }
 
   // splitting into parts is not needed, but it seams to improve speed and enables us
-  // to have steps of nearly same size
-  private int calculateNumberOfParts(long staggeramt)
+  // to have steps of same size, all parts but the last of a chunk have 'chunkPartNonces'
+  private long calculatePartNonces(long staggeramt)
   {
-    int maxNumberOfParts = 100;
-
     long targetNoncesPerPart = chunkPartNonces != null ? chunkPartNonces : 960000;
 
     // for CPU it should be much lower, ensures less idle.
     targetNoncesPerPart = !CoreProperties.isUseOpenCl() ? targetNoncesPerPart / 10 : targetNoncesPerPart;
 
-    // calculate numberOfParts based on target
-    int suggestedNumberOfParts = (int) (staggeramt / targetNoncesPerPart) + 1;
-
-    // ensure stagger is dividable by numberOfParts, if not adjust numberOfParts
-    while(staggeramt % suggestedNumberOfParts != 0 && suggestedNumberOfParts < maxNumberOfParts)
-    {
-      suggestedNumberOfParts += 1;
-    }
-
-    // fallback if number of parts could not be calculated in acceptable range
-    if(suggestedNumberOfParts >= maxNumberOfParts)
-    {
-      suggestedNumberOfParts = (int) Math.floor(Math.sqrt(staggeramt));
-      while(staggeramt % suggestedNumberOfParts != 0)
-      {
-        suggestedNumberOfParts--;
-      }
-    }
-    return suggestedNumberOfParts;
+    return Math.max(1, Math.min(targetNoncesPerPart, staggeramt));
   }
 }
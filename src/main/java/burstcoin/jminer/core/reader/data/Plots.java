@@ -26,6 +26,7 @@ package burstcoin.jminer.core.reader.data;
 import burstcoin.jminer.core.CoreProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import signumj.crypto.plot.impl.MiningPlot;
 
 import java.io.IOException;
 import java.math.BigInteger;
@@ -36,40 +37,193 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 
 public class Plots
 {
   private static final Logger LOG = LoggerFactory.getLogger(Plots.class);
 
+  // reclaimed bytes last logged, to not repeat it every round when paths are scanned every round
+  private static long reportedReclaimedSize = -1;
+
   private Collection<PlotDrive> plotDrives;
   private Map<BigInteger, Long> chunkPartStartNonces;
 
-  public Plots(String numericAccountId)
+  // chunk part id -> size
+  private long[] chunkPartSizes;
+  private long[] realChunkPartSizes;
+
+  /**
+   * Instantiates a new Plots.
+   *
+   * @param numericAccountId the numeric account id
+   * @param driveSpeed bytes per ms of a drive, nonces held by multiple plot-files are read from the fastest drive
+   * @param quarantined corrupt plot-files, they are not read
+   */
+  public Plots(String numericAccountId, ToDoubleFunction<PlotDrive> driveSpeed, Predicate<Path> quarantined)
   {
     plotDrives = new HashSet<>();
     chunkPartStartNonces = new HashMap<>();
     Map<String, Collection<Path>> plotFilesLookup = collectPlotFiles(CoreProperties.getPlotPaths(), numericAccountId);
     for(Map.Entry<String, Collection<Path>> entry : plotFilesLookup.entrySet())
     {
-      PlotDrive plotDrive = new PlotDrive(entry.getKey(), entry.getValue(), CoreProperties.getChunkPartNonces());
+      PlotDrive plotDrive = new PlotDrive(entry.getKey(), entry.getValue(), CoreProperties.getChunkPartNonces(entry.getKey()));
+      plotDrive.getPlotFiles().removeIf(plotFile -> quarantined.test(plotFile.getFilePath()));
       if(!plotDrive.getPlotFiles().isEmpty())
       {
         plotDrives.add(plotDrive);
+      }
+      else
+      {
+        LOG.info("No plotfiles found at '" + plotDrive.getDirectory() + "' ... will be ignored.");
+      }
+    }
+
+    skipOverlappingNonces(plotDrives, CoreProperties.getPlotPaths(), driveSpeed);
+
+    for(PlotDrive plotDrive : plotDrives)
+    {
+      int expectedSize = chunkPartStartNonces.size() + plotDrive.collectChunkPartStartNonces().size();
+      chunkPartStartNonces.putAll(plotDrive.collectChunkPartStartNonces());
+      if(expectedSize != chunkPartStartNonces.size())
+      {
+        LOG.error("possible duplicate/overlapping plot-file on drive '" + plotDrive.getDirectory() + "' please check your plots.");
+      }
+    }
+    registerChunkPartIds();
+    for(PlotDrive plotDrive : plotDrives)
+    {
+      plotDrive.compileReadPlan(CoreProperties.getReadRequestNonces(plotDrive.getDirectory()));
+    }
+  }
+
+  /* nonces held by more than one plot-file of an account are read once, from the fastest drive; ssd before hdd on same speed. */
+  static void skipOverlappingNonces(Collection<PlotDrive> plotDrives, List<String> plotPaths, ToDoubleFunction<PlotDrive> driveSpeed)
+  {
+    Map<Long, List<PlotFile>> plotFilesByAddress = new HashMap<>();
+    Map<PlotFile, PlotDrive> plotDriveLookup = new HashMap<>();
+    Map<PlotDrive, Double> driveSpeeds = new HashMap<>();
+    for(PlotDrive plotDrive : plotDrives)
+    {
+      driveSpeeds.put(plotDrive, driveSpeed.applyAsDouble(plotDrive));
+      for(PlotFile plotFile : plotDrive.getPlotFiles())
+      {
+        plotFilesByAddress.computeIfAbsent(plotFile.getAddress(), address -> new ArrayList<>()).add(plotFile);
+        plotDriveLookup.put(plotFile, plotDrive);
+      }
+    }
+
+    Comparator<PlotFile> fastestFirst = Comparator.comparingDouble((PlotFile plotFile) -> driveSpeeds.get(plotDriveLookup.get(plotFile))).reversed()
+      .thenComparing(plotFile -> Boolean.TRUE.equals(plotDriveLookup.get(plotFile).getDevice().getRotational()))
+      .thenComparingInt(plotFile -> plotPaths.indexOf(plotDriveLookup.get(plotFile).getDirectory()))
+      .thenComparing(PlotFile::getFilename);
 
-        int expectedSize = chunkPartStartNonces.size() + plotDrive.collectChunkPartStartNonces().size();
-        chunkPartStartNonces.putAll(plotDrive.collectChunkPartStartNonces());
-        if(expectedSize != chunkPartStartNonces.size())
+    long reclaimedNonces = 0;
+    for(List<PlotFile> plotFiles : plotFilesByAddress.values())
+    {
+      if(plotFiles.size() < 2)
+      {
+        continue;
+      }
+      plotFiles.sort(fastestFirst);
+
+      // start nonce -> end nonce of nonces already read by a faster plot-file
+      TreeMap<Long, Long> claimed = new TreeMap<>();
+      for(PlotFile plotFile : plotFiles)
+      {
+        long startNonce = plotFile.getStartnonce();
+        long endNonce = startNonce + plotFile.getPlots();
+        if(PocVersion.POC_2.equals(plotFile.getPocVersion()))
         {
-          LOG.error("possible duplicate/overlapping plot-file on drive '" + plotDrive.getDirectory() + "' please check your plots.");
+          long skipped = 0;
+          Map.Entry<Long, Long> range = claimed.floorEntry(startNonce);
+          range = range != null && range.getValue() > startNonce ? range : claimed.ceilingEntry(startNonce);
+          while(range != null && range.getKey() < endNonce)
+          {
+            skipped += plotFile.skipNonces(range.getKey(), range.getValue());
+            range = claimed.higherEntry(range.getKey());
+          }
+          if(skipped > 0)
+          {
+            reclaimedNonces += skipped;
+            LOG.debug("plot-file '" + plotFile.getFilePath() + "' overlaps, '" + skipped + "' nonces are read from other plot-files.");
+          }
         }
+        claim(claimed, startNonce, endNonce);
       }
-      else
+    }
+
+    for(PlotDrive plotDrive : plotDrives)
+    {
+      plotDrive.getPlotFiles().removeIf(plotFile -> plotFile.getNumberOfParts() == 0);
+    }
+    plotDrives.removeIf(plotDrive -> plotDrive.getPlotFiles().isEmpty());
+
+    long reclaimedSize = reclaimedNonces * MiningPlot.PLOT_SIZE;
+    if(reclaimedSize != reportedReclaimedSize && (reclaimedSize > 0 || reportedReclaimedSize > 0))
+    {
+      LOG.info("overlapping plots: '" + reclaimedSize / 1024 / 1024 / 1024 + " GB' are read only once, from the fastest drive.");
+    }
+    reportedReclaimedSize = reclaimedSize;
+  }
+
+  /* adds a nonce range, merging it with the ranges it overlaps or touches */
+  private static void claim(TreeMap<Long, Long> claimed, long startNonce, long endNonce)
+  {
+    Map.Entry<Long, Long> range = claimed.floorEntry(startNonce);
+    if(range != null && range.getValue() >= startNonce)
+    {
+      startNonce = range.getKey();
+      endNonce = Math.max(endNonce, range.getValue());
+    }
+    range = claimed.ceilingEntry(startNonce);
+    while(range != null && range.getKey() <= endNonce)
+    {
+      endNonce = Math.max(endNonce, range.getValue());
+      claimed.remove(range.getKey());
+      range = claimed.ceilingEntry(startNonce);
+    }
+    claimed.put(startNonce, endNonce);
+  }
+
+  /* assigns consecutive ids to all chunk parts, used to track progress without lookups. */
+  private void registerChunkPartIds()
+  {
+    int numberOfChunkParts = 0;
+    for(PlotDrive plotDrive : plotDrives)
+    {
+      for(PlotFile plotFile : plotDrive.getPlotFiles())
       {
-        LOG.info("No plotfiles found at '" + plotDrive.getDirectory() + "' ... will be ignored.");
+        plotFile.setFirstChunkPartId(numberOfChunkParts);
+        numberOfChunkParts += plotFile.getNumberOfChunkParts();
+      }
+    }
+
+    chunkPartSizes = new long[numberOfChunkParts];
+    realChunkPartSizes = new long[numberOfChunkParts];
+    for(PlotDrive plotDrive : plotDrives)
+    {
+      for(PlotFile plotFile : plotDrive.getPlotFiles())
+      {
+        int chunkPartId = plotFile.getFirstChunkPartId();
+        for(int chunkNumber = 0; chunkNumber < plotFile.getNumberOfChunks(); chunkNumber++)
+        {
+          for(int partNumber = 0; partNumber < plotFile.getNumberOfParts(); partNumber++)
+          {
+            long chunkPartSize = plotFile.getPartNonces(partNumber) * MiningPlot.PLOT_SIZE;
+            chunkPartSizes[chunkPartId] = chunkPartSize;
+            // poc1 needs double reads
+            realChunkPartSizes[chunkPartId] = PocVersion.POC_2.equals(plotFile.getPocVersion()) ? chunkPartSize : 2 * chunkPartSize;
+            chunkPartId++;
+          }
+        }
       }
     }
   }
@@ -127,6 +281,32 @@ public class Plots
     }
   }
 
+  /* logs fragmentation of all plot files, most fragmented first, to find files worth re-plotting or defragmenting. */
+  public void printExtents()
+  {
+    for(PlotDrive plotDrive : getPlotDrives())
+    {
+      List<PlotFile> plotFiles = new ArrayList<>(plotDrive.getPlotFiles());
+      plotFiles.sort(Comparator.comparingInt(PlotFile::getNumberOfFragments).reversed());
+      int fragmentedFiles = 0;
+      long fragments = 0;
+      for(PlotFile plotFile : plotFiles)
+      {
+        if(plotFile.getNumberOfFragments() < 0)
+        {
+          LOG.info("  '" + plotFile.getFilePath() + "' extents unknown");
+          continue;
+        }
+        fragmentedFiles += plotFile.getNumberOfFragments() > 1 ? 1 : 0;
+        fragments += plotFile.getNumberOfFragments();
+        LOG.info("  '" + plotFile.getFilePath() + "' fragments '" + plotFile.getNumberOfFragments() + "', "
+                 + "extents '" + plotFile.getNumberOfExtents() + "'");
+      }
+      LOG.info("drive '" + plotDrive.getDirectory() + "': files '" + plotFiles.size() + "', fragmented '" + fragmentedFiles + "', "
+               + "fragments '" + fragments + "'");
+    }
+  }
+
   /* gets plot file by plot file start nonce. */
   public PlotFile getPlotFileByPlotFileStartNonce(long plotFileStartNonce)
   {
@@ -149,14 +329,26 @@ public class Plots
     return chunkPartStartNonces;
   }
 
-  /* gets plot file by chunk part start nonce. */
-  public PlotFile getPlotFileByChunkPartStartNonce(BigInteger chunkPartStartNonce)
+  /* gets chunk part sizes by chunk part id. */
+  public long[] getChunkPartSizes()
+  {
+    return chunkPartSizes;
+  }
+
+  /* gets chunk part sizes by chunk part id, weighted by read costs of poc version. */
+  public long[] getRealChunkPartSizes()
+  {
+    return realChunkPartSizes;
+  }
+
+  /* gets plot file by chunk part id. */
+  public PlotFile getPlotFileByChunkPartId(int chunkPartId)
   {
     for(PlotDrive plotDrive : getPlotDrives())
     {
       for(PlotFile plotFile : plotDrive.getPlotFiles())
       {
-        if(plotFile.getChunkPartStartNonces().containsKey(chunkPartStartNonce))
+        if(chunkPartId >= plotFile.getFirstChunkPartId() && chunkPartId < plotFile.getFirstChunkPartId() + plotFile.getNumberOfChunkParts())
         {
           return plotFile;
         }
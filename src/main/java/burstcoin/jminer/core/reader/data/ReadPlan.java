@@ -0,0 +1,306 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package burstcoin.jminer.core.reader.data;
+
+import signumj.crypto.plot.impl.MiningPlot;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Flat, precompiled read instructions of a drive, one entry per chunk part.
+ *
+ * Compiled once per plot catalog, the scoop number of a round turns an entry into its read offset: baseOffset + scoopNumber * stride.
+ * Entries of the same plot file are consecutive. Entries following each other on disk are grouped into read requests.
+ * Requests of poc1 plot-files read the scoops of a stagger chunk and their mirror scoops, both at the same position in their chunk.
+ */
+public class ReadPlan
+{
+  private final PlotFile[] plotFiles;
+  // fileId -> poc1, second hashes of poc2 scoops are in mirror scoops
+  private final boolean[] mirrored;
+  // fileId -> index of first entry, last element is number of entries
+  private final int[] firstEntries;
+
+  // entry -> ...
+  private final int[] fileIds;
+  private final long[] baseOffsets;
+  private final long[] strides;
+  private final int[] partLengths;
+  private final long[] startNonces;
+  private final int[] chunkPartIds;
+  // request -> index of first entry, last element is number of entries
+  private final int[] requestFirstEntries;
+  // fileId -> index of first request, last element is number of requests
+  private final int[] fileFirstRequests;
+  private final long[] requestBytes;
+  private final long size;
+  private final long readRequestNonces;
+
+  private final int maxPartLength;
+
+  ReadPlan(Collection<PlotFile> plotFiles, long readRequestNonces)
+  {
+    this.plotFiles = plotFiles.toArray(new PlotFile[0]);
+    this.readRequestNonces = readRequestNonces;
+    firstEntries = new int[this.plotFiles.length + 1];
+    mirrored = new boolean[this.plotFiles.length];
+    fileFirstRequests = new int[this.plotFiles.length + 1];
+
+    int numberOfEntries = 0;
+    for(int fileId = 0; fileId < this.plotFiles.length; fileId++)
+    {
+      firstEntries[fileId] = numberOfEntries;
+      mirrored[fileId] = PocVersion.POC_1.equals(this.plotFiles[fileId].getPocVersion());
+      numberOfEntries += this.plotFiles[fileId].getNumberOfChunkParts();
+    }
+    firstEntries[this.plotFiles.length] = numberOfEntries;
+
+    fileIds = new int[numberOfEntries];
+    baseOffsets = new long[numberOfEntries];
+    strides = new long[numberOfEntries];
+    partLengths = new int[numberOfEntries];
+    startNonces = new long[numberOfEntries];
+    chunkPartIds = new int[numberOfEntries];
+    int[] requests = new int[numberOfEntries + 1];
+    int numberOfRequests = 0;
+    long requestNonces = 0;
+
+    int maxLength = 0;
+    int entry = 0;
+    for(int fileId = 0; fileId < this.plotFiles.length; fileId++)
+    {
+      PlotFile plotFile = this.plotFiles[fileId];
+      fileFirstRequests[fileId] = numberOfRequests;
+      long staggeramt = plotFile.getStaggeramt();
+      long partNonces = plotFile.getPartNonces();
+      for(int chunkNumber = 0; chunkNumber < plotFile.getNumberOfChunks(); chunkNumber++)
+      {
+        for(int partNumber = 0; partNumber < plotFile.getNumberOfParts(); partNumber++)
+        {
+          long partOffset = plotFile.getPartOffset(partNumber);
+          fileIds[entry] = fileId;
+          baseOffsets[entry] = chunkNumber * staggeramt * MiningPlot.PLOT_SIZE + partOffset * MiningPlot.SCOOP_SIZE;
+          strides[entry] = staggeramt * MiningPlot.SCOOP_SIZE;
+          partLengths[entry] = (int) plotFile.getPartNonces(partNumber);
+          startNonces[entry] = plotFile.getStartnonce() + chunkNumber * staggeramt + partOffset;
+          chunkPartIds[entry] = plotFile.getFirstChunkPartId() + chunkNumber * plotFile.getNumberOfParts() + partNumber;
+
+          // parts of same chunk follow each other on disk, unless nonces between are skipped, merge them until request is full.
+          // poc1 chunks are 'staggeramt' nonces apart, so requests never span chunks
+          boolean adjacent = partNumber > 0 && plotFile.getPartOffset(partNumber - 1) + plotFile.getPartNonces(partNumber - 1) == partOffset;
+          if(!adjacent || requestNonces + partLengths[entry] > readRequestNonces)
+          {
+            requests[numberOfRequests++] = entry;
+            requestNonces = 0;
+          }
+          requestNonces += partLengths[entry];
+          entry++;
+        }
+      }
+      maxLength = Math.max(maxLength, (int) partNonces);
+    }
+    maxPartLength = maxLength;
+    fileFirstRequests[this.plotFiles.length] = numberOfRequests;
+    requests[numberOfRequests] = numberOfEntries;
+    requestFirstEntries = Arrays.copyOf(requests, numberOfRequests + 1);
+
+    requestBytes = new long[numberOfRequests];
+    long totalBytes = 0;
+    for(int request = 0; request < numberOfRequests; request++)
+    {
+      for(int i = requestFirstEntries[request]; i < requestFirstEntries[request + 1]; i++)
+      {
+        requestBytes[request] += (long) partLengths[i] * MiningPlot.SCOOP_SIZE;
+      }
+      // poc1 reads mirror scoops too
+      requestBytes[request] *= mirrored[fileIds[requestFirstEntries[request]]] ? 2 : 1;
+      totalBytes += requestBytes[request];
+    }
+    size = totalBytes;
+  }
+
+  public int getNumberOfFiles()
+  {
+    return plotFiles.length;
+  }
+
+  public PlotFile getPlotFile(int fileId)
+  {
+    return plotFiles[fileId];
+  }
+
+  public int getFirstEntry(int fileId)
+  {
+    return firstEntries[fileId];
+  }
+
+  /* exclusive */
+  public int getLastEntry(int fileId)
+  {
+    return firstEntries[fileId + 1];
+  }
+
+  /* poc1 plot-file, its requests read scoops and mirror scoops */
+  public boolean isMirrored(int fileId)
+  {
+    return mirrored[fileId];
+  }
+
+  /* true if any request reads mirror scoops */
+  public boolean hasMirrored()
+  {
+    for(boolean mirroredFile : mirrored)
+    {
+      if(mirroredFile)
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int getNumberOfEntries()
+  {
+    return fileIds.length;
+  }
+
+  public int getFileId(int entry)
+  {
+    return fileIds[entry];
+  }
+
+  /* byte position of the scoops of an entry */
+  public long getOffset(int entry, int scoopNumber)
+  {
+    return baseOffsets[entry] + scoopNumber * strides[entry];
+  }
+
+  /* number of scoops/nonces */
+  public int getPartLength(int entry)
+  {
+    return partLengths[entry];
+  }
+
+  public long getStartNonce(int entry)
+  {
+    return startNonces[entry];
+  }
+
+  public int getChunkPartId(int entry)
+  {
+    return chunkPartIds[entry];
+  }
+
+  /**
+   * Orders requests by disk position of their plot-files for a scoop, to avoid long seeks between files on HDDs.
+   * Files with known extents come first by physical position of their first scoops, then files by inode, then the others.
+   *
+   * @param scoopNumber the scoop number of the round
+   * @return the request order, null if disk positions are unknown
+   */
+  public int[] getRequestOrder(int scoopNumber)
+  {
+    int[] ranks = new int[plotFiles.length];
+    long[] keys = new long[plotFiles.length];
+    Integer[] fileOrder = new Integer[plotFiles.length];
+    boolean known = false;
+    for(int fileId = 0; fileId < plotFiles.length; fileId++)
+    {
+      PlotFile plotFile = plotFiles[fileId];
+      long position = firstEntries[fileId] < firstEntries[fileId + 1] ? plotFile.getPhysicalOffset(getOffset(firstEntries[fileId], scoopNumber)) : -1;
+      ranks[fileId] = position >= 0 ? 0 : plotFile.getInode() >= 0 ? 1 : 2;
+      keys[fileId] = position >= 0 ? position : plotFile.getInode() >= 0 ? plotFile.getInode() : fileId;
+      fileOrder[fileId] = fileId;
+      known |= ranks[fileId] < 2;
+    }
+    if(!known)
+    {
+      return null;
+    }
+    Arrays.sort(fileOrder, (a, b) -> ranks[a] != ranks[b] ? Integer.compare(ranks[a], ranks[b]) : Long.compare(keys[a], keys[b]));
+
+    int[] requestOrder = new int[getNumberOfRequests()];
+    int index = 0;
+    for(int fileId : fileOrder)
+    {
+      for(int request = fileFirstRequests[fileId]; request < fileFirstRequests[fileId + 1]; request++)
+      {
+        requestOrder[index++] = request;
+      }
+    }
+    return requestOrder;
+  }
+
+  public int getFirstRequestOfFile(int fileId)
+  {
+    return fileFirstRequests[fileId];
+  }
+
+  /* exclusive */
+  public int getLastRequestOfFile(int fileId)
+  {
+    return fileFirstRequests[fileId + 1];
+  }
+
+  public int getNumberOfRequests()
+  {
+    return requestFirstEntries.length - 1;
+  }
+
+  public int getFirstEntryOfRequest(int request)
+  {
+    return requestFirstEntries[request];
+  }
+
+  /* exclusive */
+  public int getLastEntryOfRequest(int request)
+  {
+    return requestFirstEntries[request + 1];
+  }
+
+  /* bytes read for a round by this request, poc1 requests read scoops and mirror scoops of same size */
+  public long getRequestBytes(int request)
+  {
+    return requestBytes[request];
+  }
+
+  /* max. nonces merged into one read request */
+  public long getReadRequestNonces()
+  {
+    return readRequestNonces;
+  }
+
+  /* bytes read for a round */
+  public long getSize()
+  {
+    return size;
+  }
+
+  /* number of scoops of the largest entry */
+  public int getMaxPartLength()
+  {
+    return maxPartLength;
+  }
+}
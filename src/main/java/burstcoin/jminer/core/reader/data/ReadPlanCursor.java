@@ -0,0 +1,285 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package burstcoin.jminer.core.reader.data;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared progress of all reader tasks of a drive within one round, hands out the read requests of its plan.
+ */
+public class ReadPlanCursor
+{
+  private final ReadPlan readPlan;
+  private final DriveSetup driveSetup;
+  // requests in read order, null for plan order
+  private final int[] requestOrder;
+  private final AtomicInteger nextRequest;
+  private final AtomicLong remainingBytes;
+  private final AtomicInteger runningTasks;
+  private final long startTime;
+  // expected speed, used to start drives with longest remaining time first
+  private final double bytesPerMs;
+  // ms, -1 if drive has no speed profile yet
+  private final long predictedTime;
+
+  // ms from new round to first sector read of the drive, -1 if nothing read yet
+  private final AtomicLong startLatency;
+  private final AtomicBoolean firstRead;
+  private volatile boolean interrupted;
+  // set by watchdog if a read of the drive hangs
+  private volatile boolean abandoned;
+
+  // reads waiting for the drive, and time of the last finished one (ms)
+  private final AtomicInteger readsInFlight;
+  private volatile long lastProgressTime;
+
+  // ns all tasks spent waiting for io, and checking loaded parts
+  private final AtomicLong ioTime;
+  private final AtomicLong checkTime;
+
+  // files hinted to be read soon
+  private final BitSet prefetchedFiles;
+  private final AtomicLong prefetchedBytes;
+
+  public ReadPlanCursor(ReadPlan readPlan, int[] requestOrder, DriveSetup driveSetup, double bytesPerMs, long predictedTime)
+  {
+    this.readPlan = readPlan;
+    this.requestOrder = requestOrder;
+    this.driveSetup = driveSetup;
+    this.bytesPerMs = bytesPerMs;
+    this.predictedTime = predictedTime;
+    nextRequest = new AtomicInteger();
+    remainingBytes = new AtomicLong(readPlan.getSize());
+    runningTasks = new AtomicInteger(driveSetup.getConcurrency());
+    startTime = System.currentTimeMillis();
+    startLatency = new AtomicLong(-1);
+    firstRead = new AtomicBoolean(true);
+    ioTime = new AtomicLong();
+    checkTime = new AtomicLong();
+    prefetchedFiles = new BitSet(readPlan.getNumberOfFiles());
+    prefetchedBytes = new AtomicLong();
+    readsInFlight = new AtomicInteger();
+  }
+
+  /* setup of the drive for this round, one task per concurrency */
+  public DriveSetup getDriveSetup()
+  {
+    return driveSetup;
+  }
+
+  public ReadPlan getReadPlan()
+  {
+    return readPlan;
+  }
+
+  /* returns next request to read, -1 if all are taken */
+  public int nextRequest()
+  {
+    if(abandoned)
+    {
+      return -1;
+    }
+    int index = nextRequest.getAndIncrement();
+    if(index < readPlan.getNumberOfRequests())
+    {
+      int request = requestOrder != null ? requestOrder[index] : index;
+      remainingBytes.addAndGet(-readPlan.getRequestBytes(request));
+      return request;
+    }
+    return -1;
+  }
+
+  /* bytes of requests not taken yet */
+  public long getRemainingBytes()
+  {
+    return remainingBytes.get();
+  }
+
+  /* predicted time to read the requests not taken yet (ms) */
+  public long getRemainingTime()
+  {
+    return (long) (remainingBytes.get() / bytesPerMs);
+  }
+
+  public long getPredictedTime()
+  {
+    return predictedTime;
+  }
+
+  /* returns true for the last task of the drive */
+  public boolean finishTask(boolean interrupted)
+  {
+    if(interrupted)
+    {
+      this.interrupted = true;
+    }
+    return runningTasks.decrementAndGet() == 0;
+  }
+
+  public boolean isInterrupted()
+  {
+    return interrupted;
+  }
+
+  public void startRead()
+  {
+    if(readsInFlight.getAndIncrement() == 0)
+    {
+      lastProgressTime = System.currentTimeMillis();
+    }
+  }
+
+  public void endRead()
+  {
+    lastProgressTime = System.currentTimeMillis();
+    readsInFlight.decrementAndGet();
+  }
+
+  /* a read answered, e.g. with an error, the stall clock restarts for the next try */
+  public void progress()
+  {
+    lastProgressTime = System.currentTimeMillis();
+  }
+
+  public boolean isReading()
+  {
+    return readsInFlight.get() > 0;
+  }
+
+  /* time of last finished read (ms), now while reading, 0 if nothing read yet */
+  public long getLastReadTime()
+  {
+    return readsInFlight.get() > 0 ? System.currentTimeMillis() : lastProgressTime;
+  }
+
+  /* true if a read is waiting for longer than timeout (ms), without any other read of the drive finished */
+  public boolean isStalled(long timeout)
+  {
+    return readsInFlight.get() > 0 && System.currentTimeMillis() - lastProgressTime > timeout;
+  }
+
+  /* stops handing out requests, returns false if already abandoned */
+  public synchronized boolean abandon()
+  {
+    if(abandoned)
+    {
+      return false;
+    }
+    abandoned = true;
+    interrupted = true;
+    return true;
+  }
+
+  public boolean isAbandoned()
+  {
+    return abandoned;
+  }
+
+  public void recordStartLatency(long startLatency)
+  {
+    this.startLatency.compareAndSet(-1, startLatency);
+  }
+
+  public long getStartLatency()
+  {
+    return startLatency.get();
+  }
+
+  /* true for the first finished read request of the drive in this round */
+  public boolean takeFirstRead()
+  {
+    return firstRead.compareAndSet(true, false);
+  }
+
+  /**
+   * Gets the next files to read, that were not prefetched yet, and marks them as prefetched.
+   *
+   * @param numberOfFiles number of files to look ahead
+   * @param fileIds filled with the files to prefetch
+   * @return number of files to prefetch
+   */
+  public int takeFilesToPrefetch(int numberOfFiles, int[] fileIds)
+  {
+    int count = 0;
+    int previousFileId = -1;
+    int files = 0;
+    synchronized(prefetchedFiles)
+    {
+      for(int index = nextRequest.get(); index < readPlan.getNumberOfRequests() && files < numberOfFiles; index++)
+      {
+        int request = requestOrder != null ? requestOrder[index] : index;
+        int fileId = readPlan.getFileId(readPlan.getFirstEntryOfRequest(request));
+        if(fileId != previousFileId)
+        {
+          previousFileId = fileId;
+          files++;
+          if(!prefetchedFiles.get(fileId))
+          {
+            prefetchedFiles.set(fileId);
+            fileIds[count++] = fileId;
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  public void addPrefetchedBytes(long bytes)
+  {
+    prefetchedBytes.addAndGet(bytes);
+  }
+
+  public long getPrefetchedBytes()
+  {
+    return prefetchedBytes.get();
+  }
+
+  public void addIoTime(long nanos)
+  {
+    ioTime.addAndGet(nanos);
+  }
+
+  public long getIoTime()
+  {
+    return ioTime.get();
+  }
+
+  public void addCheckTime(long nanos)
+  {
+    checkTime.addAndGet(nanos);
+  }
+
+  public long getCheckTime()
+  {
+    return checkTime.get();
+  }
+
+  public long getElapsedTime()
+  {
+    return System.currentTimeMillis() - startTime;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package burstcoin.jminer.core.reader.data;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read progress of one round, indexed by chunk part id.
+ * Updated concurrently by all reader threads without locking.
+ */
+public class ReadProgress
+{
+  private final long blockNumber;
+  private final byte[] generationSignature;
+  private final long startTime;
+
+  // chunk part id -> size
+  private final long[] chunkPartSizes;
+  private final long[] realChunkPartSizes;
+  private final AtomicIntegerArray loadedChunkParts;
+
+  private final long capacity;
+  private final long realCapacity;
+  private final LongAdder loadedCapacity;
+  private final LongAdder realLoadedCapacity;
+
+  public ReadProgress(long blockNumber, byte[] generationSignature, Plots plots)
+  {
+    this.blockNumber = blockNumber;
+    this.generationSignature = generationSignature;
+    this.startTime = System.currentTimeMillis();
+
+    chunkPartSizes = plots.getChunkPartSizes();
+    realChunkPartSizes = plots.getRealChunkPartSizes();
+    loadedChunkParts = new AtomicIntegerArray(chunkPartSizes.length);
+
+    capacity = Arrays.stream(chunkPartSizes).sum();
+    realCapacity = Arrays.stream(realChunkPartSizes).sum();
+    loadedCapacity = new LongAdder();
+    realLoadedCapacity = new LongAdder();
+  }
+
+  public boolean isRound(long blockNumber, byte[] generationSignature)
+  {
+    return this.blockNumber == blockNumber && Arrays.equals(this.generationSignature, generationSignature);
+  }
+
+  /* returns false if chunk part is unknown or was already loaded */
+  public boolean markLoaded(int chunkPartId)
+  {
+    if(chunkPartId < 0 || chunkPartId >= chunkPartSizes.length || !loadedChunkParts.compareAndSet(chunkPartId, 0, 1))
+    {
+      return false;
+    }
+    loadedCapacity.add(chunkPartSizes[chunkPartId]);
+    realLoadedCapacity.add(realChunkPartSizes[chunkPartId]);
+    return true;
+  }
+
+  public long getBlockNumber()
+  {
+    return blockNumber;
+  }
+
+  public long getCapacity()
+  {
+    return capacity;
+  }
+
+  public long getRemainingCapacity()
+  {
+    return capacity - loadedCapacity.sum();
+  }
+
+  public long getRealCapacity()
+  {
+    return realCapacity;
+  }
+
+  public long getRealRemainingCapacity()
+  {
+    return realCapacity - realLoadedCapacity.sum();
+  }
+
+  public long getElapsedTime()
+  {
+    return System.currentTimeMillis() - startTime;
+  }
+}
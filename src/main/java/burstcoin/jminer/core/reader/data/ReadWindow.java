@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.data;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Daily time window a drive is read with other bandwidth, e.g. '08:00-18:00=20' (MB/s) or '22:00-06:00=pause'.
+ */
+public class ReadWindow
+{
+  private final LocalTime start;
+  private final LocalTime end;
+  // MB/s, 0 if drive is paused
+  private final int bandwidth;
+
+  public ReadWindow(LocalTime start, LocalTime end, int bandwidth)
+  {
+    this.start = start;
+    this.end = end;
+    this.bandwidth = bandwidth;
+  }
+
+  /**
+   * Parses a window 'HH:mm-HH:mm=MB/s' or 'HH:mm-HH:mm=pause'.
+   *
+   * @param value the window
+   * @return the read window
+   * @throws IllegalArgumentException if value is invalid
+   */
+  public static ReadWindow parse(String value)
+  {
+    String[] window = value.trim().split("=");
+    String[] times = window[0].trim().split("-");
+    if(window.length != 2 || times.length != 2)
+    {
+      throw new IllegalArgumentException("invalid read window '" + value + "'");
+    }
+    try
+    {
+      String bandwidth = window[1].trim();
+      return new ReadWindow(LocalTime.parse(times[0].trim()), LocalTime.parse(times[1].trim()),
+                            "pause".equalsIgnoreCase(bandwidth) ? 0 : Math.max(1, Integer.parseInt(bandwidth)));
+    }
+    catch(DateTimeParseException | NumberFormatException e)
+    {
+      throw new IllegalArgumentException("invalid read window '" + value + "'", e);
+    }
+  }
+
+  /* windows ending before they start span midnight */
+  public boolean contains(LocalTime time)
+  {
+    return start.isAfter(end) ? !time.isBefore(start) || time.isBefore(end) : !time.isBefore(start) && time.isBefore(end);
+  }
+
+  public int getBandwidth()
+  {
+    return bandwidth;
+  }
+
+  @Override
+  public String toString()
+  {
+    return start + "-" + end + "=" + (bandwidth > 0 ? String.valueOf(bandwidth) : "pause");
+  }
+}
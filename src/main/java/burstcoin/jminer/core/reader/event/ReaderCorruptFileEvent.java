@@ -22,6 +22,7 @@
 
 package burstcoin.jminer.core.reader.event;
 
+import burstcoin.jminer.core.event.UiEvent;
 import burstcoin.jminer.core.reader.Reader;
 import org.springframework.context.ApplicationEvent;
 
@@ -31,6 +32,7 @@ import org.springframework.context.ApplicationEvent;
 @SuppressWarnings("serial")
 public class ReaderCorruptFileEvent
   extends ApplicationEvent
+  implements UiEvent
 {
   private long blockNumber;
   private String filePath;
@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.event;
+
+import burstcoin.jminer.core.reader.data.ReadPlanCursor;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * fired if chunk parts of a drive are not read in current round (drive skipped, hanging or unreadable parts),
+ * they are counted as done to let the round finish
+ */
+@SuppressWarnings("serial")
+public class ReaderDriveAbandonedEvent
+  extends ApplicationEvent
+{
+  private long blockNumber;
+  private byte[] generationSignature;
+  private String directory;
+  private int[] chunkPartIds;
+  private ReadPlanCursor readPlanCursor;
+
+  /**
+   * @param blockNumber the block number
+   * @param generationSignature the generation signature
+   * @param directory the plotPath of the drive
+   * @param chunkPartIds chunk parts not read
+   * @param readPlanCursor cursor of the drive if a read of it hangs, null otherwise
+   */
+  public ReaderDriveAbandonedEvent(long blockNumber, byte[] generationSignature, String directory, int[] chunkPartIds,
+                                   ReadPlanCursor readPlanCursor)
+  {
+    super(blockNumber);
+
+    this.blockNumber = blockNumber;
+    this.generationSignature = generationSignature;
+    this.directory = directory;
+    this.chunkPartIds = chunkPartIds;
+    this.readPlanCursor = readPlanCursor;
+  }
+
+  public long getBlockNumber()
+  {
+    return blockNumber;
+  }
+
+  public byte[] getGenerationSignature()
+  {
+    return generationSignature;
+  }
+
+  public String getDirectory()
+  {
+    return directory;
+  }
+
+  public int[] getChunkPartIds()
+  {
+    return chunkPartIds;
+  }
+
+  public ReadPlanCursor getReadPlanCursor()
+  {
+    return readPlanCursor;
+  }
+}
@@ -23,24 +23,30 @@
 package burstcoin.jminer.core.reader.event;
 
 
+import burstcoin.jminer.core.event.UiEvent;
 import org.springframework.context.ApplicationEvent;
 
 @SuppressWarnings("serial")
 public class ReaderDriveFinishEvent
   extends ApplicationEvent
+  implements UiEvent
 {
   private String directory;
   private long size;
   private long time;
+  private long startLatency;
+  private long predictedTime;
   private long blockNumber;
 
-  public ReaderDriveFinishEvent(String directory, long size, long time, long blockNumber)
+  public ReaderDriveFinishEvent(String directory, long size, long time, long startLatency, long predictedTime, long blockNumber)
   {
     super(directory);
 
     this.directory = directory;
     this.size = size;
     this.time = time;
+    this.startLatency = startLatency;
+    this.predictedTime = predictedTime;
     this.blockNumber = blockNumber;
   }
 
@@ -49,6 +55,18 @@ public class ReaderDriveFinishEvent
     return time;
   }
 
+  /* time from new round to first byte read on drive (ms), -1 if nothing was read */
+  public long getStartLatency()
+  {
+    return startLatency;
+  }
+
+  /* predicted time from first to last read (ms), -1 if drive had no speed profile yet */
+  public long getPredictedTime()
+  {
+    return predictedTime;
+  }
+
   public String getDirectory()
   {
     return directory;
@@ -22,6 +22,7 @@
 
 package burstcoin.jminer.core.reader.event;
 
+import burstcoin.jminer.core.event.UiEvent;
 import org.springframework.context.ApplicationEvent;
 
 /**
@@ -30,6 +31,7 @@ import org.springframework.context.ApplicationEvent;
 @SuppressWarnings("serial")
 public class ReaderDriveInterruptedEvent
   extends ApplicationEvent
+  implements UiEvent
 {
   private long blockNumber;
   private String directory;
@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.event;
+
+import burstcoin.jminer.core.event.UiEvent;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * fired if the first read of a rotational drive took as long as a spin-up, in a round or by keepalive
+ */
+@SuppressWarnings("serial")
+public class ReaderDriveSpinUpEvent
+  extends ApplicationEvent
+  implements UiEvent
+{
+  private String device;
+  private String directory;
+  private long delay;
+  private boolean keepalive;
+  private long spinUps;
+  private long totalDelay;
+
+  /**
+   * @param device the device id
+   * @param directory the plotPath read
+   * @param delay the time of the read in ms
+   * @param keepalive true if found by keepalive, false on first read of a round
+   * @param spinUps number of spin-ups of the device since start
+   * @param totalDelay time of all spin-ups of the device since start in ms
+   */
+  public ReaderDriveSpinUpEvent(String device, String directory, long delay, boolean keepalive, long spinUps, long totalDelay)
+  {
+    super(device);
+
+    this.device = device;
+    this.directory = directory;
+    this.delay = delay;
+    this.keepalive = keepalive;
+    this.spinUps = spinUps;
+    this.totalDelay = totalDelay;
+  }
+
+  public String getDevice()
+  {
+    return device;
+  }
+
+  public String getDirectory()
+  {
+    return directory;
+  }
+
+  public long getDelay()
+  {
+    return delay;
+  }
+
+  public boolean isKeepalive()
+  {
+    return keepalive;
+  }
+
+  public long getSpinUps()
+  {
+    return spinUps;
+  }
+
+  public long getTotalDelay()
+  {
+    return totalDelay;
+  }
+}
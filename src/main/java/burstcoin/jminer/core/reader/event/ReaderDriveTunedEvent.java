@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.event;
+
+import burstcoin.jminer.core.event.UiEvent;
+import burstcoin.jminer.core.reader.data.DriveSetup;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * fired if autotune measured a setup of a drive
+ */
+@SuppressWarnings("serial")
+public class ReaderDriveTunedEvent
+  extends ApplicationEvent
+  implements UiEvent
+{
+  private String directory;
+  private DriveSetup driveSetup;
+  private long bytesPerSecond;
+  private int checkerIdle;
+  private boolean settled;
+
+  public ReaderDriveTunedEvent(String directory, DriveSetup driveSetup, long bytesPerSecond, int checkerIdle, boolean settled)
+  {
+    super(directory);
+
+    this.directory = directory;
+    this.driveSetup = driveSetup;
+    this.bytesPerSecond = bytesPerSecond;
+    this.checkerIdle = checkerIdle;
+    this.settled = settled;
+  }
+
+  public String getDirectory()
+  {
+    return directory;
+  }
+
+  /* measured candidate, or best setup if settled */
+  public DriveSetup getDriveSetup()
+  {
+    return driveSetup;
+  }
+
+  /* effective speed of the setup */
+  public long getBytesPerSecond()
+  {
+    return bytesPerSecond;
+  }
+
+  /* percentage of time the drive's readers waited for io instead of checking */
+  public int getCheckerIdle()
+  {
+    return checkerIdle;
+  }
+
+  /* true if tuning of the drive is done */
+  public boolean isSettled()
+  {
+    return settled;
+  }
+}
@@ -22,25 +22,71 @@
 
 package burstcoin.jminer.core.reader.event;
 
+import burstcoin.jminer.core.reader.data.CancellationToken;
+import signumj.crypto.plot.impl.MiningPlot;
 
-import java.math.BigInteger;
-
+/**
+ * fired for every chunk-part read, instances are reused by the reader task for all its parts,
+ * listeners have to copy what they want to keep. delivered to ReaderLoadedPartListener beans only, not published by spring.
+ */
 public class ReaderLoadedPartEvent
 {
   private byte[] generationSignature;
-  private BigInteger chunkPartStartNonce;
+  private long chunkPartStartNonce;
+  private int chunkPartId;
   private long blockNumber;
 
   private byte[] scoops;
+  // byte offset of first scoop in buffer
+  private int scoopsOffset;
+  private int numberOfScoops;
+  // readable nonce, its scoop was copied over the unreadable nonces of the part, -1 if all were read
+  private int maskNonce;
   private String plotFilePath;
+  private CancellationToken cancellationToken;
 
-  public ReaderLoadedPartEvent(long blockNumber, byte[] generationSignature, byte[] scoops, BigInteger chunkPartStartNonce, String plotFilePath)
+  public ReaderLoadedPartEvent(long blockNumber, byte[] generationSignature, CancellationToken cancellationToken)
   {
     this.generationSignature = generationSignature;
-    this.chunkPartStartNonce = chunkPartStartNonce;
     this.blockNumber = blockNumber;
+    this.cancellationToken = cancellationToken;
+  }
+
+  /* point event to the next part, scoops buffer may hold more than the part */
+  public void update(byte[] scoops, int scoopsOffset, int numberOfScoops, long chunkPartStartNonce, int chunkPartId, String plotFilePath)
+  {
+    update(scoops, scoopsOffset, numberOfScoops, chunkPartStartNonce, chunkPartId, plotFilePath, -1);
+  }
+
+  /* part with unreadable nonces, they hold a copy of the scoop of maskNonce */
+  public void update(byte[] scoops, int scoopsOffset, int numberOfScoops, long chunkPartStartNonce, int chunkPartId, String plotFilePath, int maskNonce)
+  {
     this.scoops = scoops;
+    this.scoopsOffset = scoopsOffset;
+    this.numberOfScoops = numberOfScoops;
+    this.chunkPartStartNonce = chunkPartStartNonce;
+    this.chunkPartId = chunkPartId;
     this.plotFilePath = plotFilePath;
+    this.maskNonce = maskNonce;
+  }
+
+  /* lowest nonce found by a checker, a masked copy is resolved to the readable nonce it was copied from, same scoop gives same deadline */
+  public int resolveNonce(int lowestNonce)
+  {
+    if(maskNonce < 0 || lowestNonce == maskNonce)
+    {
+      return lowestNonce;
+    }
+    int lowestOffset = scoopsOffset + lowestNonce * MiningPlot.SCOOP_SIZE;
+    int maskOffset = scoopsOffset + maskNonce * MiningPlot.SCOOP_SIZE;
+    for(int position = 0; position < MiningPlot.SCOOP_SIZE; position++)
+    {
+      if(scoops[lowestOffset + position] != scoops[maskOffset + position])
+      {
+        return lowestNonce;
+      }
+    }
+    return maskNonce;
   }
 
   public String getPlotFilePath()
@@ -58,11 +104,36 @@ public class ReaderLoadedPartEvent
     return scoops;
   }
 
-  public BigInteger getChunkPartStartNonce()
+  public int getScoopsOffset()
+  {
+    return scoopsOffset;
+  }
+
+  public int getNumberOfScoops()
+  {
+    return numberOfScoops;
+  }
+
+  public int getMaskNonce()
+  {
+    return maskNonce;
+  }
+
+  public long getChunkPartStartNonce()
   {
     return chunkPartStartNonce;
   }
 
+  public int getChunkPartId()
+  {
+    return chunkPartId;
+  }
+
+  public CancellationToken getCancellationToken()
+  {
+    return cancellationToken;
+  }
+
   public byte[] getGenerationSignature()
   {
     return generationSignature;
@@ -23,16 +23,14 @@
 package burstcoin.jminer.core.reader.task;
 
 
-import java.io.Closeable;
 import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.math.BigInteger;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
-import java.util.Iterator;
+import java.util.Comparator;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,18 +39,32 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
-import com.sun.jna.Platform;
-
 import burstcoin.jminer.core.CoreProperties;
 import burstcoin.jminer.core.checker.event.CheckerResultEvent;
+import burstcoin.jminer.core.checker.event.CheckerResultListener;
 import burstcoin.jminer.core.checker.util.ShaLibChecker;
 import burstcoin.jminer.core.reader.Reader;
+import burstcoin.jminer.core.reader.data.CancellationToken;
 import burstcoin.jminer.core.reader.data.PlotDrive;
-import burstcoin.jminer.core.reader.data.PlotFile;
+import burstcoin.jminer.core.reader.data.ReadMode;
+import burstcoin.jminer.core.reader.data.ReadPlan;
+import burstcoin.jminer.core.reader.data.ReadPlanCursor;
+import burstcoin.jminer.core.reader.event.ReaderDriveAbandonedEvent;
 import burstcoin.jminer.core.reader.event.ReaderDriveFinishEvent;
 import burstcoin.jminer.core.reader.event.ReaderDriveInterruptedEvent;
 import burstcoin.jminer.core.reader.event.ReaderLoadedPartEvent;
-import net.smacke.jaydio.DirectRandomAccessFile;
+import burstcoin.jminer.core.reader.event.ReaderLoadedPartListener;
+import burstcoin.jminer.core.reader.util.AlignedBuffer;
+import burstcoin.jminer.core.reader.util.BadRegionMap;
+import burstcoin.jminer.core.reader.util.BadRegionMap.BadRegion;
+import burstcoin.jminer.core.reader.util.DriveAutotuner;
+import burstcoin.jminer.core.reader.util.DriveKeepalive;
+import burstcoin.jminer.core.reader.util.DriveSpeedProfile;
+import burstcoin.jminer.core.reader.util.IoPriority;
+import burstcoin.jminer.core.reader.util.PlotFileHandle;
+import burstcoin.jminer.core.reader.util.PlotFileHandleCache;
+import burstcoin.jminer.core.reader.util.PrefetchHints;
+import burstcoin.jminer.core.reader.util.ReadThrottle;
 import signumj.crypto.plot.impl.MiningPlot;
 
 
@@ -66,166 +78,587 @@ public class ReaderLoadDriveTask
 {
   private static final Logger LOG = LoggerFactory.getLogger(ReaderLoadDriveTask.class);
 
+  // reader threads are long living, so their buffers survive rounds
+  private static final ThreadLocal<byte[]> READ_BUFFER = new ThreadLocal<>();
+  // direct io lands here, before it is copied into the read buffer
+  private static final ThreadLocal<AlignedBuffer> ALIGNED_BUFFER = ThreadLocal.withInitial(AlignedBuffer::new);
+  private static final ThreadLocal<ShaLibChecker> SHA_LIB_CHECKER = ThreadLocal.withInitial(ShaLibChecker::new);
+  // smallest range recorded as unreadable, one sector
+  private static final int MIN_BAD_REGION_BYTES = 4096;
+  // first read of a round, to measure start latency without transfer time of a whole request
+  private static final int START_LATENCY_BYTES = 4096;
+
   private final ApplicationEventPublisher publisher;
+  private final PlotFileHandleCache plotFileHandleCache;
+  private final DriveSpeedProfile driveSpeedProfile;
+  private final DriveAutotuner driveAutotuner;
+  private final BadRegionMap badRegionMap;
+  private final DriveKeepalive driveKeepalive;
+  // arrays, iterating them does not allocate
+  private final ReaderLoadedPartListener[] loadedPartListeners;
+  private final CheckerResultListener[] checkerResultListeners;
   private ShaLibChecker shaLibChecker;
+  private AlignedBuffer alignedBuffer;
 
   private byte[] generationSignature;
   private PlotDrive plotDrive;
+  private ReadPlanCursor readPlanCursor;
   private int scoopNumber;
   private long blockNumber;
+  private CancellationToken cancellationToken;
   private boolean showDriveInfo;
+  // max. bytes per io request, cancellation is checked in between
+  private int readRequestBytes;
+  // null if drive is read with full speed
+  private ReadThrottle readThrottle;
+  private int ioPriority;
+
+  // number of files hinted ahead, 0 if disabled
+  private int prefetchFiles;
+  private int[] prefetchFileIds;
+  private long[] prefetchOffsets;
+  private long[] prefetchLengths;
+
+  // handle of the plot-file read last, kept open for following requests
+  private PlotFileHandle handle;
+  private int handleFileId;
+  // unreadable regions of the plot-file, null if none
+  private List<BadRegion> badRegions;
+
+  // reused for all parts of this task
+  private ReaderLoadedPartEvent loadedPartEvent;
+  private CheckerResultEvent checkerResultEvent;
 
   @Autowired
-  public ReaderLoadDriveTask(ApplicationEventPublisher publisher)
+  public ReaderLoadDriveTask(ApplicationEventPublisher publisher, PlotFileHandleCache plotFileHandleCache, DriveSpeedProfile driveSpeedProfile,
+                             DriveAutotuner driveAutotuner, BadRegionMap badRegionMap, DriveKeepalive driveKeepalive,
+                             List<ReaderLoadedPartListener> loadedPartListeners, List<CheckerResultListener> checkerResultListeners)
   {
     this.publisher = publisher;
+    this.plotFileHandleCache = plotFileHandleCache;
+    this.driveSpeedProfile = driveSpeedProfile;
+    this.driveAutotuner = driveAutotuner;
+    this.badRegionMap = badRegionMap;
+    this.driveKeepalive = driveKeepalive;
+    this.loadedPartListeners = loadedPartListeners.toArray(new ReaderLoadedPartListener[0]);
+    this.checkerResultListeners = checkerResultListeners.toArray(new CheckerResultListener[0]);
   }
 
-  public void init(int scoopNumber, long blockNumber, byte[] generationSignature, PlotDrive plotDrive)
+  /* readPlanCursor and readThrottle are shared by all tasks of the drive */
+  public void init(int scoopNumber, long blockNumber, byte[] generationSignature, PlotDrive plotDrive, ReadPlanCursor readPlanCursor,
+                   ReadThrottle readThrottle, CancellationToken cancellationToken)
   {
     this.scoopNumber = scoopNumber;
     this.blockNumber = blockNumber;
     this.generationSignature = generationSignature;
     this.plotDrive = plotDrive;
+    this.readPlanCursor = readPlanCursor;
+    this.readThrottle = readThrottle;
+    this.cancellationToken = cancellationToken;
+    handleFileId = -1;
+    loadedPartEvent = new ReaderLoadedPartEvent(blockNumber, generationSignature, cancellationToken);
+    checkerResultEvent = new CheckerResultEvent();
 
     showDriveInfo = CoreProperties.isShowDriveInfo();
+    readRequestBytes = (int) Math.min(Integer.MAX_VALUE / 2, CoreProperties.getReadRequestNonces(plotDrive.getDirectory()) * MiningPlot.SCOOP_SIZE);
+    ioPriority = CoreProperties.getIoPriority(plotDrive.getDirectory());
 
-    if(!CoreProperties.isUseOpenCl())
-    {
-      this.shaLibChecker = new ShaLibChecker();
-    }
+    // prefetched data lands in page cache, direct io would not use it
+    boolean pageCache = PlotFileHandle.getSupportedReadMode(readPlanCursor.getDriveSetup().getReadMode()) != ReadMode.DIRECT;
+    prefetchFiles = pageCache && PrefetchHints.isSupported() ? CoreProperties.getPrefetchFiles(plotDrive.getDirectory()) : 0;
+    prefetchFileIds = prefetchFiles > 0 ? new int[prefetchFiles] : null;
   }
 
   @Override
   public void run()
   {
-    long startTime = showDriveInfo ? new Date().getTime() : 0;
-    Iterator<PlotFile> iterator = plotDrive.getPlotFiles().iterator();
-    boolean interrupted = false;
-    while(iterator.hasNext() && !interrupted)
+    ReadPlan readPlan = readPlanCursor.getReadPlan();
+    // holds one part, or all parts merged into one read request, followed by their mirror scoops for poc1
+    int scoopBytes = Math.max(readPlan.getMaxPartLength() * MiningPlot.SCOOP_SIZE, readRequestBytes);
+    byte[] readBuffer = getReadBuffer(readPlan.hasMirrored() ? 2 * scoopBytes : scoopBytes);
+    shaLibChecker = CoreProperties.isUseOpenCl() ? null : SHA_LIB_CHECKER.get();
+    alignedBuffer = ALIGNED_BUFFER.get();
+    // reader threads are shared by drives, so priority is set (or reset) per task
+    IoPriority.apply(ioPriority);
+    // task may was queued until round got cancelled
+    boolean interrupted = cancellationToken.isCancelled();
+    int failedFileId = -1;
+    while(!interrupted)
     {
-      PlotFile plotPathInfo = iterator.next();
-      if(plotPathInfo.getStaggeramt() % plotPathInfo.getNumberOfParts() > 0)
+      int request = readPlanCursor.nextRequest();
+      if(request < 0)
+      {
+        break;
+      }
+
+      int fileId = readPlan.getFileId(readPlan.getFirstEntryOfRequest(request));
+      if(fileId != failedFileId)
       {
-        LOG.warn("staggeramt " + plotPathInfo.getStaggeramt() + " can not be devided by " + plotPathInfo.getNumberOfParts());
-        // fallback ... could lead to problems on optimized plot-files
-        plotPathInfo.setNumberOfParts(1);
+        Path filePath = readPlan.getPlotFile(fileId).getFilePath();
+        try
+        {
+          interrupted = load(readPlan, request, fileId, readBuffer);
+        }
+        catch(NoSuchFileException exception)
+        {
+          LOG.error("File not found ... please restart to rescan plot-files, maybe set rescan to 'true': " + exception.getMessage());
+          failedFileId = fileId;
+          discardHandle();
+        }
+        catch(ClosedByInterruptException e)
+        {
+          // we reach this, if we do not wait for task on shutdown - ByteChannel closed by thread interruption
+          LOG.trace("reader stopped cause of new block ...");
+          failedFileId = fileId;
+          discardHandle();
+        }
+        catch(IOException e)
+        {
+          LOG.error("IOException in: " + filePath.toString() + " -> " + e.getMessage());
+          failedFileId = fileId;
+          discardHandle();
+        }
       }
-      interrupted = load(plotPathInfo);
     }
+    releaseHandle();
 
-    if(showDriveInfo)
+    if(readPlanCursor.finishTask(interrupted))
     {
-      if(interrupted)
+      if(readPlanCursor.isInterrupted())
       {
-        // ui-event
-        publisher.publishEvent(new ReaderDriveInterruptedEvent(blockNumber, plotDrive.getDirectory()));
+        if(showDriveInfo)
+        {
+          // ui-event
+          publisher.publishEvent(new ReaderDriveInterruptedEvent(blockNumber, plotDrive.getDirectory()));
+        }
       }
       else
       {
-        // ui event
-        publisher.publishEvent(new ReaderDriveFinishEvent(plotDrive.getDirectory(), plotDrive.getSize(), new Date().getTime() - startTime, blockNumber));
+        long time = readPlanCursor.getElapsedTime();
+        long startLatency = readPlanCursor.getStartLatency();
+        long readTime = startLatency >= 0 ? time - startLatency : time;
+        if(readPlanCursor.getPrefetchedBytes() > 0)
+        {
+          LOG.debug("prefetched '" + readPlanCursor.getPrefetchedBytes() / 1024 / 1024 + "MB' of '" + readPlan.getSize() / 1024 / 1024 + "MB' "
+                    + "on '" + plotDrive.getDirectory() + "', read in '" + readTime + "ms'");
+        }
+        // throttled rounds do not show the speed of the drive
+        if(readThrottle != null && readThrottle.getWaitTime() > 0)
+        {
+          LOG.debug("throttled '" + plotDrive.getDirectory() + "' for '" + readThrottle.getWaitTime() + "ms', read in '" + readTime + "ms'");
+        }
+        else
+        {
+          driveSpeedProfile.record(plotDrive, readPlan.getSize(), readTime, time);
+          driveAutotuner.record(plotDrive, readPlanCursor, readTime);
+        }
+        if(showDriveInfo)
+        {
+          // ui event
+          publisher.publishEvent(new ReaderDriveFinishEvent(plotDrive.getDirectory(), plotDrive.getSize(), time, startLatency,
+                                                            readPlanCursor.getPredictedTime(), blockNumber));
+        }
       }
     }
   }
 
-  /**
-   * A wrapper class optimized for each system.
-   * 
-   * On Linux the page cache keeps being filled by the plots recently read,
-   * so we use direct io in this case.
-   * 
-   * TODO: add optimized support for other platforms.
-   *
-   */
-  static class RandomAccessFileWrapper implements Closeable {
-    DirectRandomAccessFile dra;
-    RandomAccessFile ra;
-    
-    public RandomAccessFileWrapper(Path path) throws IOException {
-      if(Platform.isLinux())
-        dra = new DirectRandomAccessFile(path.toFile(), "r");
-      else
-        ra = new RandomAccessFile(path.toFile(), "r");
-    }
-
-    @Override
-    public void close() throws IOException {
-      if(dra != null)
-        dra.close();
-      if(ra != null)
-        ra.close();
-    }
-
-    public void seek(long l) throws IOException {
-      if(dra!=null)
-        dra.seek(l);
-      if(ra!=null)
-        ra.seek(l);
-    }
-
-    public void read(byte[] partBuffer, int i, int length) throws IOException {
-      if(dra!=null)
-        dra.read(partBuffer, i, length);
-      if(ra!=null)
-        ra.read(partBuffer, i, length);      
-    }
-  };
-  
-  private boolean load(PlotFile plotFile)
-  {
-    try (RandomAccessFileWrapper sbc = new RandomAccessFileWrapper(plotFile.getFilePath())) {
-      
-      long currentScoopPosition = scoopNumber * plotFile.getStaggeramt() * MiningPlot.SCOOP_SIZE;
-      
-      long partSize = plotFile.getStaggeramt() / plotFile.getNumberOfParts();
-      byte []partBuffer = new byte[(int) (partSize * MiningPlot.SCOOP_SIZE)];
-      // optimized plotFiles only have one chunk!
-      for(int chunkNumber = 0; chunkNumber < plotFile.getNumberOfChunks(); chunkNumber++)
-      {
-        long currentChunkPosition = chunkNumber * plotFile.getStaggeramt() * MiningPlot.PLOT_SIZE;
-        sbc.seek(currentScoopPosition + currentChunkPosition);
-                
-        for(int partNumber = 0; partNumber < plotFile.getNumberOfParts(); partNumber++)
+  public ReadPlanCursor getReadPlanCursor()
+  {
+    return readPlanCursor;
+  }
+
+  public PlotDrive getPlotDrive()
+  {
+    return plotDrive;
+  }
+
+  private static byte[] getReadBuffer(int size)
+  {
+    byte[] readBuffer = READ_BUFFER.get();
+    if(readBuffer == null || readBuffer.length < size)
+    {
+      readBuffer = new byte[size];
+      READ_BUFFER.set(readBuffer);
+    }
+    return readBuffer;
+  }
+
+  private boolean load(ReadPlan readPlan, int request, int fileId, byte[] readBuffer)
+    throws IOException
+  {
+    Path filePath = readPlan.getPlotFile(fileId).getFilePath();
+    String plotFilePath = filePath.toString();
+    int firstEntry = readPlan.getFirstEntryOfRequest(request);
+    int lastEntry = readPlan.getLastEntryOfRequest(request);
+    int requestBytes = (int) readPlan.getRequestBytes(request);
+    // parts of a request follow each other on disk
+    long requestOffset = readPlan.getOffset(firstEntry, scoopNumber);
+    // poc1 holds second hashes of poc2 scoops in the mirror scoops, same position in the stagger chunk
+    boolean mirrored = readPlan.isMirrored(fileId);
+    int scoopBytes = mirrored ? requestBytes / 2 : requestBytes;
+    long mirrorOffset = mirrored ? readPlan.getOffset(firstEntry, MiningPlot.SCOOPS_PER_PLOT - 1 - scoopNumber) : -1;
+
+    // waiting for bandwidth does not count as io, nor as stalled read
+    if(readThrottle != null)
+    {
+      readThrottle.acquire(requestBytes);
+    }
+    long ioStartTime = System.nanoTime();
+    // watchdog abandons the drive, if this does not return
+    readPlanCursor.startRead();
+    try
+    {
+      if(handleFileId != fileId)
+      {
+        releaseHandle();
+        handle = plotFileHandleCache.acquire(filePath, readPlanCursor.getDriveSetup().getReadMode());
+        handleFileId = fileId;
+        badRegions = badRegionMap.get(filePath);
+        if(prefetchFiles > 0)
         {
-          sbc.read(partBuffer, 0, partBuffer.length);
+          prefetch(readPlan);
+        }
+      }
 
-          if(Reader.blockNumber.get() != blockNumber || !Arrays.equals(Reader.generationSignature, generationSignature))
-          {
-            LOG.trace("loadDriveThread stopped!");
-            sbc.close();
-            return true;
-          }
-          else
+      if(!mirrored)
+      {
+        readRange(filePath, requestOffset, readBuffer, 0, scoopBytes);
+      }
+      // lower one first, to keep the head moving forward
+      else if(requestOffset < mirrorOffset)
+      {
+        readRange(filePath, requestOffset, readBuffer, 0, scoopBytes);
+        readRange(filePath, mirrorOffset, readBuffer, scoopBytes, scoopBytes);
+      }
+      else
+      {
+        readRange(filePath, mirrorOffset, readBuffer, scoopBytes, scoopBytes);
+        readRange(filePath, requestOffset, readBuffer, 0, scoopBytes);
+      }
+    }
+    finally
+    {
+      readPlanCursor.endRead();
+    }
+    long checkStartTime = System.nanoTime();
+    readPlanCursor.addIoTime(checkStartTime - ioStartTime);
+    // a spun down drive delays its first read
+    if(readPlanCursor.takeFirstRead())
+    {
+      driveKeepalive.recordFirstRead(plotDrive, (checkStartTime - ioStartTime) / 1000000);
+    }
+
+    if(cancellationToken.isCancelled() || Reader.blockNumber.get() != blockNumber || !Arrays.equals(Reader.generationSignature, generationSignature))
+    {
+      LOG.trace("loadDriveThread stopped!");
+      return true;
+    }
+
+    if(mirrored)
+    {
+      shuffle(readBuffer, scoopBytes);
+    }
+
+    // every part is checked on its own, as slice of the read buffer
+    List<BadRegion> requestBadRegions = mirrored && badRegions != null ? withMirrorRegions(requestOffset, mirrorOffset, scoopBytes) : badRegions;
+    boolean skipBadRegions = requestBadRegions != null && BadRegionMap.intersects(requestBadRegions, requestOffset, scoopBytes);
+    int scoopsOffset = 0;
+    for(int entry = firstEntry; entry < lastEntry; entry++)
+    {
+      int partLength = readPlan.getPartLength(entry);
+      long chunkPartStartNonce = readPlan.getStartNonce(entry);
+      int chunkPartId = readPlan.getChunkPartId(entry);
+      if(!skipBadRegions)
+      {
+        check(readBuffer, scoopsOffset, partLength, chunkPartStartNonce, chunkPartId, plotFilePath);
+      }
+      else if(!checkAroundBadRegions(requestBadRegions, readBuffer, scoopsOffset, requestOffset + scoopsOffset, partLength, chunkPartStartNonce, chunkPartId,
+                                     plotFilePath))
+      {
+        // nothing readable, part is done without result
+        publisher.publishEvent(new ReaderDriveAbandonedEvent(blockNumber, generationSignature, plotDrive.getDirectory(), new int[]{chunkPartId}, null));
+      }
+      scoopsOffset += partLength * MiningPlot.SCOOP_SIZE;
+    }
+    readPlanCursor.addCheckTime(System.nanoTime() - checkStartTime);
+    return false;
+  }
+
+  /* reads a range of scoops, known and new unreadable regions are left out */
+  private void readRange(Path filePath, long offset, byte[] readBuffer, int bufferOffset, int length)
+    throws IOException
+  {
+    if(badRegions == null || !BadRegionMap.intersects(badRegions, offset, length))
+    {
+      try
+      {
+        read(offset, readBuffer, bufferOffset, length);
+      }
+      catch(NoSuchFileException | ClosedByInterruptException e)
+      {
+        throw e;
+      }
+      catch(IOException e)
+      {
+        LOG.warn("Read error in '" + filePath + "' at offset '" + offset + "': " + e.getMessage() + ", retrying around it ...");
+        readAroundBadRegions(filePath, offset, readBuffer, bufferOffset, length);
+      }
+    }
+    else
+    {
+      readAroundBadRegions(filePath, offset, readBuffer, bufferOffset, length);
+    }
+  }
+
+  /* poc1 to poc2: second hash of each scoop is taken from its mirror scoop, read behind the scoops */
+  static void shuffle(byte[] readBuffer, int scoopBytes)
+  {
+    for(int position = MiningPlot.HASH_SIZE; position < scoopBytes; position += MiningPlot.SCOOP_SIZE)
+    {
+      System.arraycopy(readBuffer, scoopBytes + position, readBuffer, position, MiningPlot.HASH_SIZE);
+    }
+  }
+
+  /* bad regions of the mirror scoops spoil the same nonces, they are added at the position of the scoops */
+  private List<BadRegion> withMirrorRegions(long requestOffset, long mirrorOffset, int scoopBytes)
+  {
+    List<BadRegion> regions = new ArrayList<>(badRegions);
+    for(BadRegion badRegion : badRegions)
+    {
+      if(badRegion.getOffset() < mirrorOffset + scoopBytes && badRegion.getOffset() + badRegion.getLength() > mirrorOffset)
+      {
+        regions.add(new BadRegion(badRegion.getOffset() - mirrorOffset + requestOffset, badRegion.getLength()));
+      }
+    }
+    regions.sort(Comparator.comparingLong(BadRegion::getOffset));
+    return regions;
+  }
+
+  private void read(long offset, byte[] readBuffer, int bufferOffset, int length)
+    throws IOException
+  {
+    handle.seek(offset);
+    int position = 0;
+    // first read of the drive in a round starts with one sector, so start latency is the time until first bytes arrived
+    if(readPlanCursor.getStartLatency() < 0 && length > START_LATENCY_BYTES)
+    {
+      handle.read(readBuffer, bufferOffset, START_LATENCY_BYTES, alignedBuffer);
+      readPlanCursor.recordStartLatency(cancellationToken.getElapsedTime());
+      position = START_LATENCY_BYTES;
+    }
+    // large parts are read with several requests, to react fast on new round
+    for(; position < length && !cancellationToken.isCancelled(); position += readRequestBytes)
+    {
+      handle.read(readBuffer, bufferOffset + position, Math.min(readRequestBytes, length - position), alignedBuffer);
+      readPlanCursor.recordStartLatency(cancellationToken.getElapsedTime());
+    }
+  }
+
+  /* reads the ranges between known bad regions, new unreadable ranges are found by reading smaller pieces */
+  private void readAroundBadRegions(Path filePath, long requestOffset, byte[] readBuffer, int bufferOffset, int requestBytes)
+    throws IOException
+  {
+    long position = requestOffset;
+    long end = requestOffset + requestBytes;
+    if(badRegions != null)
+    {
+      for(BadRegion badRegion : badRegions)
+      {
+        long badRegionEnd = badRegion.getOffset() + badRegion.getLength();
+        if(badRegion.getOffset() >= end)
+        {
+          break;
+        }
+        if(badRegionEnd > position)
+        {
+          if(badRegion.getOffset() > position)
           {
-            BigInteger chunkPartStartNonce = plotFile.getStartnonce().add(BigInteger.valueOf(chunkNumber * plotFile.getStaggeramt() + partNumber * partSize));
-            final byte[] scoops = partBuffer;
-            publisher.publishEvent(new ReaderLoadedPartEvent(blockNumber, generationSignature, scoops, chunkPartStartNonce, plotFile.getFilePath().toString()));
-
-            if(!CoreProperties.isUseOpenCl() && shaLibChecker.getLoadError() == null)
-            {
-              int lowestNonce = shaLibChecker.findLowest(generationSignature, scoops);
-              publisher.publishEvent(new CheckerResultEvent(blockNumber, generationSignature, chunkPartStartNonce, lowestNonce,
-                                                            plotFile.getFilePath().toString(), scoops));
-            }
+            readOrSplit(filePath, position, badRegion.getOffset() - position, requestOffset, readBuffer, bufferOffset);
           }
+          position = badRegionEnd;
         }
       }
-      sbc.close();
     }
-    catch(NoSuchFileException exception)
+    if(position < end)
     {
-      LOG.error("File not found ... please restart to rescan plot-files, maybe set rescan to 'true': " + exception.getMessage());
+      readOrSplit(filePath, position, end - position, requestOffset, readBuffer, bufferOffset);
     }
-    catch(ClosedByInterruptException e)
+  }
+
+  /* halves failing reads down to one sector, which is recorded as bad region */
+  private void readOrSplit(Path filePath, long offset, long length, long requestOffset, byte[] readBuffer, int bufferOffset)
+    throws IOException
+  {
+    if(cancellationToken.isCancelled())
+    {
+      return;
+    }
+    // every try gets the full stall timeout, a slowly failing drive is not hung
+    readPlanCursor.progress();
+    try
     {
-      // we reach this, if we do not wait for task on shutdown - ByteChannel closed by thread interruption
-      LOG.trace("reader stopped cause of new block ...");
+      read(offset, readBuffer, bufferOffset + (int) (offset - requestOffset), (int) length);
+    }
+    catch(NoSuchFileException | ClosedByInterruptException e)
+    {
+      throw e;
     }
     catch(IOException e)
     {
-      LOG.error("IOException in: " + plotFile.getFilePath().toString() + " -> " + e.getMessage());
+      if(length <= MIN_BAD_REGION_BYTES)
+      {
+        badRegions = badRegionMap.add(filePath, offset, length);
+        LOG.warn("Unreadable '" + length / MiningPlot.SCOOP_SIZE + "' scoops in '" + filePath + "' at offset '" + offset + "', skipped from now on.");
+        return;
+      }
+      // split at sector boundary
+      long middle = (offset + length / 2) / MIN_BAD_REGION_BYTES * MIN_BAD_REGION_BYTES;
+      if(middle <= offset)
+      {
+        middle = offset + MIN_BAD_REGION_BYTES;
+      }
+      readOrSplit(filePath, offset, middle - offset, requestOffset, readBuffer, bufferOffset);
+      readOrSplit(filePath, middle, offset + length - middle, requestOffset, readBuffer, bufferOffset);
+    }
+  }
+
+  /* checks a part with unreadable nonces at once, they get the scoop of a readable nonce, returns false if none of them was readable */
+  boolean checkAroundBadRegions(List<BadRegion> badRegions, byte[] readBuffer, int scoopsOffset, long partOffset, int partLength, long chunkPartStartNonce,
+                                int chunkPartId, String plotFilePath)
+  {
+    // first nonce not covered by a bad region
+    int maskNonce = 0;
+    for(BadRegion badRegion : badRegions)
+    {
+      long badStart = badRegion.getOffset() - partOffset;
+      if(badStart >= (long) (maskNonce + 1) * MiningPlot.SCOOP_SIZE)
+      {
+        break;
+      }
+      maskNonce = (int) Math.max(maskNonce, (badStart + badRegion.getLength() + MiningPlot.SCOOP_SIZE - 1) / MiningPlot.SCOOP_SIZE);
+    }
+    if(maskNonce >= partLength)
+    {
+      return false;
+    }
+
+    // a masked nonce has the deadline of maskNonce, so it can not win against it
+    for(BadRegion badRegion : badRegions)
+    {
+      long badStart = badRegion.getOffset() - partOffset;
+      long badEnd = badStart + badRegion.getLength();
+      if(badStart >= (long) partLength * MiningPlot.SCOOP_SIZE)
+      {
+        break;
+      }
+      int lastBadNonce = (int) Math.min(partLength, (badEnd + MiningPlot.SCOOP_SIZE - 1) / MiningPlot.SCOOP_SIZE);
+      for(int nonce = (int) (Math.max(0, badStart) / MiningPlot.SCOOP_SIZE); nonce < lastBadNonce; nonce++)
+      {
+        System.arraycopy(readBuffer, scoopsOffset + maskNonce * MiningPlot.SCOOP_SIZE, readBuffer, scoopsOffset + nonce * MiningPlot.SCOOP_SIZE,
+                         MiningPlot.SCOOP_SIZE);
+      }
+    }
+    check(readBuffer, scoopsOffset, partLength, chunkPartStartNonce, chunkPartId, plotFilePath, maskNonce);
+    return true;
+  }
+
+  /* hot path, called for every part, must not allocate */
+  void check(byte[] readBuffer, int scoopsOffset, int numberOfScoops, long startNonce, int chunkPartId, String plotFilePath)
+  {
+    check(readBuffer, scoopsOffset, numberOfScoops, startNonce, chunkPartId, plotFilePath, -1);
+  }
+
+  private void check(byte[] readBuffer, int scoopsOffset, int numberOfScoops, long startNonce, int chunkPartId, String plotFilePath, int maskNonce)
+  {
+    loadedPartEvent.update(readBuffer, scoopsOffset, numberOfScoops, startNonce, chunkPartId, plotFilePath, maskNonce);
+    for(ReaderLoadedPartListener listener : loadedPartListeners)
+    {
+      listener.handleMessage(loadedPartEvent);
+    }
+
+    if(shaLibChecker != null && shaLibChecker.getLoadError() == null && !cancellationToken.isCancelled())
+    {
+      int lowestNonce = loadedPartEvent.resolveNonce(shaLibChecker.findLowest(generationSignature, readBuffer, scoopsOffset, numberOfScoops));
+      checkerResultEvent.update(blockNumber, generationSignature, startNonce, chunkPartId, lowestNonce, plotFilePath, readBuffer, scoopsOffset);
+      for(CheckerResultListener listener : checkerResultListeners)
+      {
+        listener.handleMessage(checkerResultEvent);
+      }
+    }
+  }
+
+  /* cpu checker of the reader thread, set on run */
+  void setShaLibChecker(ShaLibChecker shaLibChecker)
+  {
+    this.shaLibChecker = shaLibChecker;
+  }
+
+  /* hints scoops of the next files to the kernel, it reads them in background while this file is read */
+  private void prefetch(ReadPlan readPlan)
+  {
+    int numberOfFiles = readPlanCursor.takeFilesToPrefetch(prefetchFiles, prefetchFileIds);
+    for(int i = 0; i < numberOfFiles; i++)
+    {
+      int fileId = prefetchFileIds[i];
+      int firstRequest = readPlan.getFirstRequestOfFile(fileId);
+      int lastRequest = readPlan.getLastRequestOfFile(fileId);
+      // poc1 requests have a second region, the mirror scoops
+      int maxRegions = (lastRequest - firstRequest) * (readPlan.isMirrored(fileId) ? 2 : 1);
+      if(prefetchOffsets == null || prefetchOffsets.length < maxRegions)
+      {
+        prefetchOffsets = new long[maxRegions];
+        prefetchLengths = new long[maxRegions];
+      }
+
+      // requests following each other on disk are hinted as one region
+      int numberOfRegions = 0;
+      for(int request = firstRequest; request < lastRequest; request++)
+      {
+        int firstEntry = readPlan.getFirstEntryOfRequest(request);
+        long length = readPlan.getRequestBytes(request);
+        if(readPlan.isMirrored(fileId))
+        {
+          length /= 2;
+          numberOfRegions = addRegion(numberOfRegions, readPlan.getOffset(firstEntry, MiningPlot.SCOOPS_PER_PLOT - 1 - scoopNumber), length);
+        }
+        numberOfRegions = addRegion(numberOfRegions, readPlan.getOffset(firstEntry, scoopNumber), length);
+      }
+      readPlanCursor.addPrefetchedBytes(PrefetchHints.willNeed(readPlan.getPlotFile(fileId).getFilePath(), prefetchOffsets, prefetchLengths,
+                                                               numberOfRegions));
+    }
+  }
+
+  private int addRegion(int numberOfRegions, long offset, long length)
+  {
+    if(numberOfRegions > 0 && prefetchOffsets[numberOfRegions - 1] + prefetchLengths[numberOfRegions - 1] == offset)
+    {
+      prefetchLengths[numberOfRegions - 1] += length;
+      return numberOfRegions;
+    }
+    prefetchOffsets[numberOfRegions] = offset;
+    prefetchLengths[numberOfRegions] = length;
+    return numberOfRegions + 1;
+  }
+
+  /* keep handle open for next round */
+  private void releaseHandle()
+  {
+    if(handle != null)
+    {
+      plotFileHandleCache.release(handle);
+      handle = null;
+      handleFileId = -1;
+    }
+  }
+
+  /* close handle after errors */
+  private void discardHandle()
+  {
+    if(handle != null)
+    {
+      plotFileHandleCache.discard(handle);
+      handle = null;
+      handleFileId = -1;
     }
-    return false;
   }
 }
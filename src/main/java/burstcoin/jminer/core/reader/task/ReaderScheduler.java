@@ -0,0 +1,261 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package burstcoin.jminer.core.reader.task;
+
+import burstcoin.jminer.core.reader.data.ReadPlanCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Long-lived reader threads, reused for every round.
+ *
+ * Every device has a queue of tasks, tasks of the same drive share its read requests.
+ * An idle worker takes the next task of the device with the longest predicted remaining read time, but a device never gets more than
+ * its max. workers at the same time (one per spindle, unless 'driveConcurrency' allows more).
+ */
+public class ReaderScheduler
+{
+  private static final Logger LOG = LoggerFactory.getLogger(ReaderScheduler.class);
+
+  // max. number of workers, 0 if one worker per task slot should be available
+  private final int readerThreads;
+
+  private final List<DeviceQueue> deviceQueues;
+  private final List<Thread> workers;
+  // task read by a worker, by task
+  private final Map<ReaderLoadDriveTask, DeviceQueue> runningTasks;
+  private int busyWorkers;
+  // workers blocked in a hung read, replaced by new ones
+  private int abandonedWorkers;
+
+  public ReaderScheduler(int readerThreads)
+  {
+    this.readerThreads = readerThreads;
+    deviceQueues = new ArrayList<>();
+    workers = new ArrayList<>();
+    runningTasks = new HashMap<>();
+  }
+
+  /* schedule tasks of new round, replaces all not yet started tasks of previous round. */
+  public synchronized void schedule(Map<String, List<ReaderLoadDriveTask>> tasksByDevice, Map<String, Integer> workersByDevice)
+  {
+    // running tasks of previous round still count for their device, until they noticed cancellation
+    Map<String, DeviceQueue> previousQueues = new HashMap<>();
+    for(DeviceQueue deviceQueue : deviceQueues)
+    {
+      previousQueues.put(deviceQueue.device, deviceQueue);
+    }
+    deviceQueues.clear();
+
+    int numberOfSlots = 0;
+    for(Map.Entry<String, List<ReaderLoadDriveTask>> entry : tasksByDevice.entrySet())
+    {
+      DeviceQueue deviceQueue = previousQueues.computeIfAbsent(entry.getKey(), DeviceQueue::new);
+      deviceQueue.tasks.clear();
+      deviceQueue.tasks.addAll(entry.getValue());
+      deviceQueue.maxWorkers = workersByDevice.getOrDefault(entry.getKey(), 1);
+      deviceQueues.add(deviceQueue);
+      numberOfSlots += Math.min(deviceQueue.maxWorkers, entry.getValue().size());
+    }
+
+    int numberOfWorkers = (readerThreads > 0 ? readerThreads : numberOfSlots) + abandonedWorkers;
+    while(workers.size() < numberOfWorkers)
+    {
+      Thread thread = new Thread(this::work, "reader-" + (workers.size() + 1));
+      thread.setPriority(Thread.MIN_PRIORITY);
+      thread.setDaemon(true);
+      workers.add(thread);
+      thread.start();
+    }
+    notifyAll();
+  }
+
+  /**
+   * Releases the workers reading a drive that stopped responding, so they do not block its device or count as busy.
+   * Workers stay blocked until the read returns, new ones are started on next schedule.
+   *
+   * @param readPlanCursor the cursor of the drive
+   */
+  public synchronized void abandon(ReadPlanCursor readPlanCursor)
+  {
+    Iterator<Map.Entry<ReaderLoadDriveTask, DeviceQueue>> iterator = runningTasks.entrySet().iterator();
+    while(iterator.hasNext())
+    {
+      Map.Entry<ReaderLoadDriveTask, DeviceQueue> entry = iterator.next();
+      if(entry.getKey().getReadPlanCursor() == readPlanCursor)
+      {
+        iterator.remove();
+        entry.getValue().activeWorkers--;
+        busyWorkers--;
+        abandonedWorkers++;
+      }
+    }
+    notifyAll();
+  }
+
+  /* true while a worker reads or tasks wait for a worker */
+  public synchronized boolean isBusy()
+  {
+    if(busyWorkers > 0)
+    {
+      return true;
+    }
+    for(DeviceQueue deviceQueue : deviceQueues)
+    {
+      if(!deviceQueue.tasks.isEmpty())
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private synchronized DeviceQueue take()
+    throws InterruptedException
+  {
+    while(true)
+    {
+      DeviceQueue best = null;
+      long bestRemainingTime = -1;
+      for(DeviceQueue deviceQueue : deviceQueues)
+      {
+        if(!deviceQueue.tasks.isEmpty() && deviceQueue.activeWorkers < deviceQueue.maxWorkers)
+        {
+          // tasks of devices without remaining requests just finish, so they are taken last
+          long remainingTime = deviceQueue.getRemainingTime();
+          if(remainingTime > bestRemainingTime)
+          {
+            best = deviceQueue;
+            bestRemainingTime = remainingTime;
+          }
+        }
+      }
+
+      if(best != null)
+      {
+        best.activeWorkers++;
+        busyWorkers++;
+        return best;
+      }
+      wait();
+    }
+  }
+
+  private synchronized void done(DeviceQueue deviceQueue, ReaderLoadDriveTask readerLoadDriveTask)
+  {
+    // abandoned tasks were released already
+    if(readerLoadDriveTask == null || runningTasks.remove(readerLoadDriveTask) != null)
+    {
+      deviceQueue.activeWorkers--;
+      busyWorkers--;
+    }
+    else
+    {
+      abandonedWorkers--;
+    }
+    notifyAll();
+  }
+
+  private void work()
+  {
+    while(!Thread.currentThread().isInterrupted())
+    {
+      DeviceQueue deviceQueue;
+      ReaderLoadDriveTask readerLoadDriveTask;
+      try
+      {
+        deviceQueue = take();
+        synchronized(this)
+        {
+          readerLoadDriveTask = deviceQueue.tasks.poll();
+          if(readerLoadDriveTask != null)
+          {
+            runningTasks.put(readerLoadDriveTask, deviceQueue);
+          }
+        }
+      }
+      catch(InterruptedException e)
+      {
+        LOG.trace("reader worker stopped.");
+        Thread.currentThread().interrupt();
+        return;
+      }
+
+      try
+      {
+        if(readerLoadDriveTask != null)
+        {
+          readerLoadDriveTask.run();
+        }
+      }
+      catch(Exception e)
+      {
+        LOG.error("reader worker of '" + readerLoadDriveTask.getPlotDrive().getDirectory() + "' failed: " + e.getMessage(), e);
+      }
+      finally
+      {
+        done(deviceQueue, readerLoadDriveTask);
+      }
+    }
+  }
+
+  private static class DeviceQueue
+  {
+    private final String device;
+    private final Deque<ReaderLoadDriveTask> tasks;
+    private int maxWorkers;
+    private int activeWorkers;
+
+    DeviceQueue(String device)
+    {
+      this.device = device;
+      tasks = new ArrayDeque<>();
+    }
+
+    /* predicted time to read the bytes not taken yet by any task of the device */
+    long getRemainingTime()
+    {
+      long remainingTime = 0;
+      ReadPlanCursor previous = null;
+      for(ReaderLoadDriveTask task : tasks)
+      {
+        // tasks of same drive are queued together and share a cursor
+        if(task.getReadPlanCursor() != previous)
+        {
+          previous = task.getReadPlanCursor();
+          remainingTime += previous.getRemainingTime();
+        }
+      }
+      return remainingTime;
+    }
+  }
+}
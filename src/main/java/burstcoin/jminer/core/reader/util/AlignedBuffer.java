@@ -0,0 +1,51 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package burstcoin.jminer.core.reader.util;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+
+/**
+ * Aligned native memory for direct io (O_DIRECT), owned by the reader using it, grows with the largest read.
+ */
+public class AlignedBuffer
+{
+  // logical block size of 4K disks, works for 512 byte blocks too
+  static final int ALIGNMENT = 4096;
+
+  // keeps the memory of the aligned view alive
+  private Memory memory;
+  private Pointer pointer;
+  private long capacity;
+
+  /* aligned memory of at least 'capacity' bytes, previous content is lost if it has to grow */
+  Pointer get(long capacity)
+  {
+    if(pointer == null || this.capacity < capacity)
+    {
+      memory = new Memory(capacity + ALIGNMENT);
+      pointer = memory.align(ALIGNMENT);
+      this.capacity = capacity;
+    }
+    return pointer;
+  }
+}
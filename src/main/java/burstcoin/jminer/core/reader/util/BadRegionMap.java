@@ -0,0 +1,200 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import burstcoin.jminer.core.CoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unreadable byte ranges of plot-files (bad sectors), persisted between restarts.
+ *
+ * Reader skips them and reads the rest of the file. A bad sector holds one scoop of some nonces,
+ * so ranges are stored as file offsets, the nonces they affect differ with the scoop of the round.
+ */
+@Component
+@Scope("singleton")
+public class BadRegionMap
+{
+  private static final Logger LOG = LoggerFactory.getLogger(BadRegionMap.class);
+
+  private final ObjectMapper objectMapper;
+
+  private File file;
+  // by plot-file path, sorted by offset and merged, replaced on change so readers do not need to lock
+  private Map<String, List<BadRegion>> badRegions;
+
+  @Autowired
+  public BadRegionMap(ObjectMapper objectMapper)
+  {
+    this.objectMapper = objectMapper;
+  }
+
+  @PostConstruct
+  protected void postConstruct()
+  {
+    init(CoreProperties.getBadRegionMap());
+  }
+
+  void init(String path)
+  {
+    badRegions = new ConcurrentHashMap<>();
+    if(!"disabled".equals(path))
+    {
+      file = new File(path);
+      if(file.exists())
+      {
+        try
+        {
+          badRegions.putAll(objectMapper.readValue(file, new TypeReference<Map<String, List<BadRegion>>>() {}));
+        }
+        catch(IOException e)
+        {
+          LOG.warn("Could not read bad region map '" + path + "', starting with empty one: " + e.getMessage());
+        }
+      }
+    }
+    for(Map.Entry<String, List<BadRegion>> entry : badRegions.entrySet())
+    {
+      LOG.info("'" + entry.getKey() + "' has '" + entry.getValue().size() + "' unreadable regions, they are skipped.");
+    }
+  }
+
+  /* unreadable regions of a plot-file sorted by offset, null if there are none */
+  public List<BadRegion> get(Path filePath)
+  {
+    return badRegions.isEmpty() ? null : badRegions.get(filePath.toString());
+  }
+
+  /**
+   * Adds an unreadable region, merged with adjacent or overlapping ones.
+   *
+   * @param filePath the plot-file
+   * @param offset the offset in bytes
+   * @param length the length in bytes
+   * @return the unreadable regions of the plot-file
+   */
+  public synchronized List<BadRegion> add(Path filePath, long offset, long length)
+  {
+    List<BadRegion> previous = badRegions.get(filePath.toString());
+    List<BadRegion> regions = new ArrayList<>();
+    long start = offset;
+    long end = offset + length;
+    if(previous != null)
+    {
+      for(BadRegion region : previous)
+      {
+        if(region.getOffset() + region.getLength() < start || region.getOffset() > end)
+        {
+          regions.add(region);
+        }
+        else
+        {
+          start = Math.min(start, region.getOffset());
+          end = Math.max(end, region.getOffset() + region.getLength());
+        }
+      }
+    }
+    regions.add(new BadRegion(start, end - start));
+    regions.sort((a, b) -> Long.compare(a.getOffset(), b.getOffset()));
+    List<BadRegion> unmodifiable = Collections.unmodifiableList(regions);
+    badRegions.put(filePath.toString(), unmodifiable);
+
+    if(file != null)
+    {
+      try
+      {
+        objectMapper.writeValue(file, badRegions);
+      }
+      catch(IOException e)
+      {
+        LOG.warn("Could not write bad region map '" + file + "': " + e.getMessage());
+      }
+    }
+    return unmodifiable;
+  }
+
+  /* true if any region overlaps the byte range */
+  public static boolean intersects(List<BadRegion> regions, long offset, long length)
+  {
+    for(BadRegion region : regions)
+    {
+      if(region.getOffset() < offset + length && region.getOffset() + region.getLength() > offset)
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public static class BadRegion
+  {
+    private long offset;
+    private long length;
+
+    public BadRegion()
+    {
+    }
+
+    public BadRegion(long offset, long length)
+    {
+      this.offset = offset;
+      this.length = length;
+    }
+
+    public long getOffset()
+    {
+      return offset;
+    }
+
+    public void setOffset(long offset)
+    {
+      this.offset = offset;
+    }
+
+    public long getLength()
+    {
+      return length;
+    }
+
+    public void setLength(long length)
+    {
+      this.length = length;
+    }
+  }
+}
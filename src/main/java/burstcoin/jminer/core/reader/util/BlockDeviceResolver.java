@@ -0,0 +1,224 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package burstcoin.jminer.core.reader.util;
+
+import burstcoin.jminer.core.reader.data.BlockDevice;
+import com.sun.jna.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the physical device backing a directory.
+ *
+ * On Linux the mount of the directory is looked up in '/proc/self/mountinfo', its device number is resolved via '/sys/dev/block'
+ * to the whole disk (partitions belong to their disk) and '/sys/block/[disk]/queue/rotational' tells HDD from SSD.
+ * Stacked devices (md raid, dm for lvm/luks) are resolved via 'slaves' to their physical disks: on a single disk they belong to it,
+ * spanning several disks they stay one device with that number of disks, their type taken from the disks.
+ * Other systems fall back to the file store / root of the path, without knowing the device type.
+ */
+public final class BlockDeviceResolver
+{
+  private static final Logger LOG = LoggerFactory.getLogger(BlockDeviceResolver.class);
+
+  private static final Path MOUNT_INFO = Paths.get("/proc/self/mountinfo");
+  private static final Path SYS_DEV_BLOCK = Paths.get("/sys/dev/block");
+  private static final Path SYS_CLASS_BLOCK = Paths.get("/sys/class/block");
+  private static final Path SYS_BLOCK = Paths.get("/sys/block");
+
+  // directory -> device, devices do not change while running
+  private static final Map<String, BlockDevice> CACHE = new ConcurrentHashMap<>();
+
+  private BlockDeviceResolver()
+  {
+    // no instances
+  }
+
+  public static BlockDevice resolve(String directory)
+  {
+    return CACHE.computeIfAbsent(directory, BlockDeviceResolver::lookup);
+  }
+
+  private static BlockDevice lookup(String directory)
+  {
+    Path path = Paths.get(directory);
+    try
+    {
+      path = path.toRealPath();
+      if(Platform.isLinux())
+      {
+        BlockDevice device = lookupLinux(path);
+        if(device != null)
+        {
+          return device;
+        }
+      }
+      FileStore fileStore = Files.getFileStore(path);
+      String id = path.getRoot() != null && Platform.isWindows() ? path.getRoot().toString() : fileStore.name();
+      return new BlockDevice(id, null);
+    }
+    catch(IOException | RuntimeException e)
+    {
+      LOG.debug("could not resolve device of '" + directory + "': " + e.getMessage());
+      // unknown, treat directory as own device
+      return new BlockDevice(directory, null);
+    }
+  }
+
+  private static BlockDevice lookupLinux(Path path)
+    throws IOException
+  {
+    // find mount with longest mount point containing path
+    String[] bestMount = null;
+    int bestLength = -1;
+    List<String> lines = Files.readAllLines(MOUNT_INFO, StandardCharsets.UTF_8);
+    for(String line : lines)
+    {
+      // e.g. '36 35 8:1 / /mnt/plots rw,noatime shared:1 - ext4 /dev/sda1 rw'
+      String[] fields = line.split(" ");
+      if(fields.length > 4)
+      {
+        String mountPoint = unescape(fields[4]);
+        if(isParent(mountPoint, path.toString()) && mountPoint.length() > bestLength)
+        {
+          bestMount = fields;
+          bestLength = mountPoint.length();
+        }
+      }
+    }
+    if(bestMount == null)
+    {
+      return null;
+    }
+
+    Path sysDevice = null;
+    if(!bestMount[2].startsWith("0:"))
+    {
+      sysDevice = SYS_DEV_BLOCK.resolve(bestMount[2]);
+    }
+    else
+    {
+      // e.g. btrfs has anonymous device numbers, use mount source
+      for(int i = 0; i < bestMount.length - 2; i++)
+      {
+        if("-".equals(bestMount[i]) && bestMount[i + 2].startsWith("/dev/"))
+        {
+          sysDevice = SYS_CLASS_BLOCK.resolve(Paths.get(bestMount[i + 2]).toRealPath().getFileName().toString());
+        }
+      }
+    }
+    if(sysDevice == null || !Files.exists(sysDevice))
+    {
+      return null;
+    }
+
+    sysDevice = getDisk(sysDevice);
+    String name = sysDevice.getFileName().toString();
+    Set<String> disks = new TreeSet<>();
+    collectDisks(sysDevice, disks);
+    if(disks.size() == 1)
+    {
+      // e.g. lvm volume or luks container on one disk, shares it with other paths on that disk
+      name = disks.iterator().next();
+    }
+
+    // md reports rotational for every raid set, so the type comes from the disks, HDD if any of them is
+    Boolean rotational = null;
+    for(String disk : disks)
+    {
+      Boolean diskRotational = isRotational(disk);
+      if(rotational == null || Boolean.TRUE.equals(diskRotational))
+      {
+        rotational = diskRotational;
+      }
+    }
+    return new BlockDevice(name, rotational, Math.max(1, disks.size()));
+  }
+
+  /* partitions belong to their disk */
+  private static Path getDisk(Path sysDevice)
+    throws IOException
+  {
+    sysDevice = sysDevice.toRealPath();
+    return Files.exists(sysDevice.resolve("partition")) ? sysDevice.getParent() : sysDevice;
+  }
+
+  /* physical disks below a device, the device itself if it is not stacked on others */
+  private static void collectDisks(Path sysDevice, Set<String> disks)
+    throws IOException
+  {
+    Path slaves = sysDevice.resolve("slaves");
+    List<Path> slaveDevices = new ArrayList<>();
+    if(Files.isDirectory(slaves))
+    {
+      try(DirectoryStream<Path> stream = Files.newDirectoryStream(slaves))
+      {
+        stream.forEach(slaveDevices::add);
+      }
+    }
+    if(slaveDevices.isEmpty())
+    {
+      disks.add(sysDevice.getFileName().toString());
+    }
+    for(Path slave : slaveDevices)
+    {
+      collectDisks(getDisk(SYS_CLASS_BLOCK.resolve(slave.getFileName().toString())), disks);
+    }
+  }
+
+  private static Boolean isRotational(String disk)
+    throws IOException
+  {
+    Path rotationalFile = SYS_BLOCK.resolve(disk).resolve("queue").resolve("rotational");
+    if(Files.exists(rotationalFile))
+    {
+      return "1".equals(new String(Files.readAllBytes(rotationalFile), StandardCharsets.US_ASCII).trim());
+    }
+    return null;
+  }
+
+  private static boolean isParent(String mountPoint, String path)
+  {
+    return path.equals(mountPoint) || "/".equals(mountPoint) || path.startsWith(mountPoint + "/");
+  }
+
+  // mountinfo escapes space, tab, newline and backslash as octal
+  private static String unescape(String value)
+  {
+    return value.replace("\\040", " ").replace("\\011", "\t").replace("\\012", "\n").replace("\\134", "\\");
+  }
+}
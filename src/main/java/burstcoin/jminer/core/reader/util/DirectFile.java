@@ -0,0 +1,163 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import com.sun.jna.LastErrorException;
+import com.sun.jna.Pointer;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A file read with O_DIRECT (linux), bypassing the page cache.
+ *
+ * Reads are positional (pread), so one descriptor can be shared by several threads. O_DIRECT requires offset, length and
+ * memory to be aligned, so a read lands in the aligned buffer of the caller, covering the requested range rounded to block
+ * boundaries, and is copied once into the byte array the checkers take. libShabal and the result hash of a round only take
+ * java arrays, O_DIRECT can not read into them. The copy runs at memory speed (about 0.2ms per 4MB), against about 1.3ms to
+ * read 4MB from a fast NVMe drive. A request of several parts following each other on disk is one syscall, whatever its size.
+ * File systems not supporting O_DIRECT (e.g. tmpfs) are read buffered, the read range is dropped from page cache afterwards.
+ */
+public class DirectFile
+  implements Closeable
+{
+  private static final int ALIGNMENT = AlignedBuffer.ALIGNMENT;
+
+  private final Path path;
+  private final LibC.CLibrary c;
+  private final int fd;
+  private final boolean direct;
+
+  public DirectFile(Path path)
+    throws IOException
+  {
+    this.path = path;
+    c = LibC.get();
+    if(c == null)
+    {
+      throw new IOException("direct io not supported on this system");
+    }
+
+    int descriptor = open(LibC.O_RDONLY | LibC.O_DIRECT);
+    direct = descriptor >= 0;
+    fd = direct ? descriptor : open(LibC.O_RDONLY);
+    if(fd < 0)
+    {
+      throw new IOException("could not open '" + path + "'");
+    }
+  }
+
+  /* returns -1 if file system does not support the flags */
+  private int open(int flags)
+    throws IOException
+  {
+    try
+    {
+      return c.open(path.toString(), flags);
+    }
+    catch(LastErrorException e)
+    {
+      if(e.getErrorCode() == LibC.EINVAL)
+      {
+        return -1;
+      }
+      throw new IOException("could not open '" + path + "', errno '" + e.getErrorCode() + "'");
+    }
+  }
+
+  /* false if file system does not support O_DIRECT */
+  public boolean isDirect()
+  {
+    return direct;
+  }
+
+  /**
+   * Reads bytes at a file position, thread-safe.
+   *
+   * @param position the file position
+   * @param buffer the buffer to fill
+   * @param offset offset in buffer
+   * @param length number of bytes
+   * @param alignedBuffer native buffer of the caller, the read lands in
+   * @throws IOException on read error or end of file
+   */
+  public void read(long position, byte[] buffer, int offset, int length, AlignedBuffer alignedBuffer)
+    throws IOException
+  {
+    long alignedPosition = position & ~(ALIGNMENT - 1);
+    int skip = (int) (position - alignedPosition);
+    int alignedLength = (skip + length + ALIGNMENT - 1) & ~(ALIGNMENT - 1);
+    Pointer nativeBuffer = alignedBuffer.get(alignedLength);
+
+    readFully(nativeBuffer, alignedPosition, alignedLength, skip + length);
+    nativeBuffer.read(skip, buffer, offset, length);
+    if(!direct)
+    {
+      c.posix_fadvise(fd, alignedPosition, alignedLength, LibC.POSIX_FADV_DONTNEED);
+    }
+  }
+
+  /* reads at least 'required' bytes, last block of a file may be shorter than aligned length */
+  private void readFully(Pointer nativeBuffer, long alignedPosition, int alignedLength, int required)
+    throws IOException
+  {
+    int read = 0;
+    while(read < required)
+    {
+      long bytes;
+      try
+      {
+        bytes = c.pread(fd, read == 0 ? nativeBuffer : nativeBuffer.share(read), alignedLength - read, alignedPosition + read);
+      }
+      catch(LastErrorException e)
+      {
+        if(e.getErrorCode() == LibC.EINTR)
+        {
+          continue;
+        }
+        throw new IOException("read of '" + path + "' failed at '" + (alignedPosition + read) + "', errno '" + e.getErrorCode() + "'");
+      }
+      if(bytes <= 0)
+      {
+        throw new EOFException("read beyond end of " + path);
+      }
+      read += bytes;
+    }
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    try
+    {
+      c.close(fd);
+    }
+    catch(LastErrorException e)
+    {
+      throw new IOException("could not close '" + path + "', errno '" + e.getErrorCode() + "'");
+    }
+  }
+}
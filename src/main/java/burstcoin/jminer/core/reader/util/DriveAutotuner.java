@@ -0,0 +1,477 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.reader.data.DriveSetup;
+import burstcoin.jminer.core.reader.data.PlotDrive;
+import burstcoin.jminer.core.reader.data.ReadMode;
+import burstcoin.jminer.core.reader.data.ReadPlanCursor;
+import burstcoin.jminer.core.reader.event.ReaderDriveTunedEvent;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.jna.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Tunes read mode, read request size and concurrency of every drive (plotPath) over rounds.
+ *
+ * One setting after another is tried with all its candidates, each for a few finished rounds, the one with the best
+ * effective speed is kept before tuning the next setting. Tuned setups are persisted, so tuning is done only once per drive.
+ */
+@Component
+@Scope("singleton")
+public class DriveAutotuner
+{
+  private static final Logger LOG = LoggerFactory.getLogger(DriveAutotuner.class);
+
+  private static final int ROUNDS_PER_CANDIDATE = 2;
+  // drives finished close together are written at once (ms)
+  private static final long WRITE_DELAY = 10000;
+
+  // settings, tuned in this order
+  private static final int READ_MODE = 0;
+  private static final int READ_REQUEST_NONCES = 1;
+  private static final int CONCURRENCY = 2;
+  private static final int SETTLED = 3;
+  // plotPath properties, a setting overridden for a plotPath is not tuned
+  private static final String[] SETTING_KEYS = {"readMode", "readRequestNonces", "driveConcurrency"};
+
+  private final ApplicationEventPublisher publisher;
+  private final ObjectMapper objectMapper;
+  // serializes writes of timer and shutdown
+  private final Object fileLock = new Object();
+
+  private boolean enabled;
+  private File file;
+  private Map<String, Tuning> tunings;
+  private Timer timer;
+  private boolean writeScheduled;
+
+  @Autowired
+  public DriveAutotuner(ApplicationEventPublisher publisher, ObjectMapper objectMapper)
+  {
+    this.publisher = publisher;
+    this.objectMapper = objectMapper;
+  }
+
+  @PostConstruct
+  protected void postConstruct()
+  {
+    init(CoreProperties.isAutotune(), CoreProperties.getAutotuneProfile());
+  }
+
+  void init(boolean enabled, String path)
+  {
+    this.enabled = enabled;
+    tunings = new HashMap<>();
+    if(enabled && !"disabled".equals(path))
+    {
+      file = new File(path);
+      if(file.exists())
+      {
+        try
+        {
+          tunings.putAll(objectMapper.readValue(file, new TypeReference<Map<String, Tuning>>() {}));
+        }
+        catch(IOException e)
+        {
+          LOG.warn("Could not read autotune profile '" + path + "', tuning starts again: " + e.getMessage());
+        }
+      }
+      timer = new Timer("drive-autotuner", true);
+    }
+  }
+
+  @PreDestroy
+  public void flush()
+  {
+    Timer cancelled;
+    synchronized(this)
+    {
+      cancelled = timer;
+      timer = null;
+    }
+    if(cancelled != null)
+    {
+      cancelled.cancel();
+      write();
+    }
+  }
+
+  /* setup for next round of a drive, the candidate to measure while tuning, default setup if autotune is disabled */
+  public synchronized DriveSetup getSetup(PlotDrive plotDrive, DriveSetup defaultSetup)
+  {
+    if(!enabled)
+    {
+      return defaultSetup;
+    }
+    String plotPath = plotDrive.getDirectory();
+    Tuning tuning = tunings.computeIfAbsent(plotPath, key -> new Tuning(defaultSetup));
+    for(int setting = READ_MODE; setting < SETTLED; setting++)
+    {
+      if(CoreProperties.hasPlotPathProperty(plotPath, SETTING_KEYS[setting]))
+      {
+        tuning.apply(setting, getValue(defaultSetup, setting));
+      }
+    }
+    if(tuning.getPhase() < SETTLED && CoreProperties.hasPlotPathProperty(plotPath, SETTING_KEYS[tuning.getPhase()]))
+    {
+      startPhase(tuning, plotPath, tuning.getPhase());
+    }
+    // candidates may changed with properties since profile was persisted
+    if(tuning.getPhase() < SETTLED && tuning.getCandidate() >= getCandidates(tuning.getPhase(), plotPath).length)
+    {
+      tuning.setCandidate(0);
+    }
+    return tuning.getCandidateSetup(plotPath);
+  }
+
+  /* records a finished round of a drive */
+  public synchronized void record(PlotDrive plotDrive, ReadPlanCursor readPlanCursor, long readTime)
+  {
+    Tuning tuning = tunings.get(plotDrive.getDirectory());
+    long size = readPlanCursor.getReadPlan().getSize();
+    if(!enabled || tuning == null || tuning.getPhase() == SETTLED || readTime <= 0 || size <= 0)
+    {
+      return;
+    }
+    // tuning may moved on, while round was read with an older candidate
+    String plotPath = plotDrive.getDirectory();
+    DriveSetup candidateSetup = tuning.getCandidateSetup(plotPath);
+    DriveSetup roundSetup = readPlanCursor.getDriveSetup();
+    if(candidateSetup.getReadMode() != roundSetup.getReadMode() || candidateSetup.getReadRequestNonces() != roundSetup.getReadRequestNonces()
+       || candidateSetup.getConcurrency() != roundSetup.getConcurrency())
+    {
+      return;
+    }
+
+    long busyTime = readPlanCursor.getIoTime() + readPlanCursor.getCheckTime();
+    int checkerIdle = busyTime > 0 ? (int) (readPlanCursor.getIoTime() * 100 / busyTime) : 0;
+    tuning.setScoreSum(tuning.getScoreSum() + (double) size / readTime);
+    tuning.setRounds(tuning.getRounds() + 1);
+    if(tuning.getRounds() < ROUNDS_PER_CANDIDATE)
+    {
+      return;
+    }
+
+    // candidate measured
+    double bytesPerMs = tuning.getScoreSum() / tuning.getRounds();
+    publisher.publishEvent(new ReaderDriveTunedEvent(plotDrive.getDirectory(), candidateSetup, (long) (bytesPerMs * 1000), checkerIdle, false));
+    if(bytesPerMs > tuning.getBestScore())
+    {
+      tuning.setBestScore(bytesPerMs);
+      tuning.setBestValue(getCandidates(tuning.getPhase(), plotPath)[tuning.getCandidate()]);
+      tuning.setCheckerIdle(checkerIdle);
+    }
+    tuning.setRounds(0);
+    tuning.setScoreSum(0);
+    tuning.setCandidate(tuning.getCandidate() + 1);
+
+    // all candidates of setting measured, keep best one and tune next setting
+    if(tuning.getCandidate() >= getCandidates(tuning.getPhase(), plotPath).length)
+    {
+      double bestScore = tuning.getBestScore();
+      tuning.apply(tuning.getPhase(), tuning.getBestValue());
+      startPhase(tuning, plotPath, tuning.getPhase() + 1);
+      if(tuning.getPhase() == SETTLED)
+      {
+        tuning.setBytesPerMs(bestScore);
+        publisher.publishEvent(new ReaderDriveTunedEvent(plotPath, tuning.getCandidateSetup(plotPath), (long) (bestScore * 1000),
+                                                         tuning.getCheckerIdle(), true));
+      }
+    }
+    persist();
+  }
+
+  /* starts tuning of a setting, settings overridden for the plotPath are skipped */
+  private static void startPhase(Tuning tuning, String plotPath, int phase)
+  {
+    while(phase < SETTLED && CoreProperties.hasPlotPathProperty(plotPath, SETTING_KEYS[phase]))
+    {
+      phase++;
+    }
+    tuning.setPhase(phase);
+    tuning.setCandidate(0);
+    tuning.setRounds(0);
+    tuning.setScoreSum(0);
+    tuning.setBestScore(0);
+  }
+
+  private static long getValue(DriveSetup driveSetup, int setting)
+  {
+    switch(setting)
+    {
+      case READ_MODE:
+        return driveSetup.getReadMode().ordinal();
+      case READ_REQUEST_NONCES:
+        return driveSetup.getReadRequestNonces();
+      default:
+        return driveSetup.getConcurrency();
+    }
+  }
+
+  /* file io not on reader threads and not while holding the lock, called with lock held */
+  private void persist()
+  {
+    if(timer != null && !writeScheduled)
+    {
+      writeScheduled = true;
+      timer.schedule(new TimerTask()
+      {
+        @Override
+        public void run()
+        {
+          write();
+        }
+      }, WRITE_DELAY);
+    }
+  }
+
+  /* copies tunings under lock, writes the copy outside of it */
+  private void write()
+  {
+    synchronized(fileLock)
+    {
+      JsonNode snapshot;
+      synchronized(this)
+      {
+        if(!writeScheduled)
+        {
+          return;
+        }
+        writeScheduled = false;
+        snapshot = objectMapper.valueToTree(tunings);
+      }
+      try
+      {
+        objectMapper.writeValue(file, snapshot);
+      }
+      catch(IOException e)
+      {
+        LOG.warn("Could not write autotune profile '" + file + "': " + e.getMessage());
+      }
+    }
+  }
+
+  /* values to try for a setting, read modes by ordinal */
+  private static long[] getCandidates(int phase, String plotPath)
+  {
+    switch(phase)
+    {
+      case READ_MODE:
+        return Platform.isLinux()
+               ? new long[]{ReadMode.DIRECT.ordinal(), ReadMode.BUFFERED.ordinal(), ReadMode.MMAP.ordinal()}
+               : new long[]{ReadMode.BUFFERED.ordinal(), ReadMode.MMAP.ordinal()};
+      case READ_REQUEST_NONCES:
+        // configured 'readRequestNonces' is the max., it limits memory of read buffers
+        long readRequestNonces = CoreProperties.getReadRequestNonces(plotPath);
+        return new long[]{Math.max(64, readRequestNonces / 16 / 64 * 64), Math.max(64, readRequestNonces / 4 / 64 * 64), readRequestNonces};
+      case CONCURRENCY:
+        return new long[]{1, 2, 4};
+      default:
+        return new long[0];
+    }
+  }
+
+  /* persisted tuning state of a drive */
+  public static class Tuning
+  {
+    // best values of settings tuned already, defaults of the others
+    private ReadMode readMode;
+    private long readRequestNonces;
+    private int concurrency;
+
+    private int phase;
+    private int candidate;
+    private int rounds;
+    private double scoreSum;
+    private double bestScore;
+    private long bestValue;
+
+    // result, bytes per ms of best setup
+    private double bytesPerMs;
+    private int checkerIdle;
+
+    public Tuning()
+    {
+    }
+
+    Tuning(DriveSetup defaultSetup)
+    {
+      readMode = defaultSetup.getReadMode();
+      readRequestNonces = defaultSetup.getReadRequestNonces();
+      concurrency = defaultSetup.getConcurrency();
+    }
+
+    /* setup with the setting tuned currently replaced by its candidate */
+    DriveSetup getCandidateSetup(String plotPath)
+    {
+      long value = phase < SETTLED ? getCandidates(phase, plotPath)[candidate] : 0;
+      return new DriveSetup(phase == READ_MODE ? ReadMode.values()[(int) value] : readMode,
+                            phase == READ_REQUEST_NONCES ? value : readRequestNonces,
+                            phase == CONCURRENCY ? (int) value : concurrency);
+    }
+
+    void apply(int phase, long value)
+    {
+      switch(phase)
+      {
+        case READ_MODE:
+          readMode = ReadMode.values()[(int) value];
+          break;
+        case READ_REQUEST_NONCES:
+          readRequestNonces = value;
+          break;
+        case CONCURRENCY:
+          concurrency = (int) value;
+          break;
+      }
+    }
+
+    public ReadMode getReadMode()
+    {
+      return readMode;
+    }
+
+    public void setReadMode(ReadMode readMode)
+    {
+      this.readMode = readMode;
+    }
+
+    public long getReadRequestNonces()
+    {
+      return readRequestNonces;
+    }
+
+    public void setReadRequestNonces(long readRequestNonces)
+    {
+      this.readRequestNonces = readRequestNonces;
+    }
+
+    public int getConcurrency()
+    {
+      return concurrency;
+    }
+
+    public void setConcurrency(int concurrency)
+    {
+      this.concurrency = concurrency;
+    }
+
+    public int getPhase()
+    {
+      return phase;
+    }
+
+    public void setPhase(int phase)
+    {
+      this.phase = phase;
+    }
+
+    public int getCandidate()
+    {
+      return candidate;
+    }
+
+    public void setCandidate(int candidate)
+    {
+      this.candidate = candidate;
+    }
+
+    public int getRounds()
+    {
+      return rounds;
+    }
+
+    public void setRounds(int rounds)
+    {
+      this.rounds = rounds;
+    }
+
+    public double getScoreSum()
+    {
+      return scoreSum;
+    }
+
+    public void setScoreSum(double scoreSum)
+    {
+      this.scoreSum = scoreSum;
+    }
+
+    public double getBestScore()
+    {
+      return bestScore;
+    }
+
+    public void setBestScore(double bestScore)
+    {
+      this.bestScore = bestScore;
+    }
+
+    public long getBestValue()
+    {
+      return bestValue;
+    }
+
+    public void setBestValue(long bestValue)
+    {
+      this.bestValue = bestValue;
+    }
+
+    public double getBytesPerMs()
+    {
+      return bytesPerMs;
+    }
+
+    public void setBytesPerMs(double bytesPerMs)
+    {
+      this.bytesPerMs = bytesPerMs;
+    }
+
+    public int getCheckerIdle()
+    {
+      return checkerIdle;
+    }
+
+    public void setCheckerIdle(int checkerIdle)
+    {
+      this.checkerIdle = checkerIdle;
+    }
+  }
+}
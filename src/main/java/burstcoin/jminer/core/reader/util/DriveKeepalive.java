@@ -0,0 +1,240 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.reader.data.PlotDrive;
+import burstcoin.jminer.core.reader.data.PlotFile;
+import burstcoin.jminer.core.reader.data.ReadMode;
+import burstcoin.jminer.core.reader.data.ReadPlanCursor;
+import burstcoin.jminer.core.reader.event.ReaderDriveSpinUpEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps HDDs from spinning down between rounds, a spin-up delays the first read of a round by several seconds.
+ *
+ * A rotational device idle for 'keepaliveInterval' gets a tiny read bypassing page cache, but only while none of its drives
+ * has requests left in current round. Spin-ups found on first read of a round or by keepalive are counted per device.
+ */
+@Component
+@Scope("singleton")
+public class DriveKeepalive
+{
+  private static final Logger LOG = LoggerFactory.getLogger(DriveKeepalive.class);
+
+  private static final long CHECK_INTERVAL = 1000;
+  // reads taking longer waited for the drive to spin up, seeks take some ms only
+  private static final long SPIN_UP_DELAY = 1500;
+  private static final int KEEPALIVE_BYTES = 4096;
+
+  private final ApplicationEventPublisher publisher;
+
+  // ms, 0 if disabled
+  private long keepaliveInterval;
+  private Timer timer;
+
+  // rotational devices, by device id
+  private final Map<String, Device> devices;
+
+  @Autowired
+  public DriveKeepalive(ApplicationEventPublisher publisher)
+  {
+    this.publisher = publisher;
+    devices = new ConcurrentHashMap<>();
+  }
+
+  @PostConstruct
+  protected void postConstruct()
+  {
+    keepaliveInterval = CoreProperties.getKeepaliveInterval() * 1000L;
+    if(keepaliveInterval > 0)
+    {
+      timer = new Timer("drive-keepalive", true);
+      timer.schedule(new TimerTask()
+      {
+        @Override
+        public void run()
+        {
+          check();
+        }
+      }, CHECK_INTERVAL, CHECK_INTERVAL);
+    }
+  }
+
+  /* forget drives of previous round, remembers when they were read last */
+  public void startRound()
+  {
+    for(Device device : devices.values())
+    {
+      device.lastAccessTime = device.getLastAccessTime();
+      device.plotDrives.clear();
+      device.readPlanCursors.clear();
+    }
+  }
+
+  public void watch(PlotDrive plotDrive, ReadPlanCursor readPlanCursor)
+  {
+    if(Boolean.TRUE.equals(plotDrive.getDevice().getRotational()))
+    {
+      Device device = devices.computeIfAbsent(plotDrive.getDevice().getId(), Device::new);
+      device.plotDrives.add(plotDrive);
+      device.readPlanCursors.add(readPlanCursor);
+    }
+  }
+
+  /* first read of a drive in a round, delay in ms including open of the plot-file */
+  public void recordFirstRead(PlotDrive plotDrive, long delay)
+  {
+    if(delay >= SPIN_UP_DELAY && Boolean.TRUE.equals(plotDrive.getDevice().getRotational()))
+    {
+      recordSpinUp(devices.computeIfAbsent(plotDrive.getDevice().getId(), Device::new), plotDrive.getDirectory(), delay, false);
+    }
+  }
+
+  private void check()
+  {
+    long now = System.currentTimeMillis();
+    for(Device device : devices.values())
+    {
+      if(!device.keepalive && !device.plotDrives.isEmpty() && !device.isBusy() && now - device.getLastAccessTime() >= keepaliveInterval)
+      {
+        device.keepalive = true;
+        // a read of a spun down drive takes seconds, timer keeps checking the other devices
+        Thread thread = new Thread(() -> keepalive(device), "drive-keepalive-" + device.id);
+        thread.setDaemon(true);
+        thread.start();
+      }
+    }
+  }
+
+  private void keepalive(Device device)
+  {
+    List<PlotDrive> plotDrives = new ArrayList<>(device.plotDrives);
+    // new round started meanwhile
+    if(plotDrives.isEmpty())
+    {
+      device.keepalive = false;
+      return;
+    }
+    PlotDrive plotDrive = plotDrives.get(ThreadLocalRandom.current().nextInt(plotDrives.size()));
+    List<PlotFile> plotFiles = new ArrayList<>(plotDrive.getPlotFiles());
+    PlotFile plotFile = plotFiles.get(ThreadLocalRandom.current().nextInt(plotFiles.size()));
+
+    long startTime = System.currentTimeMillis();
+    try(PlotFileHandle handle = new PlotFileHandle(plotFile.getFilePath(), ReadMode.DIRECT))
+    {
+      // random sector, to not hit the drive cache
+      long sectors = plotFile.getFilePath().toFile().length() / KEEPALIVE_BYTES;
+      handle.seek(sectors > 1 ? ThreadLocalRandom.current().nextLong(sectors) * KEEPALIVE_BYTES : 0);
+      handle.read(new byte[KEEPALIVE_BYTES], 0, KEEPALIVE_BYTES);
+
+      long delay = System.currentTimeMillis() - startTime;
+      if(delay >= SPIN_UP_DELAY)
+      {
+        recordSpinUp(device, plotDrive.getDirectory(), delay, true);
+      }
+      LOG.trace("keepalive of '" + device.id + "' took '" + delay + "ms'");
+    }
+    catch(IOException e)
+    {
+      LOG.debug("keepalive of '" + device.id + "' failed: " + e.getMessage());
+    }
+    finally
+    {
+      device.lastAccessTime = System.currentTimeMillis();
+      device.keepalive = false;
+    }
+  }
+
+  private void recordSpinUp(Device device, String directory, long delay, boolean keepalive)
+  {
+    long spinUps;
+    long totalDelay;
+    synchronized(device)
+    {
+      spinUps = ++device.spinUps;
+      totalDelay = device.totalDelay += delay;
+    }
+    // ui event
+    publisher.publishEvent(new ReaderDriveSpinUpEvent(device.id, directory, delay, keepalive, spinUps, totalDelay));
+  }
+
+  private static class Device
+  {
+    private final String id;
+    // drives and their cursors of current round
+    private final List<PlotDrive> plotDrives;
+    private final List<ReadPlanCursor> readPlanCursors;
+    private volatile long lastAccessTime;
+    private volatile boolean keepalive;
+    private long spinUps;
+    private long totalDelay;
+
+    Device(String id)
+    {
+      this.id = id;
+      plotDrives = new CopyOnWriteArrayList<>();
+      readPlanCursors = new CopyOnWriteArrayList<>();
+      lastAccessTime = System.currentTimeMillis();
+    }
+
+    /* a drive of the device is read or has requests left in current round */
+    boolean isBusy()
+    {
+      for(ReadPlanCursor readPlanCursor : readPlanCursors)
+      {
+        if(readPlanCursor.isReading() || (readPlanCursor.getRemainingBytes() > 0 && !readPlanCursor.isInterrupted()))
+        {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    long getLastAccessTime()
+    {
+      long time = lastAccessTime;
+      for(ReadPlanCursor readPlanCursor : readPlanCursors)
+      {
+        time = Math.max(time, readPlanCursor.getLastReadTime());
+      }
+      return time;
+    }
+  }
+}
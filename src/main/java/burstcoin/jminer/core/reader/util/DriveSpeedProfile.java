@@ -0,0 +1,260 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package burstcoin.jminer.core.reader.util;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.reader.data.PlotDrive;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Measured read speed of every drive (plotPath), averaged over rounds and persisted between restarts.
+ *
+ * Used to start the drives with the longest predicted read time first and to size their read requests.
+ */
+@Component
+@Scope("singleton")
+public class DriveSpeedProfile
+{
+  private static final Logger LOG = LoggerFactory.getLogger(DriveSpeedProfile.class);
+
+  // weight of the latest round
+  private static final double SMOOTHING = 0.3;
+  // assumed speed of drives without profile, if no drive was measured yet (100MB/s)
+  private static final double DEFAULT_BYTES_PER_MS = 100 * 1000;
+  // read requests are sized to take about this time
+  private static final long READ_REQUEST_TIME = 50;
+  private static final long MIN_READ_REQUEST_NONCES = 4096;
+  // drives finished close together are written at once (ms)
+  private static final long WRITE_DELAY = 10000;
+
+  private final ObjectMapper objectMapper;
+  // serializes writes of timer and shutdown
+  private final Object fileLock = new Object();
+
+  private File file;
+  private Map<String, DriveSpeed> driveSpeeds;
+  private Timer timer;
+  private boolean writeScheduled;
+
+  @Autowired
+  public DriveSpeedProfile(ObjectMapper objectMapper)
+  {
+    this.objectMapper = objectMapper;
+  }
+
+  @PostConstruct
+  protected void postConstruct()
+  {
+    driveSpeeds = new HashMap<>();
+    String path = CoreProperties.getDriveSpeedProfile();
+    if(!"disabled".equals(path))
+    {
+      file = new File(path);
+      if(file.exists())
+      {
+        try
+        {
+          driveSpeeds.putAll(objectMapper.readValue(file, new TypeReference<Map<String, DriveSpeed>>() {}));
+        }
+        catch(IOException e)
+        {
+          LOG.warn("Could not read drive speed profile '" + path + "', starting with empty one: " + e.getMessage());
+        }
+      }
+      timer = new Timer("drive-speed-profile", true);
+    }
+  }
+
+  @PreDestroy
+  public void flush()
+  {
+    Timer cancelled;
+    synchronized(this)
+    {
+      cancelled = timer;
+      timer = null;
+    }
+    if(cancelled != null)
+    {
+      cancelled.cancel();
+      write();
+    }
+  }
+
+  /* predicted time to read the scoops of a drive (ms), -1 if not measured yet */
+  public synchronized long getPredictedTime(PlotDrive plotDrive)
+  {
+    DriveSpeed driveSpeed = driveSpeeds.get(plotDrive.getDirectory());
+    return driveSpeed != null ? (long) (plotDrive.getReadPlan().getSize() / driveSpeed.getBytesPerMs()) : -1;
+  }
+
+  /* measured speed, drives without profile are expected as slow as the slowest known one */
+  public synchronized double getBytesPerMs(PlotDrive plotDrive)
+  {
+    DriveSpeed driveSpeed = driveSpeeds.get(plotDrive.getDirectory());
+    if(driveSpeed != null)
+    {
+      return driveSpeed.getBytesPerMs();
+    }
+    double slowest = -1;
+    for(DriveSpeed known : driveSpeeds.values())
+    {
+      slowest = slowest < 0 ? known.getBytesPerMs() : Math.min(slowest, known.getBytesPerMs());
+    }
+    return slowest > 0 ? slowest : DEFAULT_BYTES_PER_MS;
+  }
+
+  /* requests of slow drives get smaller, so a request takes about the same time on every drive */
+  public synchronized long getReadRequestNonces(PlotDrive plotDrive)
+  {
+    long readRequestNonces = CoreProperties.getReadRequestNonces(plotDrive.getDirectory());
+    DriveSpeed driveSpeed = driveSpeeds.get(plotDrive.getDirectory());
+    if(driveSpeed == null)
+    {
+      return readRequestNonces;
+    }
+    // power of two, to not recompile read plans on small changes
+    long nonces = Long.highestOneBit((long) (driveSpeed.getBytesPerMs() * READ_REQUEST_TIME / 64));
+    return Math.min(readRequestNonces, Math.max(MIN_READ_REQUEST_NONCES, nonces));
+  }
+
+  /* records a finished drive, readTime without waiting for a reader thread */
+  public synchronized void record(PlotDrive plotDrive, long size, long readTime, long time)
+  {
+    if(size <= 0 || readTime <= 0)
+    {
+      return;
+    }
+    double bytesPerMs = (double) size / readTime;
+    DriveSpeed driveSpeed = driveSpeeds.get(plotDrive.getDirectory());
+    if(driveSpeed == null)
+    {
+      driveSpeed = new DriveSpeed();
+      driveSpeed.setBytesPerMs(bytesPerMs);
+      driveSpeed.setTime(time);
+      driveSpeeds.put(plotDrive.getDirectory(), driveSpeed);
+    }
+    else
+    {
+      driveSpeed.setBytesPerMs(SMOOTHING * bytesPerMs + (1 - SMOOTHING) * driveSpeed.getBytesPerMs());
+      driveSpeed.setTime((long) (SMOOTHING * time + (1 - SMOOTHING) * driveSpeed.getTime()));
+    }
+    driveSpeed.setRounds(driveSpeed.getRounds() + 1);
+
+    // file io not on reader threads and not while holding the lock
+    if(timer != null && !writeScheduled)
+    {
+      writeScheduled = true;
+      timer.schedule(new TimerTask()
+      {
+        @Override
+        public void run()
+        {
+          write();
+        }
+      }, WRITE_DELAY);
+    }
+  }
+
+  /* copies profile under lock, writes the copy outside of it */
+  private void write()
+  {
+    synchronized(fileLock)
+    {
+      JsonNode snapshot;
+      synchronized(this)
+      {
+        if(!writeScheduled)
+        {
+          return;
+        }
+        writeScheduled = false;
+        snapshot = objectMapper.valueToTree(driveSpeeds);
+      }
+      try
+      {
+        objectMapper.writeValue(file, snapshot);
+      }
+      catch(IOException e)
+      {
+        LOG.warn("Could not write drive speed profile '" + file + "': " + e.getMessage());
+      }
+    }
+  }
+
+  public static class DriveSpeed
+  {
+    // scoop bytes read per ms
+    private double bytesPerMs;
+    // ms from new round until drive finished
+    private long time;
+    private long rounds;
+
+    public double getBytesPerMs()
+    {
+      return bytesPerMs;
+    }
+
+    public void setBytesPerMs(double bytesPerMs)
+    {
+      this.bytesPerMs = bytesPerMs;
+    }
+
+    public long getTime()
+    {
+      return time;
+    }
+
+    public void setTime(long time)
+    {
+      this.time = time;
+    }
+
+    public long getRounds()
+    {
+      return rounds;
+    }
+
+    public void setRounds(long rounds)
+    {
+      this.rounds = rounds;
+    }
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.reader.data.PlotDrive;
+import burstcoin.jminer.core.reader.data.PlotFile;
+import burstcoin.jminer.core.reader.data.ReadMode;
+import burstcoin.jminer.core.reader.data.ReadPlan;
+import burstcoin.jminer.core.reader.data.ReadPlanCursor;
+import burstcoin.jminer.core.reader.event.ReaderDriveAbandonedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Detects drives with a read hanging for longer than 'driveStallTimeout', e.g. failing disks or an USB reset.
+ *
+ * A stalled drive is abandoned for the round, so the round finishes without its remaining chunk parts.
+ * It is skipped in following rounds, until a probe read in background succeeds again.
+ */
+@Component
+@Scope("singleton")
+public class DriveWatchdog
+{
+  private static final Logger LOG = LoggerFactory.getLogger(DriveWatchdog.class);
+
+  private static final long CHECK_INTERVAL = 1000;
+  private static final int PROBE_BYTES = 64 * 1024;
+
+  private final ApplicationEventPublisher publisher;
+
+  // ms, 0 if disabled
+  private long stallTimeout;
+  private Timer timer;
+
+  // drives read in current round and those still reading from previous rounds
+  private final Map<ReadPlanCursor, Watch> watches;
+  // drives skipped until probe succeeds, by plotPath
+  private final Map<String, Quarantine> quarantines;
+
+  @Autowired
+  public DriveWatchdog(ApplicationEventPublisher publisher)
+  {
+    this.publisher = publisher;
+    watches = new ConcurrentHashMap<>();
+    quarantines = new ConcurrentHashMap<>();
+  }
+
+  @PostConstruct
+  protected void postConstruct()
+  {
+    stallTimeout = CoreProperties.getDriveStallTimeout() * 1000L;
+    if(stallTimeout > 0)
+    {
+      timer = new Timer("drive-watchdog", true);
+      timer.schedule(new TimerTask()
+      {
+        @Override
+        public void run()
+        {
+          check();
+        }
+      }, CHECK_INTERVAL, CHECK_INTERVAL);
+    }
+  }
+
+  /* forget drives of previous round, unless a read is still waiting */
+  public void startRound()
+  {
+    watches.values().removeIf(watch -> !watch.readPlanCursor.isReading());
+  }
+
+  public void watch(long blockNumber, byte[] generationSignature, PlotDrive plotDrive, ReadPlanCursor readPlanCursor)
+  {
+    if(stallTimeout > 0)
+    {
+      watches.put(readPlanCursor, new Watch(blockNumber, generationSignature, plotDrive, readPlanCursor));
+    }
+  }
+
+  public boolean isQuarantined(PlotDrive plotDrive)
+  {
+    return quarantines.containsKey(plotDrive.getDirectory());
+  }
+
+  /* chunk parts of the drive, finished without reading if drive is abandoned */
+  public static int[] getChunkPartIds(PlotDrive plotDrive)
+  {
+    ReadPlan readPlan = plotDrive.getReadPlan();
+    int[] chunkPartIds = new int[readPlan.getNumberOfEntries()];
+    for(int entry = 0; entry < chunkPartIds.length; entry++)
+    {
+      chunkPartIds[entry] = readPlan.getChunkPartId(entry);
+    }
+    return chunkPartIds;
+  }
+
+  private void check()
+  {
+    for(Watch watch : watches.values())
+    {
+      // events of previous rounds only release the blocked reader threads
+      if(watch.readPlanCursor.isStalled(stallTimeout) && watch.readPlanCursor.abandon())
+      {
+        String directory = watch.plotDrive.getDirectory();
+        LOG.warn("'" + directory + "' did not respond for '" + stallTimeout / 1000 + "s', skipped until it responds again.");
+        quarantines.putIfAbsent(directory, new Quarantine(watch.plotDrive));
+        publisher.publishEvent(new ReaderDriveAbandonedEvent(watch.blockNumber, watch.generationSignature, directory,
+                                                             getChunkPartIds(watch.plotDrive), watch.readPlanCursor));
+      }
+    }
+
+    long now = System.currentTimeMillis();
+    for(Quarantine quarantine : quarantines.values())
+    {
+      if(!quarantine.probing && now - quarantine.lastProbeTime >= stallTimeout)
+      {
+        quarantine.probing = true;
+        Thread thread = new Thread(() -> probe(quarantine), "drive-probe");
+        thread.setDaemon(true);
+        thread.start();
+      }
+    }
+  }
+
+  /* reads a few bytes bypassing page cache, a probe hanging again blocks only its own thread */
+  private void probe(Quarantine quarantine)
+  {
+    String directory = quarantine.plotDrive.getDirectory();
+    List<PlotFile> plotFiles = new ArrayList<>(quarantine.plotDrive.getPlotFiles());
+    PlotFile plotFile = plotFiles.get(ThreadLocalRandom.current().nextInt(plotFiles.size()));
+    long startTime = System.currentTimeMillis();
+    try(PlotFileHandle handle = new PlotFileHandle(plotFile.getFilePath(), ReadMode.DIRECT))
+    {
+      long size = plotFile.getFilePath().toFile().length();
+      handle.seek(size > PROBE_BYTES ? ThreadLocalRandom.current().nextLong(size - PROBE_BYTES) : 0);
+      handle.read(new byte[PROBE_BYTES], 0, (int) Math.min(size, PROBE_BYTES));
+
+      long time = System.currentTimeMillis() - startTime;
+      if(time < stallTimeout)
+      {
+        quarantines.remove(directory);
+        LOG.info("'" + directory + "' responds again (probe took '" + time + "ms'), reading it from next round.");
+      }
+      else
+      {
+        LOG.debug("probe of '" + directory + "' took '" + time + "ms', still skipped.");
+      }
+    }
+    catch(IOException e)
+    {
+      LOG.debug("probe of '" + directory + "' failed: " + e.getMessage());
+    }
+    finally
+    {
+      quarantine.lastProbeTime = System.currentTimeMillis();
+      quarantine.probing = false;
+    }
+  }
+
+  private static class Watch
+  {
+    private final long blockNumber;
+    private final byte[] generationSignature;
+    private final PlotDrive plotDrive;
+    private final ReadPlanCursor readPlanCursor;
+
+    Watch(long blockNumber, byte[] generationSignature, PlotDrive plotDrive, ReadPlanCursor readPlanCursor)
+    {
+      this.blockNumber = blockNumber;
+      this.generationSignature = generationSignature;
+      this.plotDrive = plotDrive;
+      this.readPlanCursor = readPlanCursor;
+    }
+  }
+
+  private static class Quarantine
+  {
+    private final PlotDrive plotDrive;
+    private volatile boolean probing;
+    private volatile long lastProbeTime;
+
+    Quarantine(PlotDrive plotDrive)
+    {
+      this.plotDrive = plotDrive;
+      lastProbeTime = System.currentTimeMillis();
+    }
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import com.sun.jna.LastErrorException;
+import com.sun.jna.Memory;
+import com.sun.jna.NativeLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Physical layout of files.
+ *
+ * On Linux the extents of a file are queried with the FIEMAP ioctl, file systems without FIEMAP support (and other systems)
+ * fall back to the inode number, that roughly follows the order files were created in.
+ */
+public final class FileExtents
+{
+  private static final Logger LOG = LoggerFactory.getLogger(FileExtents.class);
+
+  // _IOWR('f', 11, struct fiemap)
+  private static final long FS_IOC_FIEMAP = 0xC020660BL;
+
+  // struct fiemap: u64 fm_start, u64 fm_length, u32 fm_flags, u32 fm_mapped_extents, u32 fm_extent_count, u32 fm_reserved
+  private static final int FIEMAP_SIZE = 32;
+  private static final int FM_LENGTH = 8;
+  private static final int FM_MAPPED_EXTENTS = 20;
+  private static final int FM_EXTENT_COUNT = 24;
+  // struct fiemap_extent: u64 fe_logical, u64 fe_physical, u64 fe_length, u64 fe_reserved64[2], u32 fe_flags, u32 fe_reserved[3]
+  private static final int FIEMAP_EXTENT_SIZE = 56;
+  private static final int FE_PHYSICAL = 8;
+  private static final int FE_LENGTH = 16;
+  private static final int FE_FLAGS = 40;
+  // data not written to disk yet, e.g. plot-file still plotting
+  private static final int FIEMAP_EXTENT_UNKNOWN = 0x2;
+
+  // plot-files are large, but not that fragmented
+  private static final int MAX_EXTENTS = 1 << 16;
+
+  private FileExtents()
+  {
+  }
+
+  /**
+   * Gets extents of a file as triples of logical offset, physical offset and length.
+   *
+   * @param path the file
+   * @return the extents, null if not supported
+   */
+  public static long[] getExtents(Path path)
+  {
+    LibC.CLibrary c = LibC.get();
+    if(c == null)
+    {
+      return null;
+    }
+
+    int fd = -1;
+    try
+    {
+      fd = c.open(path.toString(), LibC.O_RDONLY);
+      // first call only counts the extents
+      int numberOfExtents = fiemap(c, fd, 0, null);
+      Memory fiemap = new Memory(FIEMAP_SIZE + (long) numberOfExtents * FIEMAP_EXTENT_SIZE);
+      numberOfExtents = fiemap(c, fd, numberOfExtents, fiemap);
+
+      long[] extents = new long[numberOfExtents * 3];
+      for(int i = 0; i < numberOfExtents; i++)
+      {
+        long extent = FIEMAP_SIZE + (long) i * FIEMAP_EXTENT_SIZE;
+        if((fiemap.getInt(extent + FE_FLAGS) & FIEMAP_EXTENT_UNKNOWN) != 0)
+        {
+          return null;
+        }
+        extents[i * 3] = fiemap.getLong(extent);
+        extents[i * 3 + 1] = fiemap.getLong(extent + FE_PHYSICAL);
+        extents[i * 3 + 2] = fiemap.getLong(extent + FE_LENGTH);
+      }
+      return extents;
+    }
+    catch(LastErrorException e)
+    {
+      // e.g. EOPNOTSUPP on network and fuse file systems
+      LOG.debug("FIEMAP failed for '" + path + "', errno '" + e.getErrorCode() + "'.");
+      return null;
+    }
+    finally
+    {
+      if(fd >= 0)
+      {
+        try
+        {
+          c.close(fd);
+        }
+        catch(LastErrorException e)
+        {
+          LOG.trace("close failed: " + e.getErrorCode());
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets inode number of a file, used to order files if their extents are unknown.
+   *
+   * @param path the file
+   * @return the inode, -1 if not supported
+   */
+  public static long getInode(Path path)
+  {
+    try
+    {
+      Object inode = Files.getAttribute(path, "unix:ino");
+      return inode instanceof Number ? ((Number) inode).longValue() : -1;
+    }
+    catch(IOException | UnsupportedOperationException | IllegalArgumentException e)
+    {
+      return -1;
+    }
+  }
+
+  /* returns number of mapped extents, fiemap null just counts them */
+  private static int fiemap(LibC.CLibrary c, int fd, int extentCount, Memory fiemap)
+  {
+    Memory request = fiemap != null ? fiemap : new Memory(FIEMAP_SIZE);
+    request.clear(FIEMAP_SIZE);
+    request.setLong(FM_LENGTH, -1L);
+    request.setInt(FM_EXTENT_COUNT, extentCount);
+    c.ioctl(fd, new NativeLong(FS_IOC_FIEMAP), request);
+    return Math.min(MAX_EXTENTS, request.getInt(FM_MAPPED_EXTENTS));
+  }
+}
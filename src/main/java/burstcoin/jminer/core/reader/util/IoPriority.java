@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import com.sun.jna.LastErrorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Linux io priority (ioprio_set) of reader threads, honored by the 'bfq' and 'cfq' io schedulers.
+ */
+public final class IoPriority
+{
+  private static final Logger LOG = LoggerFactory.getLogger(IoPriority.class);
+
+  // priority derived from cpu nice value, linux default
+  public static final int NONE = 0;
+
+  private static final int IOPRIO_CLASS_SHIFT = 13;
+  private static final int IOPRIO_WHO_PROCESS = 1;
+  private static final String[] CLASSES = {"none", "realtime", "best-effort", "idle"};
+
+  // priority set on reader thread, threads are reused for all drives
+  private static final ThreadLocal<int[]> CURRENT = ThreadLocal.withInitial(() -> new int[]{NONE});
+  private static volatile boolean unsupported;
+  // priorities the kernel refused, logged once each
+  private static final Set<Integer> REFUSED = ConcurrentHashMap.newKeySet();
+
+  private IoPriority()
+  {
+  }
+
+  /**
+   * Parses 'realtime', 'best-effort' or 'idle' with optional level 0 (highest) to 7, e.g. 'best-effort:7'.
+   *
+   * @param value the priority
+   * @return the encoded io priority
+   * @throws IllegalArgumentException if value is invalid
+   */
+  public static int parse(String value)
+  {
+    String[] priority = value.trim().toLowerCase().split(":");
+    for(int ioClass = 1; ioClass < CLASSES.length; ioClass++)
+    {
+      if(CLASSES[ioClass].equals(priority[0].trim()))
+      {
+        // level is ignored for idle class
+        int level = priority.length > 1 ? Integer.parseInt(priority[1].trim()) : 4;
+        if(priority.length > 2 || level < 0 || level > 7)
+        {
+          break;
+        }
+        return ioClass << IOPRIO_CLASS_SHIFT | level;
+      }
+    }
+    throw new IllegalArgumentException("invalid io priority '" + value + "'");
+  }
+
+  public static String toString(int ioPriority)
+  {
+    int ioClass = ioPriority >> IOPRIO_CLASS_SHIFT;
+    // idle class has no levels
+    return ioClass == 0 || ioClass == 3 ? CLASSES[ioClass] : CLASSES[ioClass] + ":" + (ioPriority & ((1 << IOPRIO_CLASS_SHIFT) - 1));
+  }
+
+  /* true if ioprio_set is available, it may still refuse a priority */
+  public static boolean isSupported()
+  {
+    return LibC.get() != null && LibC.SYS_IOPRIO_SET >= 0;
+  }
+
+  /**
+   * Sets io priority of the calling thread, if it differs from the one set before.
+   *
+   * @param ioPriority encoded io priority, NONE to reset
+   */
+  public static void apply(int ioPriority)
+  {
+    int[] current = CURRENT.get();
+    if(current[0] == ioPriority || unsupported)
+    {
+      return;
+    }
+
+    if(!isSupported())
+    {
+      LOG.warn("'ioPriority' is not supported on this system.");
+      unsupported = true;
+      return;
+    }
+    try
+    {
+      // which '0' is the calling thread
+      LibC.get().syscall(LibC.SYS_IOPRIO_SET, IOPRIO_WHO_PROCESS, 0, ioPriority);
+      current[0] = ioPriority;
+    }
+    catch(LastErrorException e)
+    {
+      // realtime class needs CAP_SYS_ADMIN, other priorities may still work
+      if(REFUSED.add(ioPriority))
+      {
+        LOG.warn("Could not set io priority '" + toString(ioPriority) + "' (errno " + e.getErrorCode() + ").");
+      }
+    }
+  }
+
+  /* priority set on the calling thread */
+  static int getCurrent()
+  {
+    return CURRENT.get()[0];
+  }
+}
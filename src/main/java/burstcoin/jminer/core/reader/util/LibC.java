@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import com.sun.jna.LastErrorException;
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Linux libc functions not available in java, loaded on first use (64bit only, as off_t is mapped to long).
+ */
+final class LibC
+{
+  private static final Logger LOG = LoggerFactory.getLogger(LibC.class);
+
+  static final int O_RDONLY = 0;
+  static final int O_DIRECT = getODirect();
+  static final int POSIX_FADV_WILLNEED = 3;
+  static final int POSIX_FADV_DONTNEED = 4;
+  static final int EINTR = 4;
+  static final int EINVAL = 22;
+  // syscall number of ioprio_set, -1 if unknown for this architecture
+  static final int SYS_IOPRIO_SET = getIoprioSet();
+
+  private static CLibrary instance;
+  private static boolean unavailable = !Platform.isLinux() || !Platform.is64Bit();
+
+  private LibC()
+  {
+  }
+
+  interface CLibrary
+    extends Library
+  {
+    int open(String path, int flags)
+      throws LastErrorException;
+
+    int close(int fd)
+      throws LastErrorException;
+
+    int ioctl(int fd, NativeLong request, Pointer argp)
+      throws LastErrorException;
+
+    // returns error number instead of setting errno
+    int posix_fadvise(int fd, long offset, long length, int advice);
+
+    // positional read, does not change the file offset, so it can be used by several threads on one descriptor
+    long pread(int fd, Pointer buffer, long count, long offset)
+      throws LastErrorException;
+
+    // for calls without libc wrapper, like ioprio_set
+    int syscall(int number, Object... args)
+      throws LastErrorException;
+  }
+
+  private static int getIoprioSet()
+  {
+    String arch = Platform.ARCH;
+    if(arch.equals("x86-64"))
+    {
+      return 251;
+    }
+    if(arch.startsWith("aarch64"))
+    {
+      return 30;
+    }
+    if(arch.startsWith("ppc64"))
+    {
+      return 273;
+    }
+    return -1;
+  }
+
+  /* O_DIRECT differs between architectures */
+  private static int getODirect()
+  {
+    String arch = Platform.ARCH;
+    if(arch.startsWith("arm") || arch.startsWith("aarch64"))
+    {
+      return 0x10000;
+    }
+    if(arch.startsWith("ppc"))
+    {
+      return 0x20000;
+    }
+    if(arch.startsWith("mips"))
+    {
+      return 0x8000;
+    }
+    return 0x4000;
+  }
+
+  /* null if not supported on this system */
+  static synchronized CLibrary get()
+  {
+    if(instance == null && !unavailable)
+    {
+      try
+      {
+        instance = Native.loadLibrary("c", CLibrary.class);
+      }
+      catch(UnsatisfiedLinkError e)
+      {
+        LOG.debug("libc not available: " + e.getMessage());
+        unavailable = true;
+      }
+    }
+    return instance;
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package burstcoin.jminer.core.reader.util;
+
+import burstcoin.jminer.core.reader.data.ReadMode;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A plot-file opened for reading in one of the read modes.
+ *
+ * On Linux the page cache keeps being filled by the plots recently read,
+ * so direct io (O_DIRECT, see DirectFile) is used by default in this case. Other platforms read buffered instead.
+ */
+public class PlotFileHandle
+  implements Closeable
+{
+  // plot-files are mapped in windows, a single mapping is limited to 2GB
+  private static final int MAP_WINDOW_SHIFT = 30;
+  private static final long MAP_WINDOW_SIZE = 1L << MAP_WINDOW_SHIFT;
+
+  private final Path path;
+  private final ReadMode readMode;
+  private DirectFile df;
+  // direct only, for reads without buffer of the caller
+  private AlignedBuffer alignedBuffer;
+  private RandomAccessFile ra;
+  private FileChannel channel;
+
+  // mmap only, windows are mapped on first read
+  private MappedByteBuffer[] windows;
+  private long size;
+  // direct and mmap read positional
+  private long position;
+
+  public PlotFileHandle(Path path, ReadMode readMode)
+    throws IOException
+  {
+    this.path = path;
+    this.readMode = getSupportedReadMode(readMode);
+    switch(this.readMode)
+    {
+      case DIRECT:
+        df = new DirectFile(path);
+        break;
+      case MMAP:
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+        windows = new MappedByteBuffer[(int) ((size + MAP_WINDOW_SIZE - 1) >> MAP_WINDOW_SHIFT)];
+        break;
+      default:
+        ra = new RandomAccessFile(path.toFile(), "r");
+    }
+  }
+
+  /* direct io falls back to buffered on platforms other than linux */
+  public static ReadMode getSupportedReadMode(ReadMode readMode)
+  {
+    return readMode == ReadMode.DIRECT && LibC.get() == null ? ReadMode.BUFFERED : readMode;
+  }
+
+  public Path getPath()
+  {
+    return path;
+  }
+
+  /* mode the file was opened with, buffered if direct io is not supported */
+  public ReadMode getReadMode()
+  {
+    return readMode;
+  }
+
+  public void seek(long position)
+    throws IOException
+  {
+    if(ra != null)
+    {
+      ra.seek(position);
+    }
+    this.position = position;
+  }
+
+  public void read(byte[] buffer, int offset, int length)
+    throws IOException
+  {
+    if(df != null && alignedBuffer == null)
+    {
+      alignedBuffer = new AlignedBuffer();
+    }
+    read(buffer, offset, length, alignedBuffer);
+  }
+
+  /* direct io reads into the aligned buffer of the caller, other modes do not use it */
+  public void read(byte[] buffer, int offset, int length, AlignedBuffer alignedBuffer)
+    throws IOException
+  {
+    if(df != null)
+    {
+      df.read(position, buffer, offset, length, alignedBuffer);
+      position += length;
+    }
+    if(ra != null)
+    {
+      ra.readFully(buffer, offset, length);
+    }
+    if(channel != null)
+    {
+      readMapped(buffer, offset, length);
+    }
+  }
+
+  private void readMapped(byte[] buffer, int offset, int length)
+    throws IOException
+  {
+    if(position + length > size)
+    {
+      throw new EOFException("read beyond end of " + path);
+    }
+    while(length > 0)
+    {
+      int window = (int) (position >> MAP_WINDOW_SHIFT);
+      if(windows[window] == null)
+      {
+        long windowStart = (long) window << MAP_WINDOW_SHIFT;
+        windows[window] = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(MAP_WINDOW_SIZE, size - windowStart));
+      }
+      // handle is used by one reader at a time, so absolute positioning of the shared window is fine
+      MappedByteBuffer mapped = windows[window];
+      int windowOffset = (int) (position & (MAP_WINDOW_SIZE - 1));
+      int bytes = Math.min(length, mapped.capacity() - windowOffset);
+      mapped.position(windowOffset);
+      mapped.get(buffer, offset, bytes);
+      position += bytes;
+      offset += bytes;
+      length -= bytes;
+    }
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    if(df != null)
+    {
+      df.close();
+    }
+    if(ra != null)
+    {
+      ra.close();
+    }
+    if(channel != null)
+    {
+      // mappings are released by gc
+      windows = null;
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+
+package burstcoin.jminer.core.reader.util;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.reader.data.PlotDrive;
+import burstcoin.jminer.core.reader.data.PlotFile;
+import burstcoin.jminer.core.reader.data.Plots;
+import burstcoin.jminer.core.reader.data.ReadMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps plot-files open between rounds.
+ *
+ * Handles are acquired exclusive by one reader and released afterwards, only released (idle) handles are cached.
+ * Least recently used ones get closed, if more than 'maxOpenPlotFiles' are idle.
+ */
+@Component
+@Scope("singleton")
+public class PlotFileHandleCache
+{
+  private static final Logger LOG = LoggerFactory.getLogger(PlotFileHandleCache.class);
+
+  private int maxOpenPlotFiles;
+
+  // access ordered
+  private LinkedHashMap<Path, PlotFileHandle> idleHandles;
+
+  // paths of current plot catalog, null if not known yet
+  private Set<Path> catalogPaths;
+
+  @PostConstruct
+  protected void postConstruct()
+  {
+    maxOpenPlotFiles = CoreProperties.getMaxOpenPlotFiles();
+    idleHandles = new LinkedHashMap<Path, PlotFileHandle>(16, 0.75f, true)
+    {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Path, PlotFileHandle> eldest)
+      {
+        if(size() > maxOpenPlotFiles)
+        {
+          closeQuietly(eldest.getValue());
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Gets an open handle for exclusive use, has to be released or discarded afterwards.
+   *
+   * @param path the plot-file path
+   * @param readMode the read mode, an idle handle of another mode gets reopened
+   * @return the handle
+   * @throws IOException if file could not be opened
+   */
+  public PlotFileHandle acquire(Path path, ReadMode readMode)
+    throws IOException
+  {
+    PlotFileHandle handle;
+    synchronized(this)
+    {
+      handle = idleHandles.remove(path);
+    }
+    if(handle != null && handle.getReadMode() != PlotFileHandle.getSupportedReadMode(readMode))
+    {
+      closeQuietly(handle);
+      handle = null;
+    }
+    return handle != null ? handle : new PlotFileHandle(path, readMode);
+  }
+
+  /* keep handle open for next round, if it still belongs to plot catalog */
+  public void release(PlotFileHandle handle)
+  {
+    synchronized(this)
+    {
+      if(maxOpenPlotFiles > 0
+         && (catalogPaths == null || catalogPaths.contains(handle.getPath()))
+         && !idleHandles.containsKey(handle.getPath()))
+      {
+        idleHandles.put(handle.getPath(), handle);
+        return;
+      }
+    }
+    closeQuietly(handle);
+  }
+
+  /* close handle e.g. after read error, next acquire will reopen the file */
+  public void discard(PlotFileHandle handle)
+  {
+    closeQuietly(handle);
+  }
+
+  /**
+   * Closes idle handles of plot-files that are not part of the catalog anymore.
+   *
+   * @param plots the new plot catalog
+   */
+  public void retain(Plots plots)
+  {
+    Set<Path> paths = new HashSet<>();
+    for(PlotDrive plotDrive : plots.getPlotDrives())
+    {
+      for(PlotFile plotFile : plotDrive.getPlotFiles())
+      {
+        paths.add(plotFile.getFilePath());
+      }
+    }
+
+    synchronized(this)
+    {
+      if(catalogPaths == null && maxOpenPlotFiles > 0 && paths.size() > maxOpenPlotFiles)
+      {
+        LOG.info("'" + paths.size() + "' plot-files, but 'maxOpenPlotFiles=" + maxOpenPlotFiles + "', "
+                 + "consider to increase it, to keep all of them open between rounds.");
+      }
+      catalogPaths = paths;
+
+      Iterator<Map.Entry<Path, PlotFileHandle>> iterator = idleHandles.entrySet().iterator();
+      while(iterator.hasNext())
+      {
+        Map.Entry<Path, PlotFileHandle> entry = iterator.next();
+        if(!paths.contains(entry.getKey()))
+        {
+          closeQuietly(entry.getValue());
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  @PreDestroy
+  public synchronized void closeAll()
+  {
+    for(PlotFileHandle handle : idleHandles.values())
+    {
+      closeQuietly(handle);
+    }
+    idleHandles.clear();
+  }
+
+  private static void closeQuietly(PlotFileHandle handle)
+  {
+    try
+    {
+      handle.close();
+    }
+    catch(IOException e)
+    {
+      LOG.debug("could not close plot-file '" + handle.getPath() + "': " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,420 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.reader.data.PlotDrive;
+import burstcoin.jminer.core.reader.data.PlotFile;
+import burstcoin.jminer.core.reader.data.Plots;
+import burstcoin.jminer.core.reader.data.PocVersion;
+import burstcoin.jminer.core.reader.data.ReadMode;
+import burstcoin.jminer.core.reader.data.ReadPlanCursor;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import signumj.crypto.hash.shabal.Shabal256;
+import signumj.crypto.plot.impl.MiningPlot;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Verifies plot-files between rounds, by generating sampled nonces and comparing them with their scoops on disk.
+ *
+ * Runs only while no drive has anything left to read in current round, with idle io priority and limited to
+ * 'scrubBandwidth'. Plot-files with mismatching scoops, or with 'quarantineRejections' rejected deadlines in a row,
+ * are quarantined: they are left out of the read plan, persisted between restarts.
+ */
+@Component
+@Scope("singleton")
+public class PlotScrubber
+{
+  private static final Logger LOG = LoggerFactory.getLogger(PlotScrubber.class);
+
+  private static final long CHECK_INTERVAL = 1000;
+  // scoops compared per generated nonce, generating it costs more than reading some scoops
+  private static final int SCOOPS_PER_NONCE = 4;
+  // scoops are read with the sector around, direct io needs aligned reads
+  private static final int SECTOR_SIZE = 4096;
+  private static final double BYTES_PER_MB = 1024 * 1024;
+  // rejected nonces waiting for verification, further ones are dropped until scrubber catches up
+  private static final int MAX_REJECTED_NONCES = 64;
+  // quarantines of the same round are written at once (ms)
+  private static final long WRITE_DELAY = 1000;
+
+  private final ObjectMapper objectMapper;
+  private final BadRegionMap badRegionMap;
+  // serializes writes of timer and shutdown
+  private final Object fileLock = new Object();
+
+  private File file;
+  private Timer timer;
+  private boolean writeScheduled;
+  // reason by plot-file path
+  private Map<String, String> quarantine;
+  private final AtomicBoolean quarantineChanged;
+  // rejected deadlines in a row by plot-file path
+  private final Map<String, Integer> rejections;
+  // nonces of rejected deadlines, verified before random samples
+  private final Queue<Sample> rejectedNonces;
+
+  // plot-files and cursors of current round
+  private volatile List<PlotFile> plotFiles;
+  private final List<ReadPlanCursor> readPlanCursors;
+  private long samples;
+
+  @Autowired
+  public PlotScrubber(ObjectMapper objectMapper, BadRegionMap badRegionMap)
+  {
+    this.objectMapper = objectMapper;
+    this.badRegionMap = badRegionMap;
+    quarantineChanged = new AtomicBoolean();
+    rejections = new ConcurrentHashMap<>();
+    rejectedNonces = new LinkedBlockingQueue<>(MAX_REJECTED_NONCES);
+    plotFiles = new ArrayList<>();
+    readPlanCursors = new CopyOnWriteArrayList<>();
+  }
+
+  @PostConstruct
+  protected void postConstruct()
+  {
+    init(CoreProperties.getPlotQuarantine());
+
+    if(CoreProperties.getScrubBandwidth() > 0)
+    {
+      Thread thread = new Thread(this::scrub, "plot-scrubber");
+      thread.setDaemon(true);
+      // generating nonces should not slow down checking deadlines
+      thread.setPriority(Thread.MIN_PRIORITY);
+      thread.start();
+    }
+  }
+
+  void init(String path)
+  {
+    quarantine = new ConcurrentHashMap<>();
+    if(!"disabled".equals(path))
+    {
+      file = new File(path);
+      if(file.exists())
+      {
+        try
+        {
+          quarantine.putAll(objectMapper.readValue(file, new TypeReference<Map<String, String>>() {}));
+        }
+        catch(IOException e)
+        {
+          LOG.warn("Could not read plot quarantine '" + path + "', starting with empty one: " + e.getMessage());
+        }
+      }
+      timer = new Timer("plot-quarantine", true);
+    }
+    for(Map.Entry<String, String> entry : quarantine.entrySet())
+    {
+      LOG.warn("'" + entry.getKey() + "' is quarantined (" + entry.getValue() + "), it is not read.");
+    }
+  }
+
+  @PreDestroy
+  public void flush()
+  {
+    Timer cancelled;
+    synchronized(this)
+    {
+      cancelled = timer;
+      timer = null;
+    }
+    if(cancelled != null)
+    {
+      cancelled.cancel();
+      write();
+    }
+  }
+
+  /* plot-files of the round, scrubbing pauses until all drives are read */
+  public void startRound(Plots plots)
+  {
+    List<PlotFile> plotFiles = new ArrayList<>();
+    for(PlotDrive plotDrive : plots.getPlotDrives())
+    {
+      plotFiles.addAll(plotDrive.getPlotFiles());
+    }
+    // same order every round, so all files get their turn
+    plotFiles.sort(Comparator.comparing(plotFile -> plotFile.getFilePath().toString()));
+    readPlanCursors.clear();
+    this.plotFiles = plotFiles;
+  }
+
+  public void watch(ReadPlanCursor readPlanCursor)
+  {
+    readPlanCursors.add(readPlanCursor);
+  }
+
+  public boolean isQuarantined(Path filePath)
+  {
+    return quarantine.containsKey(filePath.toString());
+  }
+
+  /* true once after a plot-file got quarantined, plots have to be collected again */
+  public boolean takeQuarantineChanged()
+  {
+    return quarantineChanged.getAndSet(false);
+  }
+
+  /**
+   * Records a deadline of a plot-file the pool/wallet calculated differently, its nonce gets verified on next scrub.
+   *
+   * @param plotFile the plot-file
+   * @param nonce the nonce of the deadline
+   */
+  public void recordRejection(PlotFile plotFile, long nonce)
+  {
+    int rejected = rejections.merge(plotFile.getFilePath().toString(), 1, Integer::sum);
+    int quarantineRejections = CoreProperties.getQuarantineRejections();
+    if(quarantineRejections > 0 && rejected >= quarantineRejections)
+    {
+      quarantine(plotFile, "'" + rejected + "' deadlines in a row rejected");
+    }
+    else if(CoreProperties.getScrubBandwidth() > 0)
+    {
+      rejectedNonces.offer(new Sample(plotFile, nonce));
+    }
+  }
+
+  /* a confirmed deadline resets rejections of the plot-file */
+  public void recordConfirmation(PlotFile plotFile)
+  {
+    rejections.remove(plotFile.getFilePath().toString());
+  }
+
+  private void scrub()
+  {
+    // best effort, scrubbing is limited by 'scrubBandwidth' anyway
+    if(IoPriority.isSupported())
+    {
+      IoPriority.apply(IoPriority.parse("idle"));
+    }
+    while(true)
+    {
+      try
+      {
+        Thread.sleep(CHECK_INTERVAL);
+        while(!isBusy())
+        {
+          Sample sample = rejectedNonces.poll();
+          sample = sample != null ? sample : nextSample();
+          if(sample == null)
+          {
+            break;
+          }
+          verify(sample);
+        }
+      }
+      catch(InterruptedException e)
+      {
+        return;
+      }
+      catch(RuntimeException e)
+      {
+        LOG.warn("plot scrubber failed: " + e.getMessage(), e);
+      }
+    }
+  }
+
+  /* 'scrubNonces' random nonces of a plot-file, before the next plot-file */
+  private Sample nextSample()
+  {
+    List<PlotFile> plotFiles = this.plotFiles;
+    if(plotFiles.isEmpty())
+    {
+      return null;
+    }
+    PlotFile plotFile = plotFiles.get((int) (samples++ / CoreProperties.getScrubNonces() % plotFiles.size()));
+    return new Sample(plotFile, plotFile.getStartnonce() + ThreadLocalRandom.current().nextLong(plotFile.getPlots()));
+  }
+
+  private void verify(Sample sample)
+    throws InterruptedException
+  {
+    PlotFile plotFile = sample.plotFile;
+    if(isQuarantined(plotFile.getFilePath()))
+    {
+      return;
+    }
+    MiningPlot plot = new MiningPlot(Shabal256::new, plotFile.getAddress(), sample.nonce, PocVersion.POC_2.equals(plotFile.getPocVersion()) ? 2 : 1);
+    List<BadRegionMap.BadRegion> badRegions = badRegionMap.get(plotFile.getFilePath());
+    byte[] sector = new byte[SECTOR_SIZE];
+    try(PlotFileHandle handle = new PlotFileHandle(plotFile.getFilePath(), ReadMode.DIRECT))
+    {
+      for(int i = 0; i < SCOOPS_PER_NONCE && !isBusy(); i++)
+      {
+        int scoop = ThreadLocalRandom.current().nextInt(MiningPlot.SCOOPS_PER_PLOT);
+        long offset = getScoopOffset(plotFile, sample.nonce, scoop);
+        long sectorOffset = offset / SECTOR_SIZE * SECTOR_SIZE;
+        if(badRegions != null && BadRegionMap.intersects(badRegions, sectorOffset, SECTOR_SIZE))
+        {
+          continue;
+        }
+        byte[] expected = plot.getScoop(scoop);
+        // read again on mismatch, to not quarantine on a flaky transfer
+        if(!matches(handle, sectorOffset, sector, (int) (offset - sectorOffset), expected)
+           && !matches(handle, sectorOffset, sector, (int) (offset - sectorOffset), expected))
+        {
+          quarantine(plotFile, "nonce '" + sample.nonce + "' scoop '" + scoop + "' does not match");
+          return;
+        }
+      }
+      LOG.trace("scrubbed nonce '" + sample.nonce + "' of '" + plotFile.getFilePath() + "'");
+    }
+    catch(IOException e)
+    {
+      // unreadable sectors are found and skipped by reader
+      LOG.debug("scrub of '" + plotFile.getFilePath() + "' failed: " + e.getMessage());
+    }
+  }
+
+  private boolean matches(PlotFileHandle handle, long sectorOffset, byte[] sector, int scoopOffset, byte[] expected)
+    throws IOException, InterruptedException
+  {
+    long startTime = System.currentTimeMillis();
+    handle.seek(sectorOffset);
+    handle.read(sector, 0, SECTOR_SIZE);
+
+    // keep within bandwidth budget
+    long budgetTime = (long) (SECTOR_SIZE * 1000 / (CoreProperties.getScrubBandwidth() * BYTES_PER_MB));
+    Thread.sleep(Math.max(0, budgetTime - (System.currentTimeMillis() - startTime)));
+
+    for(int i = 0; i < MiningPlot.SCOOP_SIZE; i++)
+    {
+      if(sector[scoopOffset + i] != expected[i])
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /* poc2 plot-files have a single chunk */
+  private static long getScoopOffset(PlotFile plotFile, long nonce, int scoop)
+  {
+    long staggeramt = plotFile.getStaggeramt();
+    long chunkNumber = (nonce - plotFile.getStartnonce()) / staggeramt;
+    long chunkNonce = (nonce - plotFile.getStartnonce()) % staggeramt;
+    return chunkNumber * staggeramt * MiningPlot.PLOT_SIZE + scoop * staggeramt * MiningPlot.SCOOP_SIZE + chunkNonce * MiningPlot.SCOOP_SIZE;
+  }
+
+  private synchronized void quarantine(PlotFile plotFile, String reason)
+  {
+    if(quarantine.putIfAbsent(plotFile.getFilePath().toString(), reason) != null)
+    {
+      return;
+    }
+    LOG.error("plot-file '" + plotFile.getFilePath() + "' is corrupt (" + reason + "), quarantined and not read anymore.");
+    quarantineChanged.set(true);
+
+    // file io not on network and reader threads
+    if(timer != null && !writeScheduled)
+    {
+      writeScheduled = true;
+      timer.schedule(new TimerTask()
+      {
+        @Override
+        public void run()
+        {
+          write();
+        }
+      }, WRITE_DELAY);
+    }
+  }
+
+  /* copies quarantine under lock, writes the copy outside of it */
+  private void write()
+  {
+    synchronized(fileLock)
+    {
+      JsonNode snapshot;
+      synchronized(this)
+      {
+        if(!writeScheduled)
+        {
+          return;
+        }
+        writeScheduled = false;
+        snapshot = objectMapper.valueToTree(quarantine);
+      }
+      try
+      {
+        objectMapper.writeValue(file, snapshot);
+      }
+      catch(IOException e)
+      {
+        LOG.warn("Could not write plot quarantine '" + file + "': " + e.getMessage());
+      }
+    }
+  }
+
+  /* a drive is read or has requests left in current round */
+  private boolean isBusy()
+  {
+    for(ReadPlanCursor readPlanCursor : readPlanCursors)
+    {
+      if(readPlanCursor.isReading() || (readPlanCursor.getRemainingBytes() > 0 && !readPlanCursor.isInterrupted()))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static class Sample
+  {
+    private final PlotFile plotFile;
+    private final long nonce;
+
+    Sample(PlotFile plotFile, long nonce)
+    {
+      this.plotFile = plotFile;
+      this.nonce = nonce;
+    }
+  }
+}
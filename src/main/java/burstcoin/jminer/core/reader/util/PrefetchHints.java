@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import com.sun.jna.LastErrorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+
+/**
+ * Hints regions of plot-files, that will be read soon, to the kernel (posix_fadvise WILLNEED).
+ *
+ * The kernel reads them into the page cache in background, so the seek to the next file overlaps with reading the current one.
+ * Only useful for reads through the page cache, direct io does not use it.
+ */
+public final class PrefetchHints
+{
+  private static final Logger LOG = LoggerFactory.getLogger(PrefetchHints.class);
+
+  private PrefetchHints()
+  {
+  }
+
+  public static boolean isSupported()
+  {
+    return LibC.get() != null;
+  }
+
+  /**
+   * Hints regions of a file.
+   *
+   * @param path the file
+   * @param offsets start of the regions
+   * @param lengths length of the regions
+   * @param numberOfRegions number of regions to hint
+   * @return bytes hinted
+   */
+  public static long willNeed(Path path, long[] offsets, long[] lengths, int numberOfRegions)
+  {
+    LibC.CLibrary c = LibC.get();
+    if(c == null)
+    {
+      return 0;
+    }
+
+    long bytes = 0;
+    int fd = -1;
+    try
+    {
+      // advice is bound to the file, not to the descriptor, so it can be closed right away
+      fd = c.open(path.toString(), LibC.O_RDONLY);
+      for(int region = 0; region < numberOfRegions; region++)
+      {
+        if(c.posix_fadvise(fd, offsets[region], lengths[region], LibC.POSIX_FADV_WILLNEED) == 0)
+        {
+          bytes += lengths[region];
+        }
+      }
+    }
+    catch(LastErrorException e)
+    {
+      LOG.debug("prefetch of '" + path + "' failed, errno '" + e.getErrorCode() + "'.");
+    }
+    finally
+    {
+      if(fd >= 0)
+      {
+        try
+        {
+          c.close(fd);
+        }
+        catch(LastErrorException e)
+        {
+          LOG.trace("close failed: " + e.getErrorCode());
+        }
+      }
+    }
+    return bytes;
+  }
+}
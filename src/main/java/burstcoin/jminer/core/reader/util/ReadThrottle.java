@@ -0,0 +1,163 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import burstcoin.jminer.core.reader.data.CancellationToken;
+import burstcoin.jminer.core.reader.data.ReadPlanCursor;
+import burstcoin.jminer.core.reader.data.ReadWindow;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiting read bandwidth of a drive within one round, shared by all tasks of the drive.
+ * Bandwidth changes with the read windows of the time of day, a window can also pause the drive.
+ * Limit is lifted for the rest of the round, as soon as the drive could not finish before the deadline at full speed.
+ */
+public class ReadThrottle
+{
+  private static final double BYTES_PER_MB = 1024 * 1024;
+  // max. time waited at once, to notice new round, window changes and deadline
+  private static final long MAX_SLEEP = 100;
+
+  private final int bandwidth;
+  private final List<ReadWindow> readWindows;
+  private final ReadPlanCursor readPlanCursor;
+  private final CancellationToken cancellationToken;
+  // ms after new round
+  private final long deadline;
+
+  // bytes allowed to read, negative if requests were read ahead of the limit
+  private double tokens;
+  private long lastRefill;
+  private volatile boolean lifted;
+  private final AtomicLong waitTime;
+
+  /**
+   * @param bandwidth default bandwidth in MB/s, 0 for unlimited
+   * @param readWindows windows overriding the default bandwidth
+   * @param readPlanCursor cursor of the drive, to predict its remaining time
+   * @param cancellationToken token of the round
+   * @param deadline ms after new round, the drive should be read until
+   */
+  public ReadThrottle(int bandwidth, List<ReadWindow> readWindows, ReadPlanCursor readPlanCursor, CancellationToken cancellationToken, long deadline)
+  {
+    this.bandwidth = bandwidth;
+    this.readWindows = readWindows;
+    this.readPlanCursor = readPlanCursor;
+    this.cancellationToken = cancellationToken;
+    this.deadline = deadline;
+    lastRefill = System.nanoTime();
+    waitTime = new AtomicLong();
+  }
+
+  /**
+   * Waits until the bytes may be read, returns early if round gets cancelled.
+   *
+   * @param bytes size of the next read
+   */
+  public void acquire(long bytes)
+  {
+    double debt;
+    synchronized(this)
+    {
+      double bytesPerMs = getBytesPerMs();
+      refill(bytesPerMs);
+      tokens -= bytes;
+      debt = -tokens;
+    }
+
+    long startTime = System.currentTimeMillis();
+    while(debt > 0 && !isLifted() && !cancellationToken.isCancelled())
+    {
+      double bytesPerMs;
+      synchronized(this)
+      {
+        bytesPerMs = getBytesPerMs();
+        refill(bytesPerMs);
+        debt = -tokens;
+      }
+      if(debt > 0)
+      {
+        try
+        {
+          Thread.sleep(bytesPerMs > 0 ? Math.max(1, Math.min(MAX_SLEEP, (long) (debt / bytesPerMs))) : MAX_SLEEP);
+        }
+        catch(InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    }
+    waitTime.addAndGet(System.currentTimeMillis() - startTime);
+  }
+
+  /* ms tasks waited for bandwidth, summed over all tasks */
+  public long getWaitTime()
+  {
+    return waitTime.get();
+  }
+
+  private boolean isLifted()
+  {
+    if(!lifted && cancellationToken.getElapsedTime() + readPlanCursor.getRemainingTime() >= deadline)
+    {
+      lifted = true;
+    }
+    return lifted;
+  }
+
+  /* 0 if paused, infinity if unlimited */
+  private double getBytesPerMs()
+  {
+    if(!readWindows.isEmpty())
+    {
+      LocalTime now = LocalTime.now();
+      for(ReadWindow readWindow : readWindows)
+      {
+        if(readWindow.contains(now))
+        {
+          return readWindow.getBandwidth() * BYTES_PER_MB / 1000;
+        }
+      }
+    }
+    return bandwidth > 0 ? bandwidth * BYTES_PER_MB / 1000 : Double.POSITIVE_INFINITY;
+  }
+
+  /* bucket holds at most one second of bandwidth */
+  private void refill(double bytesPerMs)
+  {
+    long now = System.nanoTime();
+    if(Double.isInfinite(bytesPerMs))
+    {
+      tokens = 0;
+    }
+    else
+    {
+      tokens = Math.min(bytesPerMs * 1000, tokens + (now - lastRefill) / 1000000d * bytesPerMs);
+    }
+    lastRefill = now;
+  }
+}
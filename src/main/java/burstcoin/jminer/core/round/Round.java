@@ -25,6 +25,7 @@ package burstcoin.jminer.core.round;
 import burstcoin.jminer.core.CoreProperties;
 import burstcoin.jminer.core.checker.Checker;
 import burstcoin.jminer.core.checker.event.CheckerResultEvent;
+import burstcoin.jminer.core.checker.event.CheckerResultListener;
 import burstcoin.jminer.core.network.Network;
 import burstcoin.jminer.core.network.event.NetworkQualityChangeEvent;
 import burstcoin.jminer.core.network.event.NetworkResultConfirmedEvent;
@@ -32,6 +33,7 @@ import burstcoin.jminer.core.network.event.NetworkResultErrorEvent;
 import burstcoin.jminer.core.network.event.NetworkStateChangeEvent;
 import burstcoin.jminer.core.reader.Reader;
 import burstcoin.jminer.core.reader.data.Plots;
+import burstcoin.jminer.core.reader.event.ReaderDriveAbandonedEvent;
 import burstcoin.jminer.core.round.event.RoundFinishedEvent;
 import burstcoin.jminer.core.round.event.RoundGenSigAlreadyMinedEvent;
 import burstcoin.jminer.core.round.event.RoundGenSigUpdatedEvent;
@@ -54,7 +56,9 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.MathContext;
 import java.nio.ByteBuffer;
+import java.security.DigestException;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
@@ -67,6 +71,7 @@ import java.util.TimerTask;
 @Component
 @Scope("singleton")
 public class Round
+  implements CheckerResultListener
 {
   private static final Logger LOG = LoggerFactory.getLogger(Round.class);
 
@@ -84,14 +89,17 @@ public class Round
   private long baseTarget;
   private Date roundStartDate;
 
-  private BigInteger lowest;
+  // results are unsigned
+  private long lowest;
   private long bestCommittedDeadline;
 
   // cache for next lowest
   private CheckerResultEvent queuedEvent;
-  private BigInteger lowestCommitted;
+  private long lowestCommitted;
 
-  private Set<BigInteger> runningChunkPartStartNonces;
+  // by chunkPartId
+  private final BitSet runningChunkParts;
+  private int numberOfRunningChunkParts;
   private Plots plots;
   private byte[] generationSignature;
 
@@ -101,6 +109,10 @@ public class Round
   private long networkSuccessCount;
   private long networkFailCount;
 
+  // only used while holding reader lock
+  private final Shabal256 resultHasher;
+  private final byte[] resultHash;
+
   @Autowired
   public Round(Reader reader, Checker checker, Network network, ApplicationEventPublisher publisher)
   {
@@ -110,6 +122,9 @@ public class Round
     this.publisher = publisher;
 
     finishedLookup = new HashSet<>();
+    runningChunkParts = new BitSet();
+    resultHasher = new Shabal256();
+    resultHash = new byte[32];
   }
 
   @PostConstruct
@@ -123,10 +138,13 @@ public class Round
   {
     networkFailCount = 0;
     networkSuccessCount = 0;
-    runningChunkPartStartNonces = new HashSet<>(plots.getChunkPartStartNonces().keySet());
+    numberOfRunningChunkParts = plots.getChunkPartSizes().length;
+    runningChunkParts.clear();
+    runningChunkParts.set(0, numberOfRunningChunkParts);
     roundStartDate = new Date();
-    lowest = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF", 16);
-    lowestCommitted = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF", 16);
+    // max. unsigned
+    lowest = -1L;
+    lowestCommitted = -1L;
     queuedEvent = null;
     bestCommittedDeadline = Long.MAX_VALUE;
   }
@@ -193,63 +211,65 @@ public class Round
     }
   }
 
-  @EventListener
+  @Override
   public void handleMessage(CheckerResultEvent event)
   {
     synchronized(reader)
     {
       if(isCurrentRound(event.getBlockNumber(), event.getGenerationSignature()))
       {
-        BigInteger nonce = event.getChunkPartStartNonce().add(BigInteger.valueOf(event.getLowestNonce()));
-        BigInteger result = calculateResult(event.getScoops(), generationSignature, event.getLowestNonce());
+        long nonce = event.getChunkPartStartNonce() + event.getLowestNonce();
+        long result = calculateResult(event.getScoops(), event.getScoopsOffset(), generationSignature, event.getLowestNonce());
         event.setResult(result);
 
-        BigInteger deadline = result.divide(BigInteger.valueOf(baseTarget));
-        long calculatedDeadline = deadline.longValue();
+        long calculatedDeadline = Long.divideUnsigned(result, baseTarget);
 
-        if(result.compareTo(lowest) < 0)
+        if(Long.compareUnsigned(result, lowest) < 0)
         {
           lowest = result;
           if(calculatedDeadline < targetDeadline)
           {
-            network.commitResult(blockNumber, calculatedDeadline, nonce, event.getChunkPartStartNonce(), plots.getSize(), result, event.getPlotFilePath());
+            network.commitResult(blockNumber, calculatedDeadline, toBigInteger(nonce), event.getChunkPartId(), plots.getSize(), toBigInteger(result),
+                                 event.getPlotFilePath());
 
             // ui event
-            publisher.publishEvent(new RoundSingleResultEvent(event.getBlockNumber(), nonce, event.getChunkPartStartNonce(), calculatedDeadline,
-                                                              poolMining));
+            publisher.publishEvent(new RoundSingleResultEvent(event.getBlockNumber(), toBigInteger(nonce), toBigInteger(event.getChunkPartStartNonce()),
+                                                              calculatedDeadline, poolMining));
           }
           else
           {
             // ui event
             if(CoreProperties.isShowSkippedDeadlines())
             {
-              publisher.publishEvent(new RoundSingleResultSkippedEvent(event.getBlockNumber(), nonce, event.getChunkPartStartNonce(), calculatedDeadline,
+              publisher.publishEvent(new RoundSingleResultSkippedEvent(event.getBlockNumber(), toBigInteger(nonce),
+                                                                       toBigInteger(event.getChunkPartStartNonce()), calculatedDeadline,
                                                                        targetDeadline, poolMining));
             }
-            // chunkPartStartNonce finished
-            runningChunkPartStartNonces.remove(event.getChunkPartStartNonce());
+            // chunkPart finished
+            finishChunkPart(event.getChunkPartId());
             triggerFinishRoundEvent(event.getBlockNumber());
           }
         }
         // remember next lowest in case that lowest fails to commit
         else if(calculatedDeadline < targetDeadline
-                && result.compareTo(lowestCommitted) < 0
-                && (queuedEvent == null || result.compareTo(queuedEvent.getResult()) < 0))
+                && Long.compareUnsigned(result, lowestCommitted) < 0
+                && (queuedEvent == null || Long.compareUnsigned(result, queuedEvent.getResult()) < 0))
         {
           if(queuedEvent != null)
           {
             // remove previous queued
-            runningChunkPartStartNonces.remove(queuedEvent.getChunkPartStartNonce());
+            finishChunkPart(queuedEvent.getChunkPartId());
           }
           LOG.info("dl '" + calculatedDeadline + "' queued");
-          queuedEvent = event;
+          // event instance gets reused by checker
+          queuedEvent = event.copyLowest();
 
           triggerFinishRoundEvent(event.getBlockNumber());
         }
         else
         {
-          // chunkPartStartNonce finished
-          runningChunkPartStartNonces.remove(event.getChunkPartStartNonce());
+          // chunkPart finished
+          finishChunkPart(event.getChunkPartId());
           triggerFinishRoundEvent(event.getBlockNumber());
         }
       }
@@ -266,22 +286,22 @@ public class Round
     if(isCurrentRound(event.getBlockNumber(), event.getGenerationSignature()))
     {
       // if result if lower than lowestCommitted, update lowestCommitted
-      if(event.getResult() != null && event.getResult().compareTo(lowestCommitted) < 0)
+      if(event.getResult() != null && Long.compareUnsigned(event.getResult().longValue(), lowestCommitted) < 0)
       {
-        lowestCommitted = event.getResult();
+        lowestCommitted = event.getResult().longValue();
 
         // if queuedLowest exist and is higher than lowestCommitted, remove queuedLowest
-        if(queuedEvent != null && lowestCommitted.compareTo(queuedEvent.getResult()) < 0)
+        if(queuedEvent != null && Long.compareUnsigned(lowestCommitted, queuedEvent.getResult()) < 0)
         {
-          BigInteger dl = queuedEvent.getResult().divide(BigInteger.valueOf(baseTarget));
+          long dl = Long.divideUnsigned(queuedEvent.getResult(), baseTarget);
           LOG.debug("dl '" + dl + "' removed from queue");
 
-          runningChunkPartStartNonces.remove(queuedEvent.getChunkPartStartNonce());
+          finishChunkPart(queuedEvent.getChunkPartId());
           queuedEvent = null;
         }
       }
 
-      runningChunkPartStartNonces.remove(event.getChunkPartStartNonce());
+      finishChunkPart(event.getChunkPartId());
 
       if(bestCommittedDeadline > event.getDeadline())
       {
@@ -299,7 +319,7 @@ public class Round
       // reset lowest to lowestCommitted, as it does not commit successful.
       lowest = lowestCommitted;
       // in case that queued result is lower than committedLowest, commit queued again.
-      if(queuedEvent != null && lowestCommitted.compareTo(queuedEvent.getResult()) < 0)
+      if(queuedEvent != null && Long.compareUnsigned(lowestCommitted, queuedEvent.getResult()) < 0)
       {
         LOG.info("commit queued dl ...");
         handleMessage(queuedEvent);
@@ -307,11 +327,31 @@ public class Round
         queuedEvent = null;
       }
 
-      runningChunkPartStartNonces.remove(event.getChunkPartStartNonce());
+      finishChunkPart(event.getChunkPartId());
       triggerFinishRoundEvent(event.getBlockNumber());
     }
   }
 
+  @EventListener
+  public void handleMessage(ReaderDriveAbandonedEvent event)
+  {
+    synchronized(reader)
+    {
+      if(isCurrentRound(event.getBlockNumber(), event.getGenerationSignature()))
+      {
+        for(int chunkPartId : event.getChunkPartIds())
+        {
+          // queued result was read already, it is committed as last one
+          if(queuedEvent == null || queuedEvent.getChunkPartId() != chunkPartId)
+          {
+            finishChunkPart(chunkPartId);
+          }
+        }
+        triggerFinishRoundEvent(event.getBlockNumber());
+      }
+    }
+  }
+
   @EventListener
   public void handleMessage(NetworkQualityChangeEvent event)
   {
@@ -325,16 +365,25 @@ public class Round
     }
   }
 
+  private void finishChunkPart(int chunkPartId)
+  {
+    if(runningChunkParts.get(chunkPartId))
+    {
+      runningChunkParts.clear(chunkPartId);
+      numberOfRunningChunkParts--;
+    }
+  }
+
   private void triggerFinishRoundEvent(long blockNumber)
   {
     if(finishedBlockNumber < blockNumber)
     {
-      if(runningChunkPartStartNonces.isEmpty())
+      if(numberOfRunningChunkParts == 0)
       {
         onRoundFinish(blockNumber);
       }
-      // commit queued if exists ... and it is the only remaining in runningChunkPartStartNonces
-      else if(queuedEvent != null && runningChunkPartStartNonces.size() == 1 && runningChunkPartStartNonces.contains(queuedEvent.getChunkPartStartNonce()))
+      // commit queued if exists ... and it is the only remaining in runningChunkParts
+      else if(queuedEvent != null && numberOfRunningChunkParts == 1 && runningChunkParts.get(queuedEvent.getChunkPartId()))
       {
         handleMessage(queuedEvent);
         queuedEvent = null;
@@ -359,8 +408,6 @@ public class Round
         publisher.publishEvent(new RoundFinishedEvent(blockNumber, bestCommittedDeadline, elapsedRoundTime, networkQuality));
       }
     }, 250); // fire deferred
-
-    triggerCleanup();
   }
 
   private int getNetworkQuality()
@@ -371,34 +418,6 @@ public class Round
     return percentage > 100 ? 100 : percentage;
   }
 
-  private void triggerCleanup()
-  {
-    TimerTask cleanupTask = new TimerTask()
-    {
-      @Override
-      public void run()
-      {
-        if(!reader.cleanupReaderPool())
-        {
-          triggerCleanup();
-        }
-        else
-        {
-          System.gc();
-        }
-      }
-    };
-
-    try
-    {
-      timer.schedule(cleanupTask, 1000);
-    }
-    catch(IllegalStateException e)
-    {
-      LOG.error("cleanup task already scheduled ...");
-    }
-  }
-
   private boolean isCurrentRound(long currentBlockNumber, byte[] currentGenerationSignature)
   {
     return blockNumber == currentBlockNumber
@@ -423,13 +442,30 @@ public class Round
     return 0;
   }
 
-  private static BigInteger calculateResult(byte[] scoops, byte[] generationSignature, int nonce)
+  private long calculateResult(byte[] scoops, int scoopsOffset, byte[] generationSignature, int nonce)
+  {
+    resultHasher.reset();
+    resultHasher.update(generationSignature);
+    resultHasher.update(scoops, scoopsOffset + nonce * MiningPlot.SCOOP_SIZE, MiningPlot.SCOOP_SIZE);
+    try
+    {
+      resultHasher.digest(resultHash, 0, resultHash.length);
+    }
+    catch(DigestException e)
+    {
+      throw new IllegalStateException(e);
+    }
+    // first 8 bytes little endian
+    long result = 0;
+    for(int i = 7; i >= 0; i--)
+    {
+      result = (result << 8) | (resultHash[i] & 0xFF);
+    }
+    return result;
+  }
+
+  private static BigInteger toBigInteger(long unsigned)
   {
-    Shabal256 md = new Shabal256();
-    md.reset();
-    md.update(generationSignature);
-    md.update(scoops, nonce * MiningPlot.SCOOP_SIZE, MiningPlot.SCOOP_SIZE);
-    byte[] hash = md.digest();
-    return new BigInteger(1, new byte[]{hash[7], hash[6], hash[5], hash[4], hash[3], hash[2], hash[1], hash[0]});
+    return new BigInteger(Long.toUnsignedString(unsigned));
   }
 }
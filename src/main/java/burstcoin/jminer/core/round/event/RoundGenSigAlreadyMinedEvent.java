@@ -22,12 +22,14 @@
 
 package burstcoin.jminer.core.round.event;
 
+import burstcoin.jminer.core.event.UiEvent;
 import org.springframework.context.ApplicationEvent;
 
 
 @SuppressWarnings("serial")
 public class RoundGenSigAlreadyMinedEvent
   extends ApplicationEvent
+  implements UiEvent
 {
   private byte[] generationSignature;
   private long blockNumber;
@@ -22,12 +22,14 @@
 
 package burstcoin.jminer.core.round.event;
 
+import burstcoin.jminer.core.event.UiEvent;
 import org.springframework.context.ApplicationEvent;
 
 // fired if generationSignature for current block has changed
 @SuppressWarnings("serial")
 public class RoundGenSigUpdatedEvent
   extends ApplicationEvent
+  implements UiEvent
 {
   private byte[] generationSignature;
   private long blockNumber;
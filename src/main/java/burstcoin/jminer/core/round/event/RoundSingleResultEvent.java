@@ -22,6 +22,7 @@
 
 package burstcoin.jminer.core.round.event;
 
+import burstcoin.jminer.core.event.UiEvent;
 import org.springframework.context.ApplicationEvent;
 
 import java.math.BigInteger;
@@ -32,6 +33,7 @@ import java.math.BigInteger;
 @SuppressWarnings("serial")
 public class RoundSingleResultEvent
   extends ApplicationEvent
+  implements UiEvent
 {
   private long blockNumber;
   private BigInteger nonce;
@@ -23,6 +23,7 @@
 package burstcoin.jminer.core.round.event;
 
 
+import burstcoin.jminer.core.event.UiEvent;
 import org.springframework.context.ApplicationEvent;
 
 /**
@@ -31,6 +32,7 @@ import org.springframework.context.ApplicationEvent;
 @SuppressWarnings("serial")
 public class RoundStartedEvent
   extends ApplicationEvent
+  implements UiEvent
 {
   private long scoopNumber;
   private long capacity;
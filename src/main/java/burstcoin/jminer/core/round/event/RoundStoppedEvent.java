@@ -22,6 +22,7 @@
 
 package burstcoin.jminer.core.round.event;
 
+import burstcoin.jminer.core.event.UiEvent;
 import org.springframework.context.ApplicationEvent;
 
 /**
@@ -30,6 +31,7 @@ import org.springframework.context.ApplicationEvent;
 @SuppressWarnings("serial")
 public class RoundStoppedEvent
   extends ApplicationEvent
+  implements UiEvent
 {
   private long blockNumber;
   private long bestCommittedDeadline;
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package burstcoin.jminer.core.reader.data;
+
+import burstcoin.jminer.core.CoreProperties;
+import org.junit.Test;
+import signumj.crypto.plot.impl.MiningPlot;
+
+import java.math.BigInteger;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class PlotFileTest
+{
+  // 16 nonces per part, cpu mining uses a tenth of it
+  private static final Long CHUNK_PART_NONCES = CoreProperties.isUseOpenCl() ? 16L : 160L;
+
+  @Test
+  public void poc2IsSplitIntoParts()
+  {
+    PlotFile plotFile = new PlotFile(Paths.get("/plots/1_100_64"), CHUNK_PART_NONCES);
+
+    assertEquals(PocVersion.POC_2, plotFile.getPocVersion());
+    assertEquals(16, plotFile.getPartNonces());
+    assertParts(plotFile, 0, 16, 16, 16, 32, 16, 48, 16);
+    assertEquals(64 * MiningPlot.PLOT_SIZE, plotFile.getSize());
+  }
+
+  @Test
+  public void skippedNoncesSplitRanges()
+  {
+    PlotFile plotFile = new PlotFile(Paths.get("/plots/1_100_64"), CHUNK_PART_NONCES);
+
+    // middle, start, end and a range skipped already
+    assertEquals(10, plotFile.skipNonces(110, 120));
+    assertEquals(5, plotFile.skipNonces(90, 105));
+    assertEquals(4, plotFile.skipNonces(160, 200));
+    assertEquals(0, plotFile.skipNonces(112, 118));
+
+    // ranges [5,10) and [20,60), the last part of a range holds the remainder
+    assertParts(plotFile, 5, 5, 20, 16, 36, 16, 52, 8);
+    assertEquals(19, plotFile.getSkippedNonces());
+    assertEquals(45 * MiningPlot.PLOT_SIZE, plotFile.getSize());
+    assertEquals(new HashSet<>(Arrays.asList(BigInteger.valueOf(105), BigInteger.valueOf(120), BigInteger.valueOf(136), BigInteger.valueOf(152))),
+                 plotFile.getChunkPartStartNonces().keySet());
+  }
+
+  @Test
+  public void noncesOutsideFileAreNotSkipped()
+  {
+    PlotFile plotFile = new PlotFile(Paths.get("/plots/1_100_64"), CHUNK_PART_NONCES);
+
+    assertEquals(0, plotFile.skipNonces(0, 100));
+    assertEquals(0, plotFile.skipNonces(164, 200));
+    assertParts(plotFile, 0, 16, 16, 16, 32, 16, 48, 16);
+  }
+
+  @Test
+  public void allNoncesSkipped()
+  {
+    PlotFile plotFile = new PlotFile(Paths.get("/plots/1_100_64"), CHUNK_PART_NONCES);
+
+    assertEquals(64, plotFile.skipNonces(0, 1000));
+    assertEquals(0, plotFile.getNumberOfParts());
+    assertEquals(0, plotFile.getSize());
+  }
+
+  @Test
+  public void poc1IsNotTrimmed()
+  {
+    PlotFile plotFile = new PlotFile(Paths.get("/plots/1_0_64_16"), CHUNK_PART_NONCES);
+
+    assertEquals(PocVersion.POC_1, plotFile.getPocVersion());
+    assertEquals(4, plotFile.getNumberOfChunks());
+    assertEquals(0, plotFile.skipNonces(0, 8));
+    assertParts(plotFile, 0, 16);
+    assertEquals(4, plotFile.getNumberOfChunkParts());
+  }
+
+  /* expected offset and nonces of every part */
+  private static void assertParts(PlotFile plotFile, long... expected)
+  {
+    assertEquals(expected.length / 2, plotFile.getNumberOfParts());
+    for(int partNumber = 0; partNumber < plotFile.getNumberOfParts(); partNumber++)
+    {
+      assertEquals(expected[2 * partNumber], plotFile.getPartOffset(partNumber));
+      assertEquals(expected[2 * partNumber + 1], plotFile.getPartNonces(partNumber));
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package burstcoin.jminer.core.reader.data;
+
+import burstcoin.jminer.core.CoreProperties;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import signumj.crypto.plot.impl.MiningPlot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class PlotsTest
+{
+  // 16 nonces per part, cpu mining uses a tenth of it
+  private static final Long CHUNK_PART_NONCES = CoreProperties.isUseOpenCl() ? 16L : 160L;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void overlappingNoncesAreReadFromFastestDrive()
+    throws IOException
+  {
+    PlotDrive fast = plotDrive("fast", "1_0_64", "1_192_32");
+    PlotDrive slow = plotDrive("slow", "1_32_64", "1_200_16", "2_0_64");
+    Collection<PlotDrive> plotDrives = new ArrayList<>(Arrays.asList(slow, fast));
+
+    Plots.skipOverlappingNonces(plotDrives, plotPaths(slow, fast), speeds(fast, 2.0, slow, 1.0));
+
+    assertEquals(0, plotFile(fast, "1_0_64").getSkippedNonces());
+    assertEquals(0, plotFile(fast, "1_192_32").getSkippedNonces());
+    // nonces 32-64 are read from fast drive
+    PlotFile overlapping = plotFile(slow, "1_32_64");
+    assertEquals(32, overlapping.getSkippedNonces());
+    assertEquals(32, overlapping.getPartOffset(0));
+    // all nonces held by fast drive, file is not read
+    assertNull(plotFile(slow, "1_200_16"));
+    // other account
+    assertEquals(0, plotFile(slow, "2_0_64").getSkippedNonces());
+  }
+
+  @Test
+  public void plotPathsOrderDecidesOnSameSpeed()
+    throws IOException
+  {
+    PlotDrive first = plotDrive("first", "1_32_64");
+    PlotDrive second = plotDrive("second", "1_0_64");
+    Collection<PlotDrive> plotDrives = new ArrayList<>(Arrays.asList(second, first));
+
+    Plots.skipOverlappingNonces(plotDrives, plotPaths(first, second), speeds(first, 1.0, second, 1.0));
+
+    assertEquals(0, plotFile(first, "1_32_64").getSkippedNonces());
+    assertEquals(32, plotFile(second, "1_0_64").getSkippedNonces());
+  }
+
+  @Test
+  public void claimedRangesOfSeveralFilesAreMerged()
+    throws IOException
+  {
+    // a file spanning two faster files and the gap between them
+    PlotDrive fast = plotDrive("fast", "1_0_32", "1_64_32");
+    PlotDrive slow = plotDrive("slow", "1_16_64");
+    Collection<PlotDrive> plotDrives = new ArrayList<>(Arrays.asList(fast, slow));
+
+    Plots.skipOverlappingNonces(plotDrives, plotPaths(fast, slow), speeds(fast, 2.0, slow, 1.0));
+
+    PlotFile spanning = plotFile(slow, "1_16_64");
+    assertEquals(32, spanning.getSkippedNonces());
+    assertEquals(16, spanning.getPartOffset(0));
+    assertEquals(32, spanning.getSize() / MiningPlot.PLOT_SIZE);
+  }
+
+  @Test
+  public void driveWithoutNoncesLeftIsDropped()
+    throws IOException
+  {
+    PlotDrive fast = plotDrive("fast", "1_0_64");
+    PlotDrive covered = plotDrive("covered", "1_0_32", "1_32_32");
+    Collection<PlotDrive> plotDrives = new ArrayList<>(Arrays.asList(fast, covered));
+
+    Plots.skipOverlappingNonces(plotDrives, plotPaths(fast, covered), speeds(fast, 2.0, covered, 1.0));
+
+    assertEquals(Collections.singletonList(fast), plotDrives);
+  }
+
+  @Test
+  public void poc1IsReadInFullButClaimsItsNonces()
+    throws IOException
+  {
+    PlotDrive fast = plotDrive("fast", "1_0_64_16");
+    PlotDrive slow = plotDrive("slow", "1_32_64", "2_0_64_16");
+    PlotDrive slowest = plotDrive("slowest", "2_32_64");
+    Collection<PlotDrive> plotDrives = new ArrayList<>(Arrays.asList(fast, slow, slowest));
+
+    Plots.skipOverlappingNonces(plotDrives, plotPaths(fast, slow, slowest), speeds(fast, 3.0, slow, 2.0, slowest, 1.0));
+
+    // poc2 file skips nonces of faster poc1 file
+    assertEquals(32, plotFile(slow, "1_32_64").getSkippedNonces());
+    // slower poc1 file is not trimmed
+    assertEquals(0, plotFile(slow, "2_0_64_16").getSkippedNonces());
+    assertEquals(32, plotFile(slowest, "2_32_64").getSkippedNonces());
+    assertFalse(plotDrives.isEmpty());
+  }
+
+  private PlotDrive plotDrive(String directory, String... fileNames)
+    throws IOException
+  {
+    File folder = temporaryFolder.newFolder(directory);
+    List<Path> plotFilePaths = new ArrayList<>();
+    for(String fileName : fileNames)
+    {
+      File file = new File(folder, fileName);
+      // sparse, size is all that is checked
+      try(RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw"))
+      {
+        randomAccessFile.setLength(Long.parseLong(fileName.split("_")[2]) * MiningPlot.PLOT_SIZE);
+      }
+      plotFilePaths.add(file.toPath());
+    }
+    return new PlotDrive(folder.getPath(), plotFilePaths, CHUNK_PART_NONCES);
+  }
+
+  private static List<String> plotPaths(PlotDrive... plotDrives)
+  {
+    return Arrays.stream(plotDrives).map(PlotDrive::getDirectory).collect(Collectors.toList());
+  }
+
+  /* pairs of drive and bytes per ms */
+  private static ToDoubleFunction<PlotDrive> speeds(Object... driveSpeeds)
+  {
+    Map<PlotDrive, Double> speeds = new HashMap<>();
+    for(int index = 0; index < driveSpeeds.length; index += 2)
+    {
+      speeds.put((PlotDrive) driveSpeeds[index], (Double) driveSpeeds[index + 1]);
+    }
+    return speeds::get;
+  }
+
+  /* null if not read anymore */
+  private static PlotFile plotFile(PlotDrive plotDrive, String fileName)
+  {
+    for(PlotFile plotFile : plotDrive.getPlotFiles())
+    {
+      if(plotFile.getFilename().equals(fileName))
+      {
+        assertNotNull(plotFile.getFilePath());
+        return plotFile;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package burstcoin.jminer.core.reader.data;
+
+import burstcoin.jminer.core.CoreProperties;
+import org.junit.Test;
+import signumj.crypto.plot.impl.MiningPlot;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReadPlanTest
+{
+  // 16 nonces per part, cpu mining uses a tenth of it
+  private static final Long CHUNK_PART_NONCES = CoreProperties.isUseOpenCl() ? 16L : 160L;
+
+  @Test
+  public void offsetsOfPoc2Parts()
+  {
+    PlotFile plotFile = new PlotFile(Paths.get("/plots/1_100_64"), CHUNK_PART_NONCES);
+    plotFile.setFirstChunkPartId(7);
+    ReadPlan readPlan = new ReadPlan(Collections.singletonList(plotFile), 32);
+
+    assertEquals(4, readPlan.getNumberOfEntries());
+    assertFalse(readPlan.hasMirrored());
+    // scoops of all nonces of the file follow each other
+    for(int entry = 0; entry < 4; entry++)
+    {
+      assertEquals(entry * 16 * MiningPlot.SCOOP_SIZE, readPlan.getOffset(entry, 0));
+      assertEquals(10 * 64 * MiningPlot.SCOOP_SIZE + entry * 16 * MiningPlot.SCOOP_SIZE, readPlan.getOffset(entry, 10));
+      assertEquals(100 + entry * 16, readPlan.getStartNonce(entry));
+      assertEquals(7 + entry, readPlan.getChunkPartId(entry));
+      assertEquals(16, readPlan.getPartLength(entry));
+    }
+    assertEquals(64 * MiningPlot.SCOOP_SIZE, readPlan.getSize());
+    assertEquals(16, readPlan.getMaxPartLength());
+  }
+
+  @Test
+  public void adjacentPartsAreMergedUntilRequestIsFull()
+  {
+    PlotFile plotFile = new PlotFile(Paths.get("/plots/1_100_64"), CHUNK_PART_NONCES);
+    ReadPlan readPlan = new ReadPlan(Collections.singletonList(plotFile), 32);
+
+    assertRequests(readPlan, 0, 2, 2, 4);
+    assertEquals(32 * MiningPlot.SCOOP_SIZE, readPlan.getRequestBytes(0));
+    assertEquals(32 * MiningPlot.SCOOP_SIZE, readPlan.getRequestBytes(1));
+  }
+
+  @Test
+  public void skippedNoncesSplitRequests()
+  {
+    PlotFile plotFile = new PlotFile(Paths.get("/plots/1_100_64"), CHUNK_PART_NONCES);
+    plotFile.skipNonces(110, 120);
+    ReadPlan readPlan = new ReadPlan(Collections.singletonList(plotFile), 64);
+
+    // parts [0,10), [20,36), [36,52), [52,64), first one is not adjacent to the others
+    assertRequests(readPlan, 0, 1, 1, 4);
+    assertEquals(10 * MiningPlot.SCOOP_SIZE, readPlan.getRequestBytes(0));
+    assertEquals(44 * MiningPlot.SCOOP_SIZE, readPlan.getRequestBytes(1));
+    assertEquals(20 * MiningPlot.SCOOP_SIZE, readPlan.getOffset(1, 0));
+    assertEquals(120, readPlan.getStartNonce(1));
+    assertEquals(54 * MiningPlot.SCOOP_SIZE, readPlan.getSize());
+  }
+
+  @Test
+  public void requestsDoNotSpanFiles()
+  {
+    PlotFile first = new PlotFile(Paths.get("/plots/1_0_32"), CHUNK_PART_NONCES);
+    PlotFile second = new PlotFile(Paths.get("/plots/1_32_32"), CHUNK_PART_NONCES);
+    second.setFirstChunkPartId(first.getNumberOfChunkParts());
+    ReadPlan readPlan = new ReadPlan(Arrays.asList(first, second), 1024);
+
+    assertRequests(readPlan, 0, 2, 2, 4);
+    assertEquals(0, readPlan.getFileId(readPlan.getFirstEntryOfRequest(0)));
+    assertEquals(1, readPlan.getFileId(readPlan.getFirstEntryOfRequest(1)));
+    assertEquals(1, readPlan.getFirstRequestOfFile(1));
+    assertEquals(2, readPlan.getLastRequestOfFile(1));
+    // offsets are within the file of the entry
+    assertEquals(0, readPlan.getOffset(2, 0));
+    assertEquals(32, readPlan.getStartNonce(2));
+    assertEquals(2, readPlan.getChunkPartId(2));
+  }
+
+  @Test
+  public void poc1RequestsReadScoopsAndMirrorScoopsOfChunk()
+  {
+    // two stagger chunks of 16 nonces
+    PlotFile plotFile = new PlotFile(Paths.get("/plots/1_0_32_16"), CHUNK_PART_NONCES);
+    ReadPlan readPlan = new ReadPlan(Collections.singletonList(plotFile), 1024);
+
+    assertTrue(readPlan.isMirrored(0));
+    assertTrue(readPlan.hasMirrored());
+    // requests never span chunks
+    assertRequests(readPlan, 0, 1, 1, 2);
+    assertEquals(10 * 16 * MiningPlot.SCOOP_SIZE, readPlan.getOffset(0, 10));
+    assertEquals(4085 * 16 * MiningPlot.SCOOP_SIZE, readPlan.getOffset(0, MiningPlot.SCOOPS_PER_PLOT - 1 - 10));
+    assertEquals(16 * MiningPlot.PLOT_SIZE + 10 * 16 * MiningPlot.SCOOP_SIZE, readPlan.getOffset(1, 10));
+    assertEquals(16, readPlan.getStartNonce(1));
+    // scoops and mirror scoops
+    assertEquals(2 * 16 * MiningPlot.SCOOP_SIZE, readPlan.getRequestBytes(0));
+    assertEquals(2 * 32 * MiningPlot.SCOOP_SIZE, readPlan.getSize());
+  }
+
+  @Test
+  public void poc1MirrorScoopsHoldSecondHashes()
+  {
+    int stagger = 16;
+    PlotFile plotFile = new PlotFile(Paths.get("/plots/1_0_32_16"), CHUNK_PART_NONCES);
+    ReadPlan readPlan = new ReadPlan(Collections.singletonList(plotFile), 1024);
+
+    // poc1 scoop s of a nonce holds first hash of poc2 scoop s and second hash of poc2 scoop 4095-s
+    byte[] file = new byte[(int) (32 * MiningPlot.PLOT_SIZE)];
+    for(int nonce = 0; nonce < 32; nonce++)
+    {
+      for(int scoop = 0; scoop < MiningPlot.SCOOPS_PER_PLOT; scoop++)
+      {
+        int position = (int) ((nonce / stagger) * stagger * MiningPlot.PLOT_SIZE) + scoop * stagger * MiningPlot.SCOOP_SIZE
+                       + (nonce % stagger) * MiningPlot.SCOOP_SIZE;
+        Arrays.fill(file, position, position + MiningPlot.HASH_SIZE, poc2Hash(nonce, scoop, 0));
+        Arrays.fill(file, position + MiningPlot.HASH_SIZE, position + MiningPlot.SCOOP_SIZE,
+                    poc2Hash(nonce, MiningPlot.SCOOPS_PER_PLOT - 1 - scoop, 1));
+      }
+    }
+
+    for(int scoopNumber : new int[]{0, 10, 2047, 2048, 4095})
+    {
+      for(int entry = 0; entry < readPlan.getNumberOfEntries(); entry++)
+      {
+        int scoops = (int) readPlan.getOffset(entry, scoopNumber);
+        int mirrorScoops = (int) readPlan.getOffset(entry, MiningPlot.SCOOPS_PER_PLOT - 1 - scoopNumber);
+        for(int nonce = 0; nonce < readPlan.getPartLength(entry); nonce++)
+        {
+          long startNonce = readPlan.getStartNonce(entry) + nonce;
+          assertEquals(poc2Hash(startNonce, scoopNumber, 0), file[scoops + nonce * MiningPlot.SCOOP_SIZE]);
+          assertEquals(poc2Hash(startNonce, scoopNumber, 1), file[mirrorScoops + nonce * MiningPlot.SCOOP_SIZE + MiningPlot.HASH_SIZE]);
+        }
+      }
+    }
+  }
+
+  /* marker of first (0) or second (1) hash of a poc2 scoop */
+  private static byte poc2Hash(long nonce, int scoop, int hash)
+  {
+    return (byte) (nonce * 7 + scoop * 13 + hash * 101);
+  }
+
+  /* expected first and last (exclusive) entry of every request */
+  private static void assertRequests(ReadPlan readPlan, int... expected)
+  {
+    assertEquals(expected.length / 2, readPlan.getNumberOfRequests());
+    for(int request = 0; request < readPlan.getNumberOfRequests(); request++)
+    {
+      assertEquals(expected[2 * request], readPlan.getFirstEntryOfRequest(request));
+      assertEquals(expected[2 * request + 1], readPlan.getLastEntryOfRequest(request));
+    }
+  }
+}
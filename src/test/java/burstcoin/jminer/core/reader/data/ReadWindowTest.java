@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.data;
+
+import org.junit.Test;
+
+import java.time.LocalTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReadWindowTest
+{
+  @Test
+  public void containsWithinDay()
+  {
+    ReadWindow readWindow = ReadWindow.parse("08:00-18:00=20");
+
+    assertTrue(readWindow.contains(LocalTime.of(8, 0)));
+    assertTrue(readWindow.contains(LocalTime.of(12, 30)));
+    // end is exclusive
+    assertFalse(readWindow.contains(LocalTime.of(18, 0)));
+    assertFalse(readWindow.contains(LocalTime.of(7, 59)));
+    assertFalse(readWindow.contains(LocalTime.of(23, 0)));
+  }
+
+  @Test
+  public void containsAcrossMidnight()
+  {
+    ReadWindow readWindow = ReadWindow.parse("22:00-06:00=pause");
+
+    assertTrue(readWindow.contains(LocalTime.of(22, 0)));
+    assertTrue(readWindow.contains(LocalTime.of(23, 59, 59)));
+    assertTrue(readWindow.contains(LocalTime.MIDNIGHT));
+    assertTrue(readWindow.contains(LocalTime.of(5, 59)));
+    assertFalse(readWindow.contains(LocalTime.of(6, 0)));
+    assertFalse(readWindow.contains(LocalTime.of(12, 0)));
+    assertFalse(readWindow.contains(LocalTime.of(21, 59)));
+  }
+
+  @Test
+  public void parsesBandwidth()
+  {
+    assertEquals(20, ReadWindow.parse(" 08:00 - 18:00 = 20 ").getBandwidth());
+    assertEquals(0, ReadWindow.parse("22:00-06:00=Pause").getBandwidth());
+    // at least 1MB/s, 'pause' stops reading
+    assertEquals(1, ReadWindow.parse("08:00-18:00=0").getBandwidth());
+    assertEquals("22:00-06:00=pause", ReadWindow.parse("22:00-06:00=pause").toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsMissingBandwidth()
+  {
+    ReadWindow.parse("08:00-18:00");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsInvalidTime()
+  {
+    ReadWindow.parse("8h-18:00=20");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsInvalidBandwidth()
+  {
+    ReadWindow.parse("08:00-18:00=fast");
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.task;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.checker.Checker;
+import burstcoin.jminer.core.checker.event.CheckerResultListener;
+import burstcoin.jminer.core.checker.util.OCLChecker;
+import burstcoin.jminer.core.checker.util.ShaLibChecker;
+import burstcoin.jminer.core.network.Network;
+import burstcoin.jminer.core.network.event.NetworkStateChangeEvent;
+import burstcoin.jminer.core.reader.Reader;
+import burstcoin.jminer.core.reader.data.CancellationToken;
+import burstcoin.jminer.core.reader.data.DriveSetup;
+import burstcoin.jminer.core.reader.data.PlotDrive;
+import burstcoin.jminer.core.reader.data.Plots;
+import burstcoin.jminer.core.reader.data.ReadMode;
+import burstcoin.jminer.core.reader.data.ReadPlanCursor;
+import burstcoin.jminer.core.reader.event.ReaderLoadedPartListener;
+import burstcoin.jminer.core.reader.event.ReaderProgressChangedEvent;
+import burstcoin.jminer.core.reader.util.DriveAutotuner;
+import burstcoin.jminer.core.reader.util.DriveKeepalive;
+import burstcoin.jminer.core.reader.util.DriveSpeedProfile;
+import burstcoin.jminer.core.reader.util.DriveWatchdog;
+import burstcoin.jminer.core.reader.util.PlotFileHandleCache;
+import burstcoin.jminer.core.reader.util.PlotScrubber;
+import burstcoin.jminer.core.round.Round;
+import burstcoin.jminer.core.round.event.RoundFinishedEvent;
+import com.sun.management.ThreadMXBean;
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReaderLoadDriveTaskAllocationTest
+{
+  private static final int PARTS_PER_ROUND = 10000;
+  private static final int NONCES_PER_PART = 64;
+  // parts merged into one read request, all but the first are checked at an offset
+  private static final int PARTS_PER_REQUEST = 4;
+  // events of first result and round end take some kb, 16 bytes per part would already take 160 kb
+  private static final long MAX_BYTES_PER_ROUND = 64 * 1024;
+  private static final long BASE_TARGET = 18325193796L;
+
+  @Test
+  public void cpuCheckedPartsDoNotAllocate()
+  {
+    assertRoundDoesNotAllocate(false);
+  }
+
+  @Test
+  public void openClCheckedPartsDoNotAllocate()
+  {
+    // checker is configured by round only if opencl is used
+    assumeTrue(CoreProperties.isUseOpenCl());
+    assertRoundDoesNotAllocate(true);
+  }
+
+  /* one round through reader, checker and round, as wired by spring */
+  private static void assertRoundDoesNotAllocate(boolean openCl)
+  {
+    ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+
+    long[] chunkPartSizes = new long[PARTS_PER_ROUND];
+    Arrays.fill(chunkPartSizes, NONCES_PER_PART);
+    Plots plots = mock(Plots.class);
+    when(plots.getChunkPartSizes()).thenReturn(chunkPartSizes);
+    when(plots.getRealChunkPartSizes()).thenReturn(chunkPartSizes);
+    ApplicationContext context = mock(ApplicationContext.class);
+    Reader reader = new Reader(context, null, mock(PlotFileHandleCache.class), mock(DriveSpeedProfile.class),
+                               mock(DriveAutotuner.class), mock(DriveWatchdog.class), mock(DriveKeepalive.class), mock(PlotScrubber.class))
+    {
+      @Override
+      public Plots getPlots()
+      {
+        return plots;
+      }
+    };
+    ReflectionTestUtils.invokeMethod(reader, "postConstruct");
+
+    @SuppressWarnings("unchecked")
+    ObjectProvider<CheckerResultListener> resultListeners = mock(ObjectProvider.class);
+    Checker checker = new Checker(resultListeners, new FirstNonceOclChecker());
+    ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    Round round = new Round(reader, checker, mock(Network.class), publisher);
+    ReflectionTestUtils.invokeMethod(round, "postConstruct");
+    when(resultListeners.orderedStream()).thenAnswer(invocation -> Stream.of(round));
+
+    byte[] readBuffer = new byte[PARTS_PER_REQUEST * NONCES_PER_PART * 64];
+    // first round loads classes and compiles
+    checkParts(startRound(reader, openCl ? checker : null, round, 1), readBuffer);
+    ReaderLoadDriveTask task = startRound(reader, openCl ? checker : null, round, 2);
+    // from first part until round finished, progress of reader is set up on round start
+    long allocatedBefore = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    checkParts(task, readBuffer);
+    long allocated = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+
+    assertTrue("allocated '" + allocated + "' bytes for '" + PARTS_PER_ROUND + "' parts", allocated < MAX_BYTES_PER_ROUND);
+    // every part was counted, so both rounds finished
+    verify(publisher, timeout(2000).times(2)).publishEvent(any(RoundFinishedEvent.class));
+    verify(context, atLeastOnce()).publishEvent(argThat((ApplicationEvent event) -> event instanceof ReaderProgressChangedEvent
+                                                                                     && ((ReaderProgressChangedEvent) event).getBlockNumber() == 1
+                                                                                     && ((ReaderProgressChangedEvent) event).getRemainingCapacity() == 0));
+  }
+
+  /* new block, returns a reader task of the round, checking with opencl checker or with cpu checker if null */
+  private static ReaderLoadDriveTask startRound(Reader reader, Checker checker, Round round, long blockNumber)
+  {
+    byte[] generationSignature = new byte[32];
+    Arrays.fill(generationSignature, (byte) blockNumber);
+    // deadlines are never below target deadline 0, every result finishes its part without commit
+    round.handleMessage(new NetworkStateChangeEvent(blockNumber, BASE_TARGET, generationSignature, 0));
+
+    List<ReaderLoadedPartListener> loadedPartListeners = checker != null ? Arrays.asList(reader, checker) : Collections.singletonList(reader);
+    ReaderLoadDriveTask task = new ReaderLoadDriveTask(mock(ApplicationEventPublisher.class), null, null, null, null, null, loadedPartListeners,
+                                                       Collections.<CheckerResultListener>singletonList(round));
+    PlotDrive plotDrive = mock(PlotDrive.class);
+    when(plotDrive.getDirectory()).thenReturn("/plots");
+    ReadPlanCursor readPlanCursor = mock(ReadPlanCursor.class);
+    when(readPlanCursor.getDriveSetup()).thenReturn(new DriveSetup(ReadMode.BUFFERED, 65536, 1));
+    task.init(0, blockNumber, generationSignature, plotDrive, readPlanCursor, null, new CancellationToken(blockNumber));
+    // opencl checker gets parts from checker, cpu checker is called by task
+    task.setShaLibChecker(checker != null ? null : new FirstNonceChecker());
+    return task;
+  }
+
+  private static void checkParts(ReaderLoadDriveTask task, byte[] readBuffer)
+  {
+    for(int chunkPartId = 0; chunkPartId < PARTS_PER_ROUND; chunkPartId++)
+    {
+      int scoopsOffset = chunkPartId % PARTS_PER_REQUEST * NONCES_PER_PART * 64;
+      task.check(readBuffer, scoopsOffset, NONCES_PER_PART, (long) chunkPartId * NONCES_PER_PART, chunkPartId, "/plots/1_0_640000");
+    }
+  }
+
+  // native shabal is not needed to test the event path, parts at an offset still take the copy of the cpu checker
+  private static class FirstNonceChecker
+    extends ShaLibChecker
+  {
+    @Override
+    public Throwable getLoadError()
+    {
+      return null;
+    }
+
+    @Override
+    protected int findBestDeadline(byte[] scoops, int numberOfScoops, byte[] gensig)
+    {
+      return 0;
+    }
+  }
+
+  // no opencl device needed either
+  private static class FirstNonceOclChecker
+    extends OCLChecker
+  {
+    @Override
+    public int findLowest(byte[] gensig, byte[] data, int offset, int numberOfScoops)
+    {
+      return 0;
+    }
+  }
+}
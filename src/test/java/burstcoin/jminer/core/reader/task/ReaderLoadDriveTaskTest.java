@@ -0,0 +1,210 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.task;
+
+import burstcoin.jminer.core.checker.Checker;
+import burstcoin.jminer.core.checker.event.CheckerResultEvent;
+import burstcoin.jminer.core.checker.event.CheckerResultListener;
+import burstcoin.jminer.core.checker.util.ShaLibChecker;
+import burstcoin.jminer.core.network.Network;
+import burstcoin.jminer.core.network.event.NetworkStateChangeEvent;
+import burstcoin.jminer.core.reader.Reader;
+import burstcoin.jminer.core.reader.data.CancellationToken;
+import burstcoin.jminer.core.reader.data.DriveSetup;
+import burstcoin.jminer.core.reader.data.PlotDrive;
+import burstcoin.jminer.core.reader.data.Plots;
+import burstcoin.jminer.core.reader.data.ReadMode;
+import burstcoin.jminer.core.reader.data.ReadPlanCursor;
+import burstcoin.jminer.core.reader.event.ReaderLoadedPartEvent;
+import burstcoin.jminer.core.reader.event.ReaderLoadedPartListener;
+import burstcoin.jminer.core.reader.util.BadRegionMap.BadRegion;
+import burstcoin.jminer.core.round.Round;
+import burstcoin.jminer.core.round.event.RoundFinishedEvent;
+import org.junit.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import signumj.crypto.plot.impl.MiningPlot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReaderLoadDriveTaskTest
+{
+  @Test
+  public void shuffleTakesSecondHashFromMirrorScoop()
+  {
+    int nonces = 8;
+    int scoopBytes = nonces * MiningPlot.SCOOP_SIZE;
+    byte[] readBuffer = new byte[2 * scoopBytes];
+    // scoops: both hashes of nonce i are 'i', mirror scoops: first hash '100 + i', second hash '-i'
+    for(int nonce = 0; nonce < nonces; nonce++)
+    {
+      for(int position = 0; position < MiningPlot.SCOOP_SIZE; position++)
+      {
+        readBuffer[nonce * MiningPlot.SCOOP_SIZE + position] = (byte) nonce;
+        readBuffer[scoopBytes + nonce * MiningPlot.SCOOP_SIZE + position] = (byte) (position < MiningPlot.HASH_SIZE ? 100 + nonce : -nonce);
+      }
+    }
+
+    ReaderLoadDriveTask.shuffle(readBuffer, scoopBytes);
+
+    for(int nonce = 0; nonce < nonces; nonce++)
+    {
+      for(int position = 0; position < MiningPlot.SCOOP_SIZE; position++)
+      {
+        byte expected = (byte) (position < MiningPlot.HASH_SIZE ? nonce : -nonce);
+        assertEquals("nonce " + nonce + ", byte " + position, expected, readBuffer[nonce * MiningPlot.SCOOP_SIZE + position]);
+      }
+    }
+  }
+
+  @Test
+  public void partAroundBadRegionIsCheckedOnce()
+  {
+    int partLength = 16;
+    byte[] generationSignature = new byte[32];
+    ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    Round round = startRound(publisher, generationSignature);
+
+    Recorder recorder = new Recorder();
+    ReaderLoadDriveTask task = createTask(generationSignature, recorder, Arrays.asList(recorder, round));
+    // readable nonces have higher scoops than the unreadable ones in the middle, which would win if checked
+    byte[] readBuffer = new byte[partLength * MiningPlot.SCOOP_SIZE];
+    for(int nonce = 0; nonce < partLength; nonce++)
+    {
+      Arrays.fill(readBuffer, nonce * MiningPlot.SCOOP_SIZE, (nonce + 1) * MiningPlot.SCOOP_SIZE, (byte) (nonce < 4 || nonce >= 12 ? 50 + nonce : 1));
+    }
+    List<BadRegion> badRegions = Collections.singletonList(new BadRegion(1000 + 4 * MiningPlot.SCOOP_SIZE, 8 * MiningPlot.SCOOP_SIZE));
+
+    assertTrue(task.checkAroundBadRegions(badRegions, readBuffer, 0, 1000, partLength, 160, 0, "/plots/1_0_16"));
+
+    // one loaded part and one result, after the last nonce was read
+    assertEquals(Collections.singletonList(partLength), recorder.loadedScoops);
+    assertEquals(Collections.singletonList(0), recorder.lowestNonces);
+    byte[] maskScoop = Arrays.copyOfRange(readBuffer, 0, MiningPlot.SCOOP_SIZE);
+    for(int nonce = 4; nonce < 12; nonce++)
+    {
+      assertArrayEquals(maskScoop, Arrays.copyOfRange(readBuffer, nonce * MiningPlot.SCOOP_SIZE, (nonce + 1) * MiningPlot.SCOOP_SIZE));
+    }
+    verify(publisher, timeout(2000)).publishEvent(any(RoundFinishedEvent.class));
+    verify(publisher, after(500).times(1)).publishEvent(any(RoundFinishedEvent.class));
+  }
+
+  @Test
+  public void partWithoutReadableNoncesIsNotChecked()
+  {
+    byte[] generationSignature = new byte[32];
+    Recorder recorder = new Recorder();
+    ReaderLoadDriveTask task = createTask(generationSignature, recorder, Collections.singletonList(recorder));
+    List<BadRegion> badRegions = Arrays.asList(new BadRegion(0, 4096), new BadRegion(4096, 4096));
+
+    assertFalse(task.checkAroundBadRegions(badRegions, new byte[8192], 0, 0, 128, 0, 0, "/plots/1_0_128"));
+    assertTrue(recorder.loadedScoops.isEmpty());
+    assertTrue(recorder.lowestNonces.isEmpty());
+  }
+
+  /* round of one part, deadlines are never below target deadline 0, so every result finishes its part */
+  private static Round startRound(ApplicationEventPublisher publisher, byte[] generationSignature)
+  {
+    Reader reader = mock(Reader.class);
+    Plots plots = mock(Plots.class);
+    when(plots.getChunkPartSizes()).thenReturn(new long[1]);
+    when(reader.getPlots()).thenReturn(plots);
+    Round round = new Round(reader, mock(Checker.class), mock(Network.class), publisher);
+    ReflectionTestUtils.invokeMethod(round, "postConstruct");
+    round.handleMessage(new NetworkStateChangeEvent(1, 18325193796L, generationSignature, 0));
+    return round;
+  }
+
+  private static ReaderLoadDriveTask createTask(byte[] generationSignature, ReaderLoadedPartListener loadedPartListener,
+                                                List<CheckerResultListener> checkerResultListeners)
+  {
+    ReaderLoadDriveTask task = new ReaderLoadDriveTask(mock(ApplicationEventPublisher.class), null, null, null, null, null,
+                                                       Collections.singletonList(loadedPartListener), checkerResultListeners);
+    PlotDrive plotDrive = mock(PlotDrive.class);
+    when(plotDrive.getDirectory()).thenReturn("/plots");
+    ReadPlanCursor readPlanCursor = mock(ReadPlanCursor.class);
+    when(readPlanCursor.getDriveSetup()).thenReturn(new DriveSetup(ReadMode.BUFFERED, 65536, 1));
+    task.init(0, 1, generationSignature, plotDrive, readPlanCursor, null, new CancellationToken(1));
+    task.setShaLibChecker(new LastLowestChecker());
+    return task;
+  }
+
+  private static class Recorder
+    implements ReaderLoadedPartListener, CheckerResultListener
+  {
+    private final List<Integer> loadedScoops = new ArrayList<>();
+    private final List<Integer> lowestNonces = new ArrayList<>();
+
+    @Override
+    public void handleMessage(ReaderLoadedPartEvent event)
+    {
+      loadedScoops.add(event.getNumberOfScoops());
+    }
+
+    @Override
+    public void handleMessage(CheckerResultEvent event)
+    {
+      lowestNonces.add(event.getLowestNonce());
+    }
+  }
+
+  // lowest first byte wins, last one of equal scoops, so a masked copy behind its source is found
+  private static class LastLowestChecker
+    extends ShaLibChecker
+  {
+    @Override
+    public Throwable getLoadError()
+    {
+      return null;
+    }
+
+    @Override
+    public int findLowest(byte[] gensig, byte[] data, int offset, int numberOfScoops)
+    {
+      int lowest = 0;
+      for(int nonce = 1; nonce < numberOfScoops; nonce++)
+      {
+        if(data[offset + nonce * MiningPlot.SCOOP_SIZE] <= data[offset + lowest * MiningPlot.SCOOP_SIZE])
+        {
+          lowest = nonce;
+        }
+      }
+      return lowest;
+    }
+  }
+}
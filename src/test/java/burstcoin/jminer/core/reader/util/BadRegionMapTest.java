@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import burstcoin.jminer.core.reader.util.BadRegionMap.BadRegion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BadRegionMapTest
+{
+  private static final Path PLOT_FILE = Paths.get("/plots/1_0_1024");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void separateRegionsAreSorted()
+  {
+    BadRegionMap badRegionMap = badRegionMap("disabled");
+    assertNull(badRegionMap.get(PLOT_FILE));
+
+    badRegionMap.add(PLOT_FILE, 8192, 4096);
+    List<BadRegion> regions = badRegionMap.add(PLOT_FILE, 0, 4096);
+
+    assertRegions(regions, 0, 4096, 8192, 4096);
+    assertRegions(badRegionMap.get(PLOT_FILE), 0, 4096, 8192, 4096);
+    assertNull(badRegionMap.get(Paths.get("/plots/1_1024_1024")));
+  }
+
+  @Test
+  public void adjacentRegionsAreMerged()
+  {
+    BadRegionMap badRegionMap = badRegionMap("disabled");
+    badRegionMap.add(PLOT_FILE, 0, 4096);
+    badRegionMap.add(PLOT_FILE, 8192, 4096);
+
+    // fills the gap, all three become one
+    assertRegions(badRegionMap.add(PLOT_FILE, 4096, 4096), 0, 12288);
+  }
+
+  @Test
+  public void overlappingRegionsAreMerged()
+  {
+    BadRegionMap badRegionMap = badRegionMap("disabled");
+    badRegionMap.add(PLOT_FILE, 4096, 4096);
+    badRegionMap.add(PLOT_FILE, 20480, 4096);
+
+    assertRegions(badRegionMap.add(PLOT_FILE, 6000, 4000), 4096, 10000 - 4096, 20480, 4096);
+    // contained in existing region
+    assertRegions(badRegionMap.add(PLOT_FILE, 5000, 100), 4096, 10000 - 4096, 20480, 4096);
+    // covers both
+    assertRegions(badRegionMap.add(PLOT_FILE, 0, 30000), 0, 30000);
+  }
+
+  @Test
+  public void intersects()
+  {
+    List<BadRegion> regions = Arrays.asList(new BadRegion(4096, 4096), new BadRegion(16384, 4096));
+
+    assertTrue(BadRegionMap.intersects(regions, 0, 4097));
+    assertTrue(BadRegionMap.intersects(regions, 8191, 1));
+    assertTrue(BadRegionMap.intersects(regions, 10000, 10000));
+    // ranges touching a region do not intersect it
+    assertFalse(BadRegionMap.intersects(regions, 0, 4096));
+    assertFalse(BadRegionMap.intersects(regions, 8192, 8192));
+    assertFalse(BadRegionMap.intersects(regions, 20480, 4096));
+    assertFalse(BadRegionMap.intersects(Collections.emptyList(), 0, 4096));
+  }
+
+  @Test
+  public void regionsArePersisted()
+  {
+    File file = new File(temporaryFolder.getRoot(), "jminer.badregions.json");
+    BadRegionMap badRegionMap = badRegionMap(file.getPath());
+    badRegionMap.add(PLOT_FILE, 0, 4096);
+    badRegionMap.add(PLOT_FILE, 8192, 4096);
+
+    assertRegions(badRegionMap(file.getPath()).get(PLOT_FILE), 0, 4096, 8192, 4096);
+  }
+
+  private static BadRegionMap badRegionMap(String path)
+  {
+    BadRegionMap badRegionMap = new BadRegionMap(new ObjectMapper());
+    badRegionMap.init(path);
+    return badRegionMap;
+  }
+
+  /* expected offset and length of every region */
+  private static void assertRegions(List<BadRegion> regions, long... expected)
+  {
+    assertEquals(expected.length / 2, regions.size());
+    for(int index = 0; index < regions.size(); index++)
+    {
+      assertEquals(expected[2 * index], regions.get(index).getOffset());
+      assertEquals(expected[2 * index + 1], regions.get(index).getLength());
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.EOFException;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assume.assumeTrue;
+
+public class DirectFileTest
+{
+  // not a multiple of the alignment, last block is short
+  private static final int FILE_SIZE = 5 * 1024 * 1024 + 1000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void readsUnalignedRangesIntoCallerBuffer()
+    throws Exception
+  {
+    assumeTrue(LibC.get() != null);
+    byte[] content = new byte[FILE_SIZE];
+    new Random(42).nextBytes(content);
+    File file = temporaryFolder.newFile("1_0_80");
+    Files.write(file.toPath(), content);
+
+    AlignedBuffer alignedBuffer = new AlignedBuffer();
+    try(DirectFile directFile = new DirectFile(file.toPath()))
+    {
+      // aligned, unaligned start and end, larger than 4MB, up to end of file
+      long[][] ranges = {{0, 4096}, {64, 256}, {4000, 200}, {8192, 4 * 1024 * 1024 + 64}, {100, FILE_SIZE - 100}, {FILE_SIZE - 10, 10}};
+      for(long[] range : ranges)
+      {
+        int position = (int) range[0];
+        int length = (int) range[1];
+        byte[] buffer = new byte[length + 16];
+        directFile.read(position, buffer, 16, length, alignedBuffer);
+        assertArrayEquals(Arrays.copyOfRange(content, position, position + length), Arrays.copyOfRange(buffer, 16, 16 + length));
+      }
+    }
+  }
+
+  @Test(expected = EOFException.class)
+  public void readBeyondEndFails()
+    throws Exception
+  {
+    assumeTrue(LibC.get() != null);
+    File file = temporaryFolder.newFile("1_0_1");
+    Files.write(file.toPath(), new byte[1000]);
+
+    try(DirectFile directFile = new DirectFile(file.toPath()))
+    {
+      directFile.read(900, new byte[200], 0, 200, new AlignedBuffer());
+    }
+  }
+}
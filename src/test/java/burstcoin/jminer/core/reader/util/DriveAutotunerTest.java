@@ -0,0 +1,210 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.reader.data.DriveSetup;
+import burstcoin.jminer.core.reader.data.PlotDrive;
+import burstcoin.jminer.core.reader.data.ReadMode;
+import burstcoin.jminer.core.reader.data.ReadPlan;
+import burstcoin.jminer.core.reader.data.ReadPlanCursor;
+import burstcoin.jminer.core.reader.event.ReaderDriveTunedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.jna.Platform;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DriveAutotunerTest
+{
+  private static final String PLOT_PATH = "/plots";
+  private static final long SIZE = 1024 * 1024;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final long readRequestNonces = CoreProperties.getReadRequestNonces(PLOT_PATH);
+  private final DriveSetup defaultSetup = new DriveSetup(ReadMode.BUFFERED, readRequestNonces, 1);
+  // best candidate of every setting, not the default ones
+  private final DriveSetup bestSetup = new DriveSetup(ReadMode.MMAP, readRequestNonces / 4 / 64 * 64, 2);
+
+  @Test
+  public void disabledReturnsDefaultSetup()
+  {
+    DriveAutotuner autotuner = new DriveAutotuner(mock(ApplicationEventPublisher.class), new ObjectMapper());
+    autotuner.init(false, "disabled");
+
+    assertSame(defaultSetup, autotuner.getSetup(plotDrive(), defaultSetup));
+  }
+
+  @Test
+  public void settingsAreTunedOneAfterAnother()
+  {
+    ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    DriveAutotuner autotuner = new DriveAutotuner(publisher, new ObjectMapper());
+    autotuner.init(true, "disabled");
+    PlotDrive plotDrive = plotDrive();
+
+    // read mode first, the others keep their defaults
+    DriveSetup setup = autotuner.getSetup(plotDrive, defaultSetup);
+    assertEquals(Platform.isLinux() ? ReadMode.DIRECT : ReadMode.BUFFERED, setup.getReadMode());
+    assertEquals(readRequestNonces, setup.getReadRequestNonces());
+    assertEquals(1, setup.getConcurrency());
+
+    int readModes = Platform.isLinux() ? 3 : 2;
+    for(int candidate = 0; candidate < readModes; candidate++)
+    {
+      measure(autotuner, plotDrive);
+    }
+    // best read mode kept, request size tuned next
+    setup = autotuner.getSetup(plotDrive, defaultSetup);
+    assertEquals(bestSetup.getReadMode(), setup.getReadMode());
+    assertEquals(Math.max(64, readRequestNonces / 16 / 64 * 64), setup.getReadRequestNonces());
+    assertEquals(1, setup.getConcurrency());
+
+    for(int candidate = 0; candidate < 3; candidate++)
+    {
+      measure(autotuner, plotDrive);
+    }
+    setup = autotuner.getSetup(plotDrive, defaultSetup);
+    assertEquals(bestSetup.getReadRequestNonces(), setup.getReadRequestNonces());
+    assertEquals(1, setup.getConcurrency());
+
+    for(int candidate = 0; candidate < 3; candidate++)
+    {
+      measure(autotuner, plotDrive);
+    }
+    assertSettled(autotuner.getSetup(plotDrive, defaultSetup));
+
+    // settled, further rounds change nothing
+    measure(autotuner, plotDrive);
+    assertSettled(autotuner.getSetup(plotDrive, defaultSetup));
+
+    ArgumentCaptor<ReaderDriveTunedEvent> events = ArgumentCaptor.forClass(ReaderDriveTunedEvent.class);
+    verify(publisher, atLeastOnce()).publishEvent(events.capture());
+    List<ReaderDriveTunedEvent> tunedEvents = events.getAllValues();
+    assertEquals(readModes + 3 + 3 + 1, tunedEvents.size());
+    ReaderDriveTunedEvent settledEvent = tunedEvents.get(tunedEvents.size() - 1);
+    assertTrue(settledEvent.isSettled());
+    assertSettled(settledEvent.getDriveSetup());
+  }
+
+  @Test
+  public void roundOfOutdatedCandidateIsIgnored()
+  {
+    ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    DriveAutotuner autotuner = new DriveAutotuner(publisher, new ObjectMapper());
+    autotuner.init(true, "disabled");
+    PlotDrive plotDrive = plotDrive();
+    DriveSetup setup = autotuner.getSetup(plotDrive, defaultSetup);
+
+    DriveSetup outdated = new DriveSetup(ReadMode.MMAP, 64, 4);
+    for(int round = 0; round < 10; round++)
+    {
+      autotuner.record(plotDrive, readPlanCursor(outdated), 100);
+    }
+
+    verify(publisher, never()).publishEvent(any(ReaderDriveTunedEvent.class));
+    assertEquals(setup.getReadMode(), autotuner.getSetup(plotDrive, defaultSetup).getReadMode());
+  }
+
+  @Test
+  public void tuningIsWrittenOnFlushAndResumed()
+    throws Exception
+  {
+    File file = new File(temporaryFolder.getRoot(), "jminer.autotune.json");
+    DriveAutotuner autotuner = new DriveAutotuner(mock(ApplicationEventPublisher.class), new ObjectMapper());
+    autotuner.init(true, file.getPath());
+    PlotDrive plotDrive = plotDrive();
+    autotuner.getSetup(plotDrive, defaultSetup);
+    measure(autotuner, plotDrive);
+    DriveSetup setup = autotuner.getSetup(plotDrive, defaultSetup);
+
+    // written in background, not by record
+    assertFalse(file.exists());
+    autotuner.flush();
+    assertTrue(file.exists());
+
+    DriveAutotuner resumed = new DriveAutotuner(mock(ApplicationEventPublisher.class), new ObjectMapper());
+    resumed.init(true, file.getPath());
+    DriveSetup resumedSetup = resumed.getSetup(plotDrive, defaultSetup);
+    assertEquals(setup.getReadMode(), resumedSetup.getReadMode());
+    assertEquals(setup.getReadRequestNonces(), resumedSetup.getReadRequestNonces());
+    assertEquals(setup.getConcurrency(), resumedSetup.getConcurrency());
+    resumed.flush();
+  }
+
+  private void assertSettled(DriveSetup setup)
+  {
+    assertEquals(bestSetup.getReadMode(), setup.getReadMode());
+    assertEquals(bestSetup.getReadRequestNonces(), setup.getReadRequestNonces());
+    assertEquals(bestSetup.getConcurrency(), setup.getConcurrency());
+  }
+
+  /* reads the current candidate for enough rounds, the best values of every setting read fastest */
+  private void measure(DriveAutotuner autotuner, PlotDrive plotDrive)
+  {
+    DriveSetup setup = autotuner.getSetup(plotDrive, defaultSetup);
+    long readTime = 100;
+    readTime -= setup.getReadMode() == bestSetup.getReadMode() ? 10 : 0;
+    readTime -= setup.getReadRequestNonces() == bestSetup.getReadRequestNonces() ? 10 : 0;
+    readTime -= setup.getConcurrency() == bestSetup.getConcurrency() ? 10 : 0;
+    for(int round = 0; round < 2; round++)
+    {
+      autotuner.record(plotDrive, readPlanCursor(setup), readTime);
+    }
+  }
+
+  private static PlotDrive plotDrive()
+  {
+    PlotDrive plotDrive = mock(PlotDrive.class);
+    when(plotDrive.getDirectory()).thenReturn(PLOT_PATH);
+    return plotDrive;
+  }
+
+  private static ReadPlanCursor readPlanCursor(DriveSetup setup)
+  {
+    ReadPlan readPlan = mock(ReadPlan.class);
+    when(readPlan.getSize()).thenReturn(SIZE);
+    ReadPlanCursor readPlanCursor = mock(ReadPlanCursor.class);
+    when(readPlanCursor.getReadPlan()).thenReturn(readPlan);
+    when(readPlanCursor.getDriveSetup()).thenReturn(setup);
+    return readPlanCursor;
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+public class IoPriorityTest
+{
+  @Test
+  public void parsesClassAndLevel()
+  {
+    assertEquals(1 << 13 | 0, IoPriority.parse("realtime:0"));
+    assertEquals(2 << 13 | 7, IoPriority.parse(" Best-Effort : 7 "));
+    // default level of the class
+    assertEquals(2 << 13 | 4, IoPriority.parse("best-effort"));
+    assertEquals(3 << 13 | 4, IoPriority.parse("idle"));
+  }
+
+  @Test
+  public void toStringParsesBack()
+  {
+    for(String value : new String[]{"realtime:2", "best-effort:7", "idle"})
+    {
+      assertEquals(value, IoPriority.toString(IoPriority.parse(value)));
+    }
+    assertEquals("none", IoPriority.toString(IoPriority.NONE));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsLevelOutOfRange()
+  {
+    IoPriority.parse("best-effort:8");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNegativeLevel()
+  {
+    IoPriority.parse("realtime:-1");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNone()
+  {
+    IoPriority.parse("none");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsTooManyParts()
+  {
+    IoPriority.parse("idle:1:2");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknownClass()
+  {
+    IoPriority.parse("high");
+  }
+
+  @Test
+  public void refusedPriorityKeepsOthersEnabled()
+    throws InterruptedException
+  {
+    assumeTrue(IoPriority.isSupported());
+    AtomicReference<int[]> applied = new AtomicReference<>();
+    // own thread, its priority is gone with it
+    Thread thread = new Thread(() -> {
+      // class none has no levels, kernel answers EINVAL
+      IoPriority.apply(IoPriority.NONE | 4);
+      int refused = IoPriority.getCurrent();
+      IoPriority.apply(IoPriority.parse("best-effort:7"));
+      applied.set(new int[]{refused, IoPriority.getCurrent()});
+    });
+    thread.start();
+    thread.join();
+
+    assertEquals(IoPriority.NONE, applied.get()[0]);
+    assertEquals(IoPriority.parse("best-effort:7"), applied.get()[1]);
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import burstcoin.jminer.core.CoreProperties;
+import burstcoin.jminer.core.reader.data.PlotFile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PlotScrubberTest
+{
+  private static final Path PLOT_FILE = Paths.get("/plots/1_0_1024");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void confirmationResetsRejections()
+  {
+    int quarantineRejections = CoreProperties.getQuarantineRejections();
+    assumeTrue(quarantineRejections > 1);
+    PlotScrubber plotScrubber = plotScrubber("disabled");
+    PlotFile plotFile = plotFile();
+
+    for(int i = 1; i < quarantineRejections; i++)
+    {
+      plotScrubber.recordRejection(plotFile, 0);
+    }
+    plotScrubber.recordConfirmation(plotFile);
+    plotScrubber.recordRejection(plotFile, 0);
+
+    assertFalse(plotScrubber.isQuarantined(PLOT_FILE));
+    assertFalse(plotScrubber.takeQuarantineChanged());
+  }
+
+  @Test
+  public void quarantineIsWrittenAndRestored()
+    throws Exception
+  {
+    int quarantineRejections = CoreProperties.getQuarantineRejections();
+    assumeTrue(quarantineRejections > 0);
+    File file = new File(temporaryFolder.getRoot(), "quarantine.json");
+    PlotScrubber plotScrubber = plotScrubber(file.getPath());
+    PlotFile plotFile = plotFile();
+
+    for(int i = 0; i < quarantineRejections; i++)
+    {
+      plotScrubber.recordRejection(plotFile, 0);
+    }
+    assertTrue(plotScrubber.isQuarantined(PLOT_FILE));
+    // once, so plots are collected again only once
+    assertTrue(plotScrubber.takeQuarantineChanged());
+    assertFalse(plotScrubber.takeQuarantineChanged());
+
+    // written on timer, or at latest on shutdown
+    plotScrubber.flush();
+    assertTrue(file.exists());
+    assertTrue(plotScrubber(file.getPath()).isQuarantined(PLOT_FILE));
+  }
+
+  private static PlotScrubber plotScrubber(String path)
+  {
+    PlotScrubber plotScrubber = new PlotScrubber(new ObjectMapper(), mock(BadRegionMap.class));
+    plotScrubber.init(path);
+    return plotScrubber;
+  }
+
+  private static PlotFile plotFile()
+  {
+    PlotFile plotFile = mock(PlotFile.class);
+    when(plotFile.getFilePath()).thenReturn(PLOT_FILE);
+    return plotFile;
+  }
+}
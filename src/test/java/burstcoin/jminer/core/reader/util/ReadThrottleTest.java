@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 by luxe - https://github.com/de-luxe - BURST-LUXE-RED2-G6JW-H4HG5
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+package burstcoin.jminer.core.reader.util;
+
+import burstcoin.jminer.core.reader.data.CancellationToken;
+import burstcoin.jminer.core.reader.data.ReadPlanCursor;
+import burstcoin.jminer.core.reader.data.ReadWindow;
+import org.junit.Test;
+
+import java.time.LocalTime;
+import java.util.Collections;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReadThrottleTest
+{
+  private static final long MB = 1024 * 1024;
+  // far away, limit is not lifted
+  private static final long DEADLINE = 60 * 60 * 1000;
+
+  @Test
+  public void unlimitedDoesNotWait()
+  {
+    ReadThrottle readThrottle = new ReadThrottle(0, Collections.emptyList(), readPlanCursor(0), new CancellationToken(1), DEADLINE);
+
+    long startTime = System.currentTimeMillis();
+    for(int request = 0; request < 100; request++)
+    {
+      readThrottle.acquire(100 * MB);
+    }
+    assertTrue(System.currentTimeMillis() - startTime < 100);
+  }
+
+  @Test
+  public void waitsForTokensOfRequest()
+  {
+    // 10MB/s, 3 requests of 1MB take about 300ms
+    ReadThrottle readThrottle = new ReadThrottle(10, Collections.emptyList(), readPlanCursor(0), new CancellationToken(1), DEADLINE);
+
+    long startTime = System.currentTimeMillis();
+    for(int request = 0; request < 3; request++)
+    {
+      readThrottle.acquire(MB);
+    }
+    long time = System.currentTimeMillis() - startTime;
+    assertTrue("read 3MB in '" + time + "ms'", time >= 250 && time < 1000);
+    assertTrue(readThrottle.getWaitTime() >= 250);
+  }
+
+  @Test
+  public void windowOverridesBandwidth()
+  {
+    // window for the whole day, 100MB/s instead of 1MB/s
+    ReadWindow allDay = new ReadWindow(LocalTime.MIN, LocalTime.MAX, 100);
+    ReadThrottle readThrottle = new ReadThrottle(1, Collections.singletonList(allDay), readPlanCursor(0), new CancellationToken(1), DEADLINE);
+
+    long startTime = System.currentTimeMillis();
+    readThrottle.acquire(10 * MB);
+    long time = System.currentTimeMillis() - startTime;
+    assertTrue("read 10MB in '" + time + "ms'", time >= 50 && time < 1000);
+  }
+
+  @Test
+  public void liftedIfDeadlineCannotBeMet()
+  {
+    // remaining time of drive at full speed already beyond deadline
+    ReadThrottle readThrottle = new ReadThrottle(1, Collections.emptyList(), readPlanCursor(DEADLINE), new CancellationToken(1), DEADLINE);
+
+    long startTime = System.currentTimeMillis();
+    readThrottle.acquire(100 * MB);
+    assertTrue(System.currentTimeMillis() - startTime < 100);
+  }
+
+  @Test
+  public void pauseEndsWithRound()
+    throws Exception
+  {
+    ReadWindow allDay = new ReadWindow(LocalTime.MIN, LocalTime.MAX, 0);
+    CancellationToken cancellationToken = new CancellationToken(1);
+    ReadThrottle readThrottle = new ReadThrottle(0, Collections.singletonList(allDay), readPlanCursor(0), cancellationToken, DEADLINE);
+
+    Thread newRound = new Thread(() -> {
+      try
+      {
+        Thread.sleep(200);
+      }
+      catch(InterruptedException e)
+      {
+        return;
+      }
+      cancellationToken.cancel();
+    });
+    newRound.start();
+    readThrottle.acquire(1);
+    newRound.join();
+
+    assertTrue(readThrottle.getWaitTime() >= 150);
+  }
+
+  private static ReadPlanCursor readPlanCursor(long remainingTime)
+  {
+    ReadPlanCursor readPlanCursor = mock(ReadPlanCursor.class);
+    when(readPlanCursor.getRemainingTime()).thenReturn(remainingTime);
+    return readPlanCursor;
+  }
+}